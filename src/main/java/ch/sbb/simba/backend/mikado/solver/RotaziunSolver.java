@@ -9,55 +9,125 @@ import ch.sbb.simba.backend.mikado.solver.parameters.InputDefaultValues;
 import ch.sbb.simba.backend.mikado.solver.parameters.InputValidation;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.RollingHorizon;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.RollingHorizon.TimeWindow;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.SolutionHint;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.SolveCancellation;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.utils.DurationMatrixCache;
 import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
 import ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public final class RotaziunSolver {
 
-    public static int numOfSections;
-
     private RotaziunSolver() {
     }
 
     static RotaziunResultParams solve(List<RotaziunSection> commercialSections, List<RotaziunSection> maintenanceSections, RotaziunInputParams inputParams) {
+        return solve(commercialSections, maintenanceSections, inputParams, new SolveCancellation());
+    }
+
+    /**
+     * Solves on the given executor, the caller is not blocked.
+     * <p>
+     * Cancelling the future (or completing it otherwise, e.g. by {@code orTimeout}) cancels the solve: the CP-SAT solver of the running
+     * stage is stopped right away and no further stage is started. The future completes with a {@link java.util.concurrent.CancellationException}.
+     * <p>
+     * CBC stages cannot be interrupted: a CBC stage that is running when the solve is cancelled runs until it is done or until its time
+     * limit (from the time budget) is reached; only then does the solve end. With CBC, set a time budget to bound the time until a
+     * cancellation takes effect.
+     * <p>
+     * A failed solve completes the future exceptionally.
+     */
+    public static CompletableFuture<RotaziunResultParams> solveAsync(List<RotaziunSection> commercialSections, List<RotaziunSection> maintenanceSections,
+        RotaziunInputParams inputParams, Executor executor) {
+
+        SolveCancellation cancellation = new SolveCancellation();
+        CompletableFuture<RotaziunResultParams> result = CompletableFuture.supplyAsync(
+            () -> solve(commercialSections, maintenanceSections, inputParams, cancellation), executor);
+        result.whenComplete((resultParams, exception) -> {
+            if (exception != null) {
+                cancellation.cancel();
+            }
+        });
+        return result;
+    }
+
+    private static RotaziunResultParams solve(List<RotaziunSection> commercialSections, List<RotaziunSection> maintenanceSections,
+        RotaziunInputParams input, SolveCancellation cancellation) {
 
+        long startTime = System.nanoTime();
         List<RotaziunSection> allSections = prepenadMaintenanceSections(commercialSections, maintenanceSections);
-        RotaziunDurationMap durationMap = new RotaziunDurationMap(allSections);
 
-        InputDefaultValues.setDefaults(inputParams);
+        RotaziunInputParams inputParams = InputDefaultValues.withDefaults(input);
+        RotaziunDurationMap durationMap = new RotaziunDurationMap(allSections, inputParams.getLazyDurationMap(), inputParams.getNetworkDurations(),
+            inputParams.getParallelPreprocessing(), inputParams.getPreprocessingExecutor(), getDurationMatrixCache(inputParams));
         InputValidation.validateInputParameters(allSections, inputParams, durationMap);
 
         IpSolverParams params = new IpSolverParams(inputParams, allSections, maintenanceSections, durationMap);
-        numOfSections = allSections.size();
+        params.setStartTime(startTime);
+        params.setCancellation(cancellation);
+        if (inputParams.getTimeBudget() != null) {
+            params.setDeadline(startTime + inputParams.getTimeBudget() * 1_000_000_000L);
+        }
 
         logProblemScope(params);
         RotaziunResultParams resultParams = solveWithMultiStageApproach(params, allSections);
+        cancellation.throwIfCancelled(); // the result of an interrupted stage is not returned
 
+        resultParams.setStageMemory(List.copyOf(params.getStageMemory()));
         resultParams.setBlocks(RotaziunBlockConstructor.makeBlocks(params,resultParams));
         return resultParams;
     }
 
+    private static DurationMatrixCache getDurationMatrixCache(RotaziunInputParams inputParams) {
+        if (inputParams.getDurationCacheDirectory() == null) {
+            return null;
+        }
+        return new DurationMatrixCache(Path.of(inputParams.getDurationCacheDirectory()), inputParams.getDurationCacheMaxSize() * 1024L * 1024L);
+    }
+
+    /*
+     * with a time budget, every stage gets its share of the remaining time and returns its best solution when it is up;
+     * stages that would start after the time budget is used up are skipped and the result of the last solved stage is returned,
+     * except for stage 1 of the two-stage approach: if stage 2 is skipped, the solve has no solution
+     */
     private static RotaziunResultParams solveWithMultiStageApproach(IpSolverParams params, List<RotaziunSection> sections) {
 
         RotaziunResultParams rotaziunResultParams = RotaziunResultParams.builder().solved(false).build();
+        SolutionHint solutionHint = null; // last solution found, start of the next stage
+        int numOfRollingHorizonWindows = 0;
 
-        while(!rotaziunResultParams.isSolved() && params.getPrecisionLevel() <= MAX_PRECISION_LEVEL){
+        while(!rotaziunResultParams.isSolved() && params.getPrecisionLevel() <= MAX_PRECISION_LEVEL && !params.isTimeBudgetUsedUp()){
 
             // solver stage 1:
             log.info("IpStage: 1");
-            rotaziunResultParams = IpSolver.solve(sections, params.setStageOneParams());
+            rotaziunResultParams = IpSolver.solve(sections, params.setStageOneParams().withSolutionHint(solutionHint));
+            solutionHint = getLastSolutionHint(rotaziunResultParams, solutionHint);
 
-            if(params.isTwoStages()) {
+            if(params.isTwoStages() && isTimeBudgetUsedUp(params, "2")) {
+                // stage 1 is a relaxation of the problem (no oneBlock at precision level 0, no coupling-decoupling and sidings), never the result
+                rotaziunResultParams = RotaziunResultParams.getNotSolvedResultParams();
+            } else if(params.isTwoStages()) {
                 // solver stage 2
                 log.info("IpStage: 2");
                 Map<RotaziunSection, RotaziunSection> sectionChainMap = rotaziunResultParams.getSectionChainMap();
-                rotaziunResultParams = IpSolver.solve(sections, params.setStageTwoParams(sectionChainMap));
+                if(params.isRollingHorizon() && rotaziunResultParams.isSolved()) {
+                    rotaziunResultParams = solveStageTwoWithRollingHorizon(params, sections, rotaziunResultParams, solutionHint);
+                    numOfRollingHorizonWindows = rotaziunResultParams.getNumOfRollingHorizonWindows();
+                } else {
+                    rotaziunResultParams = IpSolver.solve(sections, params.setStageTwoParams(sectionChainMap).withSolutionHint(solutionHint));
+                }
+                solutionHint = getLastSolutionHint(rotaziunResultParams, solutionHint);
             }
 
             params.setPrecisionLevel(params.getPrecisionLevel() + 1);
@@ -65,20 +135,87 @@ public final class RotaziunSolver {
 
         }
 
-        if(params.isWithMaintenance()){
+        if(params.isWithMaintenance() && !isTimeBudgetUsedUp(params, "Maintenance")){
             // solver stage maintenance
             long preMaintenance = System.nanoTime();
             log.info("IP solver Stage Maintenance has started");
             log.info("solved: " + rotaziunResultParams.isSolved());
             params.setPrecisionLevel(params.getPrecisionLevel() - 1);
-            rotaziunResultParams = IpSolver.solve(sections, params.setMaintenanceStageParams(rotaziunResultParams.getSectionChainMap()));
+            rotaziunResultParams = IpSolver.solve(sections, params.setMaintenanceStageParams(rotaziunResultParams.getSectionChainMap()).withSolutionHint(solutionHint));
             log.info("MaintenanceTime: " + (System.nanoTime() - preMaintenance) / 1_000_000_000.0);
         }
 
+        rotaziunResultParams.setNumOfRollingHorizonWindows(numOfRollingHorizonWindows);
         return rotaziunResultParams;
 
     }
 
+    /*
+     * stage 2 as rolling horizon (see RollingHorizon): the time windows are solved in sequence, starting from the solution of stage 1,
+     * then the stitching stage solves the chains between the windows with the chains within the window cores fixed
+     *  -> a window without solution keeps the current solution, its chains are left to the stitching stage
+     *  -> with a single window or without any solved window, stage 2 is solved as usual (not solved if the time budget is used up);
+     *     if the time budget is used up before the stitching stage, the solution of the last solved window is returned
+     */
+    private static RotaziunResultParams solveStageTwoWithRollingHorizon(IpSolverParams params, List<RotaziunSection> sections,
+        RotaziunResultParams stageOneResult, SolutionHint solutionHint) {
+
+        List<TimeWindow> windows = RollingHorizon.computeTimeWindows(sections, params);
+        log.info("RollingHorizonWindows: " + windows.size());
+        if(windows.size() <= 1) {
+            return IpSolver.solve(sections, params.setStageTwoParams(stageOneResult.getSectionChainMap()).withSolutionHint(solutionHint));
+        }
+
+        RotaziunResultParams lastSolvedWindow = null;
+        Map<RotaziunSection, RotaziunSection> sectionChainMap = stageOneResult.getSectionChainMap();
+        Map<RotaziunSection, RotaziunSection> chainsWithinCores = new HashMap<>();
+        int numOfSolvedWindows = 0;
+
+        for(int k = 0; k < windows.size() && !isTimeBudgetUsedUp(params, "2 (window " + (k + 1) + ")"); k++) {
+            log.info("RollingHorizonWindow: " + (k + 1) + "/" + windows.size());
+            RotaziunResultParams windowResult = IpSolver.solve(sections,
+                params.setWindowStageParams(sections, sectionChainMap, windows.get(k), windows.size() - k).withSolutionHint(solutionHint));
+            if(windowResult.isSolved()) {
+                lastSolvedWindow = windowResult;
+                sectionChainMap = windowResult.getSectionChainMap();
+                solutionHint = getLastSolutionHint(windowResult, solutionHint);
+                chainsWithinCores.putAll(RollingHorizon.getChainsWithinCore(sectionChainMap, windows.get(k)));
+                numOfSolvedWindows++;
+            }
+        }
+        log.info("RollingHorizonSolvedWindows: " + numOfSolvedWindows + "/" + windows.size());
+        log.info("RollingHorizonFixedChains: " + chainsWithinCores.size());
+
+        RotaziunResultParams result;
+        if(numOfSolvedWindows == 0) {
+            // stage 1 (without oneBlock) is never the result, see solveWithMultiStageApproach
+            result = isTimeBudgetUsedUp(params, "2") ? RotaziunResultParams.getNotSolvedResultParams()
+                : IpSolver.solve(sections, params.setStageTwoParams(stageOneResult.getSectionChainMap()).withSolutionHint(solutionHint));
+        } else if(isTimeBudgetUsedUp(params, "2 (stitching)")) {
+            result = lastSolvedWindow;
+        } else {
+            log.info("RollingHorizonStitching");
+            result = IpSolver.solve(sections, params.setStitchingStageParams(chainsWithinCores).withSolutionHint(solutionHint));
+            if(!result.isSolved()) {
+                result = lastSolvedWindow; // the last solved window is a solution of stage 2 as well
+            }
+        }
+        result.setNumOfRollingHorizonWindows(numOfSolvedWindows);
+        return result;
+    }
+
+    private static boolean isTimeBudgetUsedUp(IpSolverParams params, String stage) {
+        if (params.isTimeBudgetUsedUp()) {
+            log.warn("Time budget is used up, IpStage " + stage + " is skipped");
+            return true;
+        }
+        return false;
+    }
+
+    private static SolutionHint getLastSolutionHint(RotaziunResultParams resultParams, SolutionHint previousSolutionHint) {
+        return resultParams.getSolutionHint() != null ? resultParams.getSolutionHint() : previousSolutionHint;
+    }
+
     private static void logProblemScope(IpSolverParams params) {
         log.info("2-Stage: " + params.isTwoStages());
         log.info("oneBlock: " + params.isOnlyOneBlock());
@@ -15,6 +15,7 @@ import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
 import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -24,36 +25,37 @@ public final class RotaziunBlockConstructor {
     private RotaziunBlockConstructor(){
     }
 
-    private static Map<RotaziunSection,RotaziunSection> chainMap;
-
     public static List<RotaziunBlock> makeBlocks(IpSolverParams params, RotaziunResultParams resultParams) {
 
         if(!resultParams.isSolved()){
             return new ArrayList<>();
         }
 
-        chainMap = resultParams.getSectionChainMap();
+        // chains not assigned to a block yet; a copy, the chain map of the result stays complete
+        Map<RotaziunSection,RotaziunSection> chainMap = new HashMap<>(resultParams.getSectionChainMap());
         List<RotaziunBlock> blocks = new ArrayList<>();
-        Pair<RotaziunSection, RotaziunSection> startChain = getAnyNotAssignedChain();
+        Pair<RotaziunSection, RotaziunSection> startChain = getAnyNotAssignedChain(chainMap);
         while (startChain != null) {
-            blocks.add(makeBlock(reorderBlockItemsByEarliestStart(getItemsOfBlock(startChain, params, resultParams))));
-            startChain = getAnyNotAssignedChain();
+            blocks.add(makeBlock(reorderBlockItemsByEarliestStart(getItemsOfBlock(startChain, chainMap, params, resultParams))));
+            startChain = getAnyNotAssignedChain(chainMap);
         }
         return blocks;
 
     }
 
-    private static List<RotaziunBlockItem> getItemsOfBlock(Pair<RotaziunSection, RotaziunSection> chain, IpSolverParams params, RotaziunResultParams resultParams) {
+    private static List<RotaziunBlockItem> getItemsOfBlock(Pair<RotaziunSection, RotaziunSection> chain, Map<RotaziunSection,RotaziunSection> chainMap,
+        IpSolverParams params, RotaziunResultParams resultParams) {
 
         List<RotaziunBlockItem> blockItems = new ArrayList<>();
         while(chain != null){
-            addChainToBlockItems(blockItems, chain, params, resultParams);
-            chain = getChain(chain.getSecond());
+            addChainToBlockItems(blockItems, chain, chainMap, params, resultParams);
+            chain = getChain(chain.getSecond(), chainMap);
         }
         return blockItems;
     }
 
-    private static void addChainToBlockItems(List<RotaziunBlockItem> blockItems, Pair<RotaziunSection, RotaziunSection> chain, IpSolverParams params, RotaziunResultParams resultParams) {
+    private static void addChainToBlockItems(List<RotaziunBlockItem> blockItems, Pair<RotaziunSection, RotaziunSection> chain, Map<RotaziunSection,RotaziunSection> chainMap,
+        IpSolverParams params, RotaziunResultParams resultParams) {
         if(hasChainEmptyTrip(chain)){
             blockItems.add(SectionsToEmptyTripBlockItem.convert(chain.getFirst(), chain.getSecond(), params, resultParams));
         }
@@ -91,11 +93,11 @@ public final class RotaziunBlockConstructor {
         return itemFrom.getEnd() < itemFrom.getStart() || itemFrom.getEnd() > itemTo.getStart();
     }
 
-    private static Pair<RotaziunSection, RotaziunSection> getChain(RotaziunSection fromSection) {
+    private static Pair<RotaziunSection, RotaziunSection> getChain(RotaziunSection fromSection, Map<RotaziunSection,RotaziunSection> chainMap) {
         return chainMap.containsKey(fromSection) ? new Pair<>(fromSection, chainMap.get(fromSection)) : null;
     }
 
-    private static Pair<RotaziunSection, RotaziunSection> getAnyNotAssignedChain() {
+    private static Pair<RotaziunSection, RotaziunSection> getAnyNotAssignedChain(Map<RotaziunSection,RotaziunSection> chainMap) {
         return chainMap.entrySet().stream().findAny().map(entry -> new Pair<>(entry.getKey(), entry.getValue())).orElse(null);
     }
 
@@ -1,10 +1,9 @@
 package ch.sbb.simba.backend.mikado.solver.blocking.converters;
 
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.getEmptyTripDuration;
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
-import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSidingVariableNeeded;
 
 import ch.sbb.simba.backend.mikado.solver.blocking.models.RotaziunBlockItem;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
@@ -17,12 +16,15 @@ public final class SectionsToEmptyTripBlockItem {
 
     public static RotaziunBlockItem convert(RotaziunSection currentSection, RotaziunSection nextSection, IpSolverParams params, RotaziunResultParams resultParams) {
 
-        int startTimeOfEmptyTrip = determineStartTimeOfEmptyTripInSectionChain(currentSection, nextSection, params, resultParams);
+        ChainAttributes attributes = resultParams.getChainAttributes();
+        int chainIdx = attributes.getPosition(params.getSectionIdxMap().get(currentSection), params.getSectionIdxMap().get(nextSection));
+
+        int startTimeOfEmptyTrip = determineStartTimeOfEmptyTripInSectionChain(currentSection, nextSection, chainIdx, params, resultParams);
         startTimeOfEmptyTrip = startTimeOfEmptyTrip % DAY_IN_SECONDS;
 
         return RotaziunBlockItem.builder()
             .start(startTimeOfEmptyTrip)
-            .end(startTimeOfEmptyTrip + getEmptyTripDuration(currentSection, nextSection, params.getDurationMap()))
+            .end(startTimeOfEmptyTrip + attributes.getEmptyTripDuration(chainIdx))
             .fromStation(currentSection.getToStation())
             .toStation(nextSection.getFromStation())
             .type(RotaziunSectionType.EMPTY)
@@ -31,22 +33,24 @@ public final class SectionsToEmptyTripBlockItem {
 
     // determine wether empty trip should be at the beginning or end of a chain
     // this depends on the siding capacity
-    private static int determineStartTimeOfEmptyTripInSectionChain(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params, RotaziunResultParams resultParams) {
+    private static int determineStartTimeOfEmptyTripInSectionChain(RotaziunSection fromSection, RotaziunSection toSection, int chainIdx, IpSolverParams params,
+        RotaziunResultParams resultParams) {
 
-        if(params.getStageParams().isWithSidings() && isSidingVariableNeeded(params, fromSection, toSection) && resultParams.getSidingBeforeEmptyTrip().get(fromSection)){
+        ChainAttributes attributes = resultParams.getChainAttributes();
+        if(params.getStageParams().isWithSidings() && attributes.isSidingVariableNeeded(chainIdx) && resultParams.getSidingBeforeEmptyTrip().get(fromSection)){
             // empty trip must be before toSection
-            return getStartTimeOfEmptyTripBeforeToSection(fromSection, toSection, params);
+            return getStartTimeOfEmptyTripBeforeToSection(toSection, attributes.getEmptyTripDuration(chainIdx), params);
         }
         if(params.getProhibitedSidingSites().contains(toSection.getFromStation().getId())){
-            return getStartTimeOfEmptyTripBeforeToSection(fromSection, toSection, params);
+            return getStartTimeOfEmptyTripBeforeToSection(toSection, attributes.getEmptyTripDuration(chainIdx), params);
         }
         // by default, the empty trip is after the fromSection
         return (fromSection.getArrival() + params.getMinTurnTime()) % DAY_IN_SECONDS;
 
     }
 
-    private static int getStartTimeOfEmptyTripBeforeToSection(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params) {
-        int startTime = (toSection.getDeparture() - getEmptyTripDuration(fromSection, toSection, params.getDurationMap()) - params.getMinTurnTime());
+    private static int getStartTimeOfEmptyTripBeforeToSection(RotaziunSection toSection, int emptyTripDuration, IpSolverParams params) {
+        int startTime = (toSection.getDeparture() - emptyTripDuration - params.getMinTurnTime());
         startTime = startTime < 0 ? startTime + DAY_IN_SECONDS : startTime;
         return startTime;
     }
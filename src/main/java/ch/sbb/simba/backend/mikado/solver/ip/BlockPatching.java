@@ -0,0 +1,192 @@
+package ch.sbb.simba.backend.mikado.solver.ip;
+
+import static ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams.getResultParams;
+import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrOneBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
+import com.google.ortools.linearsolver.MPSolver;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Joins the blocks of a oneBlock solution into one block, if the possible chains split into components (see ChainComponents): every component
+ * is solved as one block of its own, the blocks are joined one after the other to the largest block
+ *  -> two blocks are joined by exchanging the successors of a section a of the joined block and a section b of the next block:
+ *     a -> next(b) and b -> next(a) replace a -> next(a) and b -> next(b), the exchange with the lowest additional cost is chosen
+ *  -> fixed chains (of the stage and required section chains) are not replaced; the new chains must be allowed (prohibited section chains,
+ *     siding sites and empty trips) and need no siding variable, so the siding capacities of the solution still hold
+ *  -> candidates of a block are its sections with the longest idle time to their successor (at most MAX_CANDIDATES_PER_BLOCK)
+ * The new chains connect components, so they are no possible chains of the stage: the result is built on the possible chains together with
+ * the new chains. The joined block is feasible, but not proven to be optimal.
+ * Coupling-decoupling and maintenance depend on the whole block, their stages are not joined (see IpSolver).
+ */
+@Slf4j
+final class BlockPatching {
+
+    private static final int MAX_CANDIDATES_PER_BLOCK = 32;
+
+    private BlockPatching() {
+    }
+
+    static boolean isApplicable(IpSolverParams params) {
+        return !params.getStageParams().isWithCouplingDecoupling() && !params.getStageParams().isWithMaintenance();
+    }
+
+    static RotaziunResultParams joinBlocks(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes, Variables v,
+        double[] solution, IpSolverParams params) {
+
+        int[] next = new int[sections.size()];
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            if (solution[v.x[idx]] == 1) {
+                next[possibleChains.getFrom(idx)] = possibleChains.getTo(idx);
+            }
+        }
+        List<int[]> blocks = ConstrOneBlock.getBlocksFromSolution(possibleChains, v, solution, sections.size()).stream()
+            .sorted(Comparator.comparingInt((int[] block) -> -block.length)).toList();
+
+        boolean[] isReplaceable = getReplaceableChains(sections, params);
+        long[] prohibitedChainKeys = getProhibitedChainKeys(params);
+        int[] idleTime = getIdleTimeToSuccessor(next, attributes);
+
+        ChainList patchChains = new ChainList();
+        double additionalCost = 0;
+        int[] joinedCandidates = getCandidates(blocks.get(0), isReplaceable, idleTime);
+        for (int b = 1; b < blocks.size(); b++) {
+            int[] blockCandidates = getCandidates(blocks.get(b), isReplaceable, idleTime);
+            Exchange exchange = findCheapestExchange(joinedCandidates, blockCandidates, next, sections, attributes, prohibitedChainKeys, params);
+            if (exchange == null) {
+                log.info("BlockPatching: no allowed exchange joins block " + b + " of " + blocks.size() + ", OneBlock is infeasible");
+                return RotaziunResultParams.getInfeasibleResultParams();
+            }
+            int successorOfFirst = next[exchange.first()];
+            next[exchange.first()] = next[exchange.second()];
+            next[exchange.second()] = successorOfFirst;
+            patchChains.add(exchange.first(), next[exchange.first()]);
+            patchChains.add(exchange.second(), next[exchange.second()]);
+            additionalCost += exchange.additionalCost();
+            joinedCandidates = mergeCandidates(joinedCandidates, blockCandidates, exchange, idleTime);
+        }
+        log.info("BlockPatching: " + blocks.size() + " blocks joined, additional cost " + additionalCost);
+
+        return getJoinedResultParams(sections, possibleChains, v, solution, patchChains, next, params);
+    }
+
+    private record Exchange(int first, int second, double additionalCost) {
+    }
+
+    // new chains of every exchange of a joined candidate a and a block candidate b: a -> next(b) and b -> next(a)
+    private static Exchange findCheapestExchange(int[] joinedCandidates, int[] blockCandidates, int[] next, List<RotaziunSection> sections,
+        ChainAttributes attributes, long[] prohibitedChainKeys, IpSolverParams params) {
+
+        ChainList exchangeChains = new ChainList(2 * joinedCandidates.length * blockCandidates.length);
+        for (int a : joinedCandidates) {
+            for (int b : blockCandidates) {
+                exchangeChains.add(a, next[b]);
+                exchangeChains.add(b, next[a]);
+            }
+        }
+        ChainAttributes exchangeAttributes = ChainAttributes.of(exchangeChains, sections, params);
+
+        Exchange cheapest = null;
+        for (int idx = 0; idx < exchangeChains.size(); idx += 2) {
+            if (!isExchangeChainAllowed(exchangeChains, idx, exchangeAttributes, sections, prohibitedChainKeys, params) ||
+                !isExchangeChainAllowed(exchangeChains, idx + 1, exchangeAttributes, sections, prohibitedChainKeys, params)) {
+                continue;
+            }
+            int a = exchangeChains.getFrom(idx);
+            int b = exchangeChains.getFrom(idx + 1);
+            double additionalCost = Objective.getChainCost(exchangeAttributes, idx, params) + Objective.getChainCost(exchangeAttributes, idx + 1, params) -
+                Objective.getChainCost(attributes, attributes.getPosition(a, next[a]), params) -
+                Objective.getChainCost(attributes, attributes.getPosition(b, next[b]), params);
+            if (cheapest == null || additionalCost < cheapest.additionalCost()) {
+                cheapest = new Exchange(a, b, additionalCost);
+            }
+        }
+        return cheapest;
+    }
+
+    private static boolean isExchangeChainAllowed(ChainList exchangeChains, int idx, ChainAttributes exchangeAttributes, List<RotaziunSection> sections,
+        long[] prohibitedChainKeys, IpSolverParams params) {
+        int from = exchangeChains.getFrom(idx);
+        int to = exchangeChains.getTo(idx);
+        return Arrays.binarySearch(prohibitedChainKeys, getKey(from, to)) < 0 &&
+            ChainAnalysis.isChainAllowed(sections.get(from), sections.get(to), params) &&
+            !(params.getStageParams().isWithSidings() && exchangeAttributes.isSidingVariableNeeded(idx));
+    }
+
+    // a section whose chain to its successor is fixed keeps its successor
+    private static boolean[] getReplaceableChains(List<RotaziunSection> sections, IpSolverParams params) {
+        boolean[] isReplaceable = new boolean[sections.size()];
+        Arrays.fill(isReplaceable, true);
+        params.getStageParams().getFixedChainMap().keySet().forEach(section -> isReplaceable[params.getSectionIdxMap().get(section)] = false);
+        params.getRequiredSectionChains().forEach(chain -> isReplaceable[params.getSectionIdxMap().get(chain.getFirst())] = false);
+        return isReplaceable;
+    }
+
+    // see ProhibitedChainFilter
+    private static long[] getProhibitedChainKeys(IpSolverParams params) {
+        return params.getProhibitedSectionChains().stream()
+            .mapToLong(chain -> getKey(params.getSectionIdxMap().get(chain.getFirst()), params.getSectionIdxMap().get(chain.getSecond())))
+            .sorted().toArray();
+    }
+
+    private static int[] getIdleTimeToSuccessor(int[] next, ChainAttributes attributes) {
+        return IntStream.range(0, next.length).map(i -> attributes.getIdleTime(attributes.getPosition(i, next[i]))).toArray();
+    }
+
+    private static int[] getCandidates(int[] block, boolean[] isReplaceable, int[] idleTime) {
+        return selectLongestIdleTimes(Arrays.stream(block).filter(i -> isReplaceable[i]), idleTime);
+    }
+
+    // the exchanged sections are now at a new chain, they are no candidates anymore
+    private static int[] mergeCandidates(int[] joinedCandidates, int[] blockCandidates, Exchange exchange, int[] idleTime) {
+        return selectLongestIdleTimes(IntStream.concat(Arrays.stream(joinedCandidates), Arrays.stream(blockCandidates))
+            .filter(i -> i != exchange.first() && i != exchange.second()), idleTime);
+    }
+
+    // longest idle time first, ties by section index
+    private static int[] selectLongestIdleTimes(IntStream sectionIdxs, int[] idleTime) {
+        return sectionIdxs.boxed()
+            .sorted(Comparator.comparingInt((Integer i) -> -idleTime[i]).thenComparingInt(i -> i))
+            .limit(MAX_CANDIDATES_PER_BLOCK)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    // solution on the possible chains and the new chains; the sidings of the kept chains are taken over
+    private static RotaziunResultParams getJoinedResultParams(List<RotaziunSection> sections, ChainList possibleChains, Variables v, double[] solution,
+        ChainList patchChains, int[] next, IpSolverParams params) {
+
+        ChainList joinedChains = ChainList.concat(List.of(possibleChains, patchChains));
+        ChainAttributes joinedAttributes = ChainAttributes.of(joinedChains, sections, params);
+        IpModel joinedModel = new IpModel(false);
+        Variables joined = new Variables(joinedModel, joinedChains, joinedAttributes, params);
+        Objective.makeObjective(joinedModel, joinedChains, joinedAttributes, joined, params);
+
+        double[] joinedSolution = new double[joinedModel.getNumOfVariables()];
+        double objectiveValue = 0;
+        for (int idx = 0; idx < joinedChains.size(); idx++) {
+            if (next[joinedChains.getFrom(idx)] != joinedChains.getTo(idx)) {
+                continue;
+            }
+            joinedSolution[joined.x[idx]] = 1;
+            objectiveValue += joinedModel.getObjectiveCoefficient(joined.x[idx]);
+            if (idx < possibleChains.size() && joined.sFirst != null && joined.sFirst[idx] != IpModel.NO_VARIABLE) {
+                joinedSolution[joined.sFirst[idx]] = solution[v.sFirst[idx]];
+                joinedSolution[joined.sSecond[idx]] = solution[v.sSecond[idx]];
+            }
+        }
+        return getResultParams(sections, joinedChains, joinedAttributes, joined, joinedSolution, MPSolver.ResultStatus.FEASIBLE, objectiveValue, params);
+    }
+
+}
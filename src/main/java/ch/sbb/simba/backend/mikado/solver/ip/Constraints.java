@@ -1,47 +1,73 @@
 package ch.sbb.simba.backend.mikado.solver.ip;
 
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isOneBlockModelledAsCircuit;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isOneBlockSolvedWithSubtourCuts;
+import static ch.sbb.simba.backend.mikado.solver.utils.ParallelExecution.runAll;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainComponents;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
 import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrBasic;
 import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrCouplingDecoupling;
 import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrMaintenance;
 import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrOneBlock;
 import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrSidings;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import com.google.ortools.linearsolver.MPSolver;
+import java.util.ArrayList;
 import java.util.List;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 public final class Constraints {
 
     private Constraints() {
     }
 
-    public static void makeConstraints(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v,
+    /*
+     * every constraint family fills its own block of the model; the blocks are created in family order, so the row order does not depend on
+     * whether the families are filled in parallel
+     *  -> a family only changes the bounds of its own variables (oneBlock: u and the chains of a section to itself, coupling-decoupling: coup/decoup)
+     *  -> maintenance only changes the bounds of u and is applied after the families, as it overrides the oneBlock bounds
+     */
+    public static void makeConstraints(IpModel model, ChainList possibleChains, ChainAttributes attributes, ChainComponents components, Variables v,
         List<RotaziunSection> sections, IpSolverParams params) {
 
+        List<Runnable> constraintFamilies = new ArrayList<>();
+
         // Basic Constraint
-        ConstrBasic.eachSectionIsPartExactlyOnce(solver, possibleChains, v);
+        ConstraintBlock basic = model.newConstraintBlock();
+        constraintFamilies.add(() -> ConstrBasic.eachSectionIsPartExactlyOnce(basic, possibleChains, v, params));
 
-        // OneBlock
-        if(params.getStageParams().isOnlyOneBlock()){
-            ConstrOneBlock.makeSubTourEliminationConstraint(solver, possibleChains, v);
+        // OneBlock (subtour cuts are added while solving, see IpSolver)
+        if(params.getStageParams().isOnlyOneBlock() && !isOneBlockSolvedWithSubtourCuts(params)){
+            ConstraintBlock oneBlock = model.newConstraintBlock();
+            List<ConstraintBlock> circuits = new ArrayList<>();
+            for (int c = 0; isOneBlockModelledAsCircuit(params) && c < components.getNumOfComponents(); c++) {
+                circuits.add(model.newConstraintBlock());
+            }
+            constraintFamilies.add(() -> ConstrOneBlock.makeSubTourEliminationConstraint(model, oneBlock, circuits, possibleChains, components, v, params));
         }
 
         // Coupling-Decoupling
         if(params.getStageParams().isWithCouplingDecoupling()){
-            ConstrCouplingDecoupling.makeCouplingDecouplingConstraints(solver, possibleChains, v, params, sections);
+            ConstraintBlock couplingDecoupling = model.newConstraintBlock();
+            constraintFamilies.add(() -> ConstrCouplingDecoupling.makeCouplingDecouplingConstraints(model, couplingDecoupling, possibleChains, attributes, v, params, sections));
         }
 
         // Siding
         if(params.getStageParams().isWithSidings()){
-            ConstrSidings.makeSidingConstraints(solver, possibleChains, v, sections, params);
+            ConstraintBlock sidings = model.newConstraintBlock();
+            constraintFamilies.add(() -> ConstrSidings.makeSidingConstraints(sidings, possibleChains, attributes, v, sections, params));
         }
 
+        runAll(constraintFamilies, params.isParallelPreprocessing(), params.getPreprocessingExecutor());
+
         // Mainteinance
         if(params.getStageParams().isWithMaintenance()){
-            ConstrMaintenance.makeMaintenanceConstraint(v, params);
+            ConstrMaintenance.makeMaintenanceConstraint(model, v, params);
         }
 
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package ch.sbb.simba.backend.mikado.solver.ip;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.SolutionHint;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Hints of a stage from the solution of the previous stage (see SolutionHint)
+ *  -> every chaining variable gets a hint: 1 if the chain was chosen, 0 otherwise
+ *  -> sidings: second siding as before, the first siding is chosen if the second one is not
+ *  -> placements (maintenance): position along the previous block, if the previous solution is one block
+ *  -> coupling-decoupling variables by enforcement index, if they were part of the previous stage
+ * A hint that is infeasible for the stage (e.g. after a module is added) is only a starting point, the solver repairs or drops it.
+ * Without a solution hint (first stage, or solution hints switched off), the model gets no hints.
+ */
+public final class Hints {
+
+    private Hints() {
+    }
+
+    static void makeHints(IpModel model, ChainList possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
+
+        SolutionHint hint = params.getStageParams().getSolutionHint();
+        if (hint == null) {
+            return;
+        }
+        Map<RotaziunSection,RotaziunSection> sectionChainMap = hint.getSectionChainMap();
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            RotaziunSection from = sections.get(possibleChains.getFrom(idx));
+            boolean isChosen = sectionChainMap.get(from) == sections.get(possibleChains.getTo(idx));
+            model.setHint(v.x[idx], isChosen ? 1 : 0);
+
+            if (v.sFirst != null && v.sFirst[idx] != IpModel.NO_VARIABLE) {
+                boolean isSidingAfterEmptyTrip = isChosen && hint.getSidingAfterEmptyTrip().contains(from);
+                model.setHint(v.sFirst[idx], isChosen && !isSidingAfterEmptyTrip ? 1 : 0);
+                model.setHint(v.sSecond[idx], isSidingAfterEmptyTrip ? 1 : 0);
+            }
+        }
+
+        if (v.u != null) {
+            makePlacementHints(model, v, sections, sectionChainMap, params.getSectionIdxMap());
+        }
+
+        int[][] couplingDecouplingVariables = v.getCouplingDecouplingVariables();
+        double[][] couplingDecouplingValues = hint.getCouplingDecouplingValues();
+        for (int g = 0; g < couplingDecouplingVariables.length; g++) {
+            if (couplingDecouplingVariables[g] != null && couplingDecouplingValues[g] != null &&
+                couplingDecouplingVariables[g].length == couplingDecouplingValues[g].length) {
+                for (int i = 0; i < couplingDecouplingVariables[g].length; i++) {
+                    model.setHint(couplingDecouplingVariables[g][i], couplingDecouplingValues[g][i]);
+                }
+            }
+        }
+
+    }
+
+    // u_i = position of section i in the block starting with the first section
+    private static void makePlacementHints(IpModel model, Variables v, List<RotaziunSection> sections, Map<RotaziunSection,RotaziunSection> sectionChainMap,
+        Map<RotaziunSection,Integer> sectionIdxMap) {
+        int[] placements = new int[sections.size()];
+        RotaziunSection section = sections.get(0);
+        for (int placement = 1; placement <= sections.size(); placement++) {
+            Integer sectionIdx = sectionIdxMap.get(section);
+            if (sectionIdx == null || placements[sectionIdx] != 0) {
+                return; // not one block
+            }
+            placements[sectionIdx] = placement;
+            section = sectionChainMap.get(section);
+        }
+        for (int i = 0; i < sections.size(); i++) {
+            model.setHint(v.u[i], placements[i]);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package ch.sbb.simba.backend.mikado.solver.ip;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import com.google.ortools.sat.CpSolverSolutionCallback;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Hands every improving solution of a native CP-SAT stage to the solution listener
+ *  -> only the chaining variables are read from the solver, the chain map is decoded as in HelperMethods.getChainsFromSolution
+ */
+final class IncumbentCallback extends CpSolverSolutionCallback {
+
+    private final List<RotaziunSection> sections;
+    private final ChainList possibleChains;
+    private final Variables v;
+    private final IpSolverParams params;
+
+    IncumbentCallback(List<RotaziunSection> sections, ChainList possibleChains, Variables v, IpSolverParams params) {
+        this.sections = sections;
+        this.possibleChains = possibleChains;
+        this.v = v;
+        this.params = params;
+    }
+
+    @Override
+    public void onSolutionCallback() {
+        Map<RotaziunSection,RotaziunSection> sectionChainMap = new HashMap<>();
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            if (solutionIntegerValue(v.x[idx]) == 1) {
+                sectionChainMap.put(sections.get(possibleChains.getFrom(idx)), sections.get(possibleChains.getTo(idx)));
+            }
+        }
+        params.notifySolutionListener(objectiveValue(), bestObjectiveBound(), sectionChainMap);
+    }
+
+}
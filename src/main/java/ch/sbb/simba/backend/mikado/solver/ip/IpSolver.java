@@ -1,19 +1,44 @@
 package ch.sbb.simba.backend.mikado.solver.ip;
 
 import static ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams.getResultParams;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isOneBlockSolvedWithSubtourCuts;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSolvedAsLinearSumAssignment;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSolvedWithCbc;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSolvedWithNativeCpSat;
+import static ch.sbb.simba.backend.mikado.solver.utils.ParallelExecution.runAll;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAdjacency;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainComponents;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.chaining.SectionChainUtil;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.constraints.ConstrOneBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModelCpSat;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModelDecomposition;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModelLoader;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.SolveCancellation;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunStageMemory;
+import ch.sbb.simba.backend.mikado.solver.utils.ResidentMemory;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import com.google.ortools.Loader;
+import com.google.ortools.graph.LinearSumAssignment;
 import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverStatus;
 
 import lombok.extern.slf4j.Slf4j;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 @Slf4j
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
@@ -21,34 +46,439 @@ final public class IpSolver {
 
     public static final double INFINITY = Double.POSITIVE_INFINITY;
     public static final int DAY_IN_SECONDS = 24*60*60;
+    private static final int MAX_CP_SAT_TIME_PER_STAGE = 90; // [s], without time budget
 
     public static RotaziunResultParams solve(List<RotaziunSection> sections, IpSolverParams params) {
 
-        List<Pair<Integer,Integer>> possibleChains = SectionChainUtil.determinePossibleSectionChains(sections, params);
+        params.getCancellation().throwIfCancelled();
+        ResidentMemory.PeakSampler peakSampler = ResidentMemory.startPeakSampling();
+        params.getStageParams().setPeakSampler(peakSampler);
+        try {
+            return solveStage(sections, params);
+        } finally {
+            peakSampler.stop();
+        }
+    }
+
+    private static RotaziunResultParams solveStage(List<RotaziunSection> sections, IpSolverParams params) {
+
+        long stageDeadline = params.computeStageDeadline();
+        ChainList possibleChains = SectionChainUtil.determinePossibleSectionChains(sections, params);
+
+        ChainComponents components = ChainComponents.of(possibleChains, sections.size());
+        if (components.getNumOfComponents() > 1) {
+            possibleChains = components.filterChainsWithinComponents(possibleChains); // never chosen, see ChainComponents
+            if (params.getStageParams().isOnlyOneBlock() && !BlockPatching.isApplicable(params)) {
+                // one block is one cycle through all sections, the blocks of the components are not joined (see BlockPatching)
+                log.info("OneBlock is infeasible, the possible chains do not connect all sections");
+                return RotaziunResultParams.getInfeasibleResultParams();
+            }
+        }
+
+        NativeLibraries.load();
+
+        ChainAttributes attributes = ChainAttributes.of(possibleChains, sections, params);
+
+        IpModel model = new IpModel(params.isModelNames());
+        Variables v = new Variables(model, possibleChains, attributes, params);
+        Constraints.makeConstraints(model, possibleChains, attributes, components, v, sections, params);
+        Objective.makeObjective(model, possibleChains, attributes, v, params);
+
+        if (isSolvedAsLinearSumAssignment(params)) {
+            return solveAsLinearSumAssignment(sections, possibleChains, attributes, model, v, components, params, stageDeadline);
+        }
+        Hints.makeHints(model, possibleChains, v, sections, params); // the linear sum assignment takes no start solution
+        if (isOneBlockSolvedWithSubtourCuts(params)) {
+            return solveWithSubtourCuts(sections, possibleChains, attributes, model, v, components, params, stageDeadline);
+        }
+        if (components.getNumOfComponents() > 1) {
+            return solveByComponents(sections, possibleChains, attributes, model, v, components, params, stageDeadline);
+        }
+        if (isSolvedWithNativeCpSat(params)) {
+            return solveWithNativeCpSat(sections, possibleChains, attributes, model, v, params, stageDeadline);
+        }
+        return solveWithMpSolver(sections, possibleChains, attributes, model, v, params, stageDeadline);
+    }
+
+    private static RotaziunResultParams solveWithMpSolver(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, IpSolverParams params, long stageDeadline) {
+
+        MPSolver solver = selectSolverAndSetSolverParams(params, params.getNumOfWorkers(), stageDeadline);
+        try {
+            long preLoadTime = System.nanoTime();
+            IpModelLoader.load(model, solver, params.isBulkModelBuild());
+            log.info("ModelLoadTime: " + (System.nanoTime() - preLoadTime) / 1_000_000_000.0);
+
+            long preSolverTime = System.nanoTime();
+            final MPSolver.ResultStatus resultStatus = solveUnlessCancelled(solver, params);
+            long postSolverTime = System.nanoTime();
+            log.info("ComputeTime: " + (postSolverTime - preSolverTime) / 1_000_000_000.0);
+
+            double[] solution = IpModelLoader.getSolutionValues(model, solver);
+            RotaziunResultParams result = getResultParams(sections, possibleChains, attributes, v, solution, resultStatus, solver.objective().value(), params);
+            notifySolutionListener(solver, result, params);
+            recordStageMemory(params);
+            return result;
+        } finally {
+            releaseSolver(solver);
+        }
+    }
+
+    /*
+     * stage without oneBlock as linear sum assignment: left node = section, right node = its successor, one arc per possible chain with the
+     * objective coefficient of its x as cost; same optimum as the MIP, without branching
+     *  -> every component of the possible chains is an assignment of its own (see ChainComponents), solved in parallel if activated
+     *  -> a component with a section without any possible chain (in the highest position) would be missing in the assignment, it is infeasible
+     *  -> if the costs could overflow, the stage is solved as MIP
+     */
+    private static RotaziunResultParams solveAsLinearSumAssignment(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, ChainComponents components, IpSolverParams params, long stageDeadline) {
+
+        log.info("SolverType: LinearSumAssignment");
+        long preSolverTime = System.nanoTime();
+        ChainAdjacency adjacency = attributes.getAdjacency();
+        int[] successors = new int[sections.size()];
+        LinearSumAssignment.Status[] componentStatus = new LinearSumAssignment.Status[components.getNumOfComponents()];
+        List<Runnable> componentAssignments = new ArrayList<>();
+        for (int c = 0; c < components.getNumOfComponents(); c++) {
+            int component = c;
+            componentAssignments.add(() -> componentStatus[component] =
+                solveComponentAsLinearSumAssignment(component, components, possibleChains, adjacency, model, v, successors));
+        }
+        runAll(componentAssignments, params.isParallelPreprocessing(), params.getPreprocessingExecutor());
+        log.info("ComputeTime: " + (System.nanoTime() - preSolverTime) / 1_000_000_000.0);
+
+        if (Arrays.asList(componentStatus).contains(LinearSumAssignment.Status.POSSIBLE_OVERFLOW)) {
+            log.info("LinearSumAssignment: possible cost overflow, the stage is solved as MIP");
+            return solveWithMpSolver(sections, possibleChains, attributes, model, v, params, stageDeadline);
+        }
+
+        boolean isOptimal = Arrays.stream(componentStatus).allMatch(status -> status == LinearSumAssignment.Status.OPTIMAL);
+        double[] solution = new double[model.getNumOfVariables()];
+        double objectiveValue = 0;
+        if (isOptimal) {
+            for (int i = 0; i < sections.size(); i++) {
+                int x = v.x[attributes.getPosition(i, successors[i])];
+                solution[x] = 1;
+                objectiveValue += model.getObjectiveCoefficient(x);
+            }
+        }
+        RotaziunResultParams result = getResultParams(sections, possibleChains, attributes, v, solution,
+            isOptimal ? MPSolver.ResultStatus.OPTIMAL : MPSolver.ResultStatus.INFEASIBLE, objectiveValue, params);
+        if (isOptimal) {
+            params.notifySolutionListener(objectiveValue, objectiveValue, result.getSectionChainMap());
+        }
+        recordStageMemory(params);
+        return result;
+    }
+
+    // successors of the sections of one component; the nodes of the assignment are the positions of the sections in the component
+    private static LinearSumAssignment.Status solveComponentAsLinearSumAssignment(int component, ChainComponents components, ChainList possibleChains,
+        ChainAdjacency adjacency, IpModel model, Variables v, int[] successors) {
+
+        int[] sectionsOfComponent = components.getSectionsOfComponent(component);
+        LinearSumAssignment assignment = new LinearSumAssignment();
+        try {
+            for (int left = 0; left < sectionsOfComponent.length; left++) {
+                int leftNode = left;
+                adjacency.forEachOutgoingChain(sectionsOfComponent[left], idx -> assignment.addArcWithCost(leftNode,
+                    components.getPositionInComponent(possibleChains.getTo(idx)), (long) model.getObjectiveCoefficient(v.x[idx])));
+            }
+            if (assignment.getNumNodes() != sectionsOfComponent.length) {
+                return LinearSumAssignment.Status.INFEASIBLE;
+            }
+            LinearSumAssignment.Status status = assignment.solve();
+            if (status == LinearSumAssignment.Status.OPTIMAL) {
+                for (int left = 0; left < sectionsOfComponent.length; left++) {
+                    successors[sectionsOfComponent[left]] = sectionsOfComponent[assignment.getRightMate(left)];
+                }
+            }
+            return status;
+        } finally {
+            assignment.delete();
+        }
+    }
+
+    /*
+     * stage whose possible chains split into components (see ChainComponents): the model is split into independent sub-models (at most one
+     * per worker, see IpModelDecomposition), which are solved in parallel, each with its share of the workers
+     *  -> a constraint family that connects components (e.g. the siding capacity of a station) keeps them in the same sub-model
+     *  -> optimal if all sub-models are optimal, infeasible if one is infeasible, feasible if all have a solution; objective and bound are
+     *     the sums over the sub-models
+     *  -> oneBlock: every component is one block, the blocks are joined afterwards (see BlockPatching)
+     *  -> the solution listener gets the solution of the stage, not the improving solutions of the sub-models
+     */
+    private static RotaziunResultParams solveByComponents(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, ChainComponents components, IpSolverParams params, long stageDeadline) {
+
+        long preLoadTime = System.nanoTime();
+        IpModelDecomposition decomposition = IpModelDecomposition.of(model, Math.min(components.getNumOfComponents(), params.getNumOfWorkers()));
+        int numOfSubModels = decomposition.getNumOfSubModels();
+        int numOfWorkersPerSubModel = Math.max(1, params.getNumOfWorkers() / numOfSubModels);
+        log.info("SubModels: " + numOfSubModels);
+        log.info("ModelDecompositionTime: " + (System.nanoTime() - preLoadTime) / 1_000_000_000.0);
+
+        long preSolverTime = System.nanoTime();
+        SubModelSolution[] subModelSolutions = new SubModelSolution[numOfSubModels];
+        List<Runnable> subModelSolves = new ArrayList<>();
+        for (int m = 0; m < numOfSubModels; m++) {
+            int subModel = m;
+            subModelSolves.add(() -> subModelSolutions[subModel] =
+                solveSubModel(decomposition.getSubModel(subModel), numOfWorkersPerSubModel, params, stageDeadline));
+        }
+        runAll(subModelSolves, true, params.getPreprocessingExecutor());
+        log.info("ComputeTime: " + (System.nanoTime() - preSolverTime) / 1_000_000_000.0);
+
+        double[] solution = decomposition.mergeSolutionValues(Arrays.stream(subModelSolutions).map(SubModelSolution::values).toList());
+        MPSolver.ResultStatus resultStatus = mergeResultStatus(subModelSolutions);
+        double objectiveValue = Arrays.stream(subModelSolutions).mapToDouble(SubModelSolution::objectiveValue).sum();
+        double bestBound = Arrays.stream(subModelSolutions).mapToDouble(SubModelSolution::bestBound).sum();
+
+        boolean isSolved = resultStatus == MPSolver.ResultStatus.OPTIMAL || resultStatus == MPSolver.ResultStatus.FEASIBLE;
+        RotaziunResultParams result = isSolved && params.getStageParams().isOnlyOneBlock()
+            ? BlockPatching.joinBlocks(sections, possibleChains, attributes, v, solution, params)
+            : getResultParams(sections, possibleChains, attributes, v, solution, resultStatus, objectiveValue, params);
+        if (result.isSolved()) {
+            params.notifySolutionListener(result.getObjectiveValue(), bestBound, result.getSectionChainMap());
+        }
+        recordStageMemory(params);
+        return result;
+    }
+
+    private record SubModelSolution(double[] values, MPSolver.ResultStatus resultStatus, double objectiveValue, double bestBound) {
+    }
+
+    // same solver as for the whole stage, with the given number of workers
+    private static SubModelSolution solveSubModel(IpModel subModel, int numOfWorkers, IpSolverParams params, long stageDeadline) {
+
+        if (isSolvedWithNativeCpSat(params)) {
+            CpSolver solver = createCpSatSolverAndSetSolverParams(params, numOfWorkers, stageDeadline);
+            CpSolverStatus status = solveUnlessCancelled(solver, IpModelCpSat.toCpModel(subModel), null, params);
+            return new SubModelSolution(IpModelCpSat.getSolutionValues(subModel, solver), IpModelCpSat.toResultStatus(status),
+                solver.objectiveValue(), solver.bestObjectiveBound());
+        }
+        MPSolver solver = selectSolverAndSetSolverParams(params, numOfWorkers, stageDeadline);
+        try {
+            IpModelLoader.load(subModel, solver, params.isBulkModelBuild());
+            MPSolver.ResultStatus resultStatus = solveUnlessCancelled(solver, params);
+            return new SubModelSolution(IpModelLoader.getSolutionValues(subModel, solver), resultStatus, solver.objective().value(),
+                solver.objective().bestBound());
+        } finally {
+            solver.delete();
+        }
+    }
+
+    // optimal if all are optimal, infeasible if one is infeasible, feasible if all are optimal or feasible, otherwise the first other status
+    private static MPSolver.ResultStatus mergeResultStatus(SubModelSolution[] subModelSolutions) {
+        List<MPSolver.ResultStatus> statuses = Arrays.stream(subModelSolutions).map(SubModelSolution::resultStatus).toList();
+        if (statuses.stream().allMatch(status -> status == MPSolver.ResultStatus.OPTIMAL)) {
+            return MPSolver.ResultStatus.OPTIMAL;
+        }
+        if (statuses.contains(MPSolver.ResultStatus.INFEASIBLE)) {
+            return MPSolver.ResultStatus.INFEASIBLE;
+        }
+        return statuses.stream().filter(status -> status != MPSolver.ResultStatus.OPTIMAL).findFirst().orElseThrow();
+    }
 
-        Loader.loadNativeLibraries();
-        MPSolver solver = selectSolverAndSetSolverParams(params);
+    /*
+     * oneBlock by subtour cuts: the model without oneBlock rows is solved, every block of the solution is cut off and the model is solved
+     * again, until the solution consists of one block (or no solution is found); only the new cuts are added to the loaded solver
+     * if the time of the stage is up before the solution is one block, the stage has no solution
+     * if the possible chains split into components (see ChainComponents), only blocks smaller than their component are cut off, until every
+     * component is one block; the blocks are joined afterwards (see BlockPatching)
+     */
+    private static RotaziunResultParams solveWithSubtourCuts(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, ChainComponents components, IpSolverParams params, long stageDeadline) {
 
-        Variables v = new Variables(solver, possibleChains, sections, params);
-        Constraints.makeConstraints(solver, possibleChains, v, sections, params);
-        Objective.makeObjective(solver, possibleChains, v, sections, params);
+        MPSolver solver = selectSolverAndSetSolverParams(params, params.getNumOfWorkers(), stageDeadline);
+        try {
+            return solveSubtourCutRounds(sections, possibleChains, attributes, model, v, components, params, stageDeadline, solver);
+        } finally {
+            releaseSolver(solver);
+        }
+    }
+
+    private static RotaziunResultParams solveSubtourCutRounds(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, ChainComponents components, IpSolverParams params, long stageDeadline, MPSolver solver) {
+
+        ChainAdjacency adjacency = attributes.getAdjacency();
+        ConstraintBlock subtourCuts = model.newConstraintBlock();
+
+        long preLoadTime = System.nanoTime();
+        IpModelLoader.load(model, solver, params.isBulkModelBuild());
+        log.info("ModelLoadTime: " + (System.nanoTime() - preLoadTime) / 1_000_000_000.0);
+
+        long preSolverTime = System.nanoTime();
+        MPSolver.ResultStatus resultStatus = solveUnlessCancelled(solver, params);
+        double[] solution = IpModelLoader.getSolutionValues(model, solver);
+        int numOfRounds = 1;
+
+        while (resultStatus == MPSolver.ResultStatus.OPTIMAL || resultStatus == MPSolver.ResultStatus.FEASIBLE) {
+            List<int[]> blocks = ConstrOneBlock.getBlocksFromSolution(possibleChains, v, solution, sections.size());
+            if (blocks.size() <= components.getNumOfComponents()) {
+                break;
+            }
+            if (stageDeadline != IpSolverParams.NO_DEADLINE && System.nanoTime() >= stageDeadline) {
+                log.info("SubtourCuts: time is up with " + blocks.size() + " blocks");
+                resultStatus = MPSolver.ResultStatus.NOT_SOLVED;
+                break;
+            }
+            List<int[]> blocksSmallerThanComponent = blocks.stream()
+                .filter(block -> block.length < components.getSectionsOfComponent(components.getComponent(block[0])).length).toList();
+            int firstRow = subtourCuts.getNumOfRows();
+            ConstrOneBlock.addSubtourCuts(subtourCuts, blocksSmallerThanComponent, numOfRounds, possibleChains, adjacency, v);
+            IpModelLoader.loadRows(subtourCuts, firstRow, solver);
+
+            if (stageDeadline != IpSolverParams.NO_DEADLINE) {
+                solver.setTimeLimit(getTimeLimitInMillis(stageDeadline));
+            }
+            resultStatus = solveUnlessCancelled(solver, params);
+            solution = IpModelLoader.getSolutionValues(model, solver);
+            numOfRounds++;
+        }
+        long postSolverTime = System.nanoTime();
+        log.info("ComputeTime: " + (postSolverTime - preSolverTime) / 1_000_000_000.0);
+        log.info("SubtourRounds: " + numOfRounds);
+        log.info("SubtourCuts: " + subtourCuts.getNumOfRows());
+
+        boolean isSolved = resultStatus == MPSolver.ResultStatus.OPTIMAL || resultStatus == MPSolver.ResultStatus.FEASIBLE;
+        RotaziunResultParams result = isSolved && components.getNumOfComponents() > 1
+            ? BlockPatching.joinBlocks(sections, possibleChains, attributes, v, solution, params)
+            : getResultParams(sections, possibleChains, attributes, v, solution, resultStatus, solver.objective().value(), params);
+        result.setNumOfSubtourRounds(numOfRounds);
+        result.setNumOfSubtourCuts(subtourCuts.getNumOfRows());
+        // only the final solution, the solutions of the rounds before consist of several blocks
+        if (result.isSolved()) {
+            params.notifySolutionListener(result.getObjectiveValue(), solver.objective().bestBound(), result.getSectionChainMap());
+        }
+        recordStageMemory(params);
+        return result;
+    }
+
+    private static RotaziunResultParams solveWithNativeCpSat(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes,
+        IpModel model, Variables v, IpSolverParams params, long stageDeadline) {
+
+        CpSolver solver = createCpSatSolverAndSetSolverParams(params, params.getNumOfWorkers(), stageDeadline);
+
+        long preLoadTime = System.nanoTime();
+        CpModel cpModel = IpModelCpSat.toCpModel(model);
+        log.info("ModelLoadTime: " + (System.nanoTime() - preLoadTime) / 1_000_000_000.0);
 
         long preSolverTime = System.nanoTime();
-        final MPSolver.ResultStatus resultStatus = solver.solve();
+        // every improving solution goes to the solution listener; the native part of the callback is released right away
+        IncumbentCallback callback = params.getSolutionListener() == null ? null : new IncumbentCallback(sections, possibleChains, v, params);
+        final CpSolverStatus status;
+        try {
+            status = solveUnlessCancelled(solver, cpModel, callback, params);
+        } finally {
+            if (callback != null) {
+                callback.delete();
+            }
+        }
         long postSolverTime = System.nanoTime();
         log.info("ComputeTime: " + (postSolverTime - preSolverTime) / 1_000_000_000.0);
 
-        return getResultParams(sections, possibleChains, v, resultStatus, solver, params);
+        double[] solution = IpModelCpSat.getSolutionValues(model, solver);
+        RotaziunResultParams result = getResultParams(sections, possibleChains, attributes, v, solution, IpModelCpSat.toResultStatus(status),
+            solver.objectiveValue(), params);
+        recordStageMemory(params); // the CpSolver drops its native solve wrapper after the solve, it is freed by its finalizer
+        return result;
+    }
+
+    // resident memory with the model and the solver of the stage still in memory; the peak is the one since the start of the stage
+    private static void recordStageMemory(IpSolverParams params) {
+        ResidentMemory.PeakSampler peakSampler = params.getStageParams().getPeakSampler();
+        RotaziunStageMemory stageMemory = RotaziunStageMemory.builder()
+            .stage(params.getStageParams().getStage())
+            .precisionLevel(params.getPrecisionLevel())
+            .residentMemory(peakSampler.sample())
+            .peakResidentMemory(peakSampler.getPeakResidentMemory())
+            .build();
+        params.getStageMemory().add(stageMemory);
+        log.info("ResidentMemory: " + stageMemory.getResidentMemory());
+        log.info("PeakResidentMemory: " + stageMemory.getPeakResidentMemory());
+    }
+
+    // the native memory of the solver is released right away instead of whenever the finalizer happens to run
+    private static void releaseSolver(MPSolver solver) {
+        solver.delete();
+        log.info("ResidentMemoryAfterRelease: " + ResidentMemory.getResidentMemory());
+    }
+
+    // a cancelled solve interrupts the running solver; CBC does not support interrupts and runs until it is done or its time is up
+    private static MPSolver.ResultStatus solveUnlessCancelled(MPSolver solver, IpSolverParams params) {
+        SolveCancellation cancellation = params.getCancellation();
+        BooleanSupplier stopSolver = () -> {
+            if (!solver.interruptSolve()) {
+                log.info("Solver does not support interrupts, the stage is solved until its end");
+                return false;
+            }
+            return true;
+        };
+        cancellation.startSolver(stopSolver);
+        try {
+            return solver.solve();
+        } finally {
+            cancellation.endSolver(stopSolver);
+        }
+    }
+
+    // callback: improving solutions, null without
+    private static CpSolverStatus solveUnlessCancelled(CpSolver solver, CpModel cpModel, IncumbentCallback callback, IpSolverParams params) {
+        SolveCancellation cancellation = params.getCancellation();
+        BooleanSupplier stopSolver = () -> {
+            solver.stopSearch();
+            return true;
+        };
+        cancellation.startSolver(stopSolver);
+        try {
+            return callback == null ? solver.solve(cpModel) : solver.solve(cpModel, callback);
+        } finally {
+            cancellation.endSolver(stopSolver);
+        }
+    }
+
+    // the linear solver wrapper has no solution callbacks, the solution of the stage is reported once it is solved
+    private static void notifySolutionListener(MPSolver solver, RotaziunResultParams result, IpSolverParams params) {
+        if (result.isSolved()) {
+            params.notifySolutionListener(solver.objective().value(), solver.objective().bestBound(), result.getSectionChainMap());
+        }
+    }
+
+    // same parameters as for the CP-SAT solver of the linear solver wrapper
+    private static CpSolver createCpSatSolverAndSetSolverParams(IpSolverParams params, int numOfWorkers, long stageDeadline) {
+
+        log.info("SolverType: CP-SAT (native)");
+        CpSolver solver = new CpSolver();
+
+        // to increase performance
+        if(!params.getStageParams().isWithMaintenance()){
+            // only for non-Maintenance stages
+            solver.getParameters().setMaxPresolveIterations(1);
+            log.info("LimitPreSolveIterationsToOne: " + true);
+        }
+        // force CP-SAT solver to parallelize
+        solver.getParameters().setNumWorkers(numOfWorkers).setMaxTimeInSeconds(getCpSatTimeLimitInSeconds(stageDeadline));
+        log.info("NumOfWorkers: " + numOfWorkers);
+        log.info("TimeLimit: " + getCpSatTimeLimitInSeconds(stageDeadline));
+
+        return solver;
+
     }
 
-    private static MPSolver selectSolverAndSetSolverParams(IpSolverParams params) {
+    private static MPSolver selectSolverAndSetSolverParams(IpSolverParams params, int numOfWorkers, long stageDeadline) {
 
         MPSolver solver;
 
-        if(params.getStageParams().getStage() == 1 && !params.getStageParams().isOnlyOneBlock()) {
+        if(isSolvedWithCbc(params)) {
 
             log.info("SolverType: CBC");
             solver = MPSolver.createSolver("CBC");
+            if (stageDeadline != IpSolverParams.NO_DEADLINE) {
+                // CBC returns its best solution when the time is up
+                solver.setTimeLimit(getTimeLimitInMillis(stageDeadline));
+                log.info("TimeLimit: " + getTimeLimitInMillis(stageDeadline) / 1000.0);
+            }
 
         } else {
 
@@ -62,9 +492,11 @@ final public class IpSolver {
                 log.info("LimitPreSolveIterationsToOne: " + true);
             }
             // force CP-SAT solver to parallelize
-            String numOfWorkersString = String.format("num_workers: %d; max_time_in_seconds: 90", params.getNumOfWorkers());
+            String numOfWorkersString = String.format(Locale.ROOT, "num_workers: %d; max_time_in_seconds: %.3f", numOfWorkers,
+                getCpSatTimeLimitInSeconds(stageDeadline));
             solver.setSolverSpecificParametersAsString(numOfWorkersString);
-            log.info("NumOfWorkers: " + params.getNumOfWorkers());
+            log.info("NumOfWorkers: " + numOfWorkers);
+            log.info("TimeLimit: " + getCpSatTimeLimitInSeconds(stageDeadline));
 
         }
 
@@ -72,4 +504,33 @@ final public class IpSolver {
 
     }
 
-}
\ No newline at end of file
+    // CP-SAT returns its best solution when the time is up; without time budget, every CP-SAT stage gets 90 s
+    private static double getCpSatTimeLimitInSeconds(long stageDeadline) {
+        if (stageDeadline == IpSolverParams.NO_DEADLINE) {
+            return MAX_CP_SAT_TIME_PER_STAGE;
+        }
+        return getTimeLimitInMillis(stageDeadline) / 1000.0;
+    }
+
+    // at least 1 ms, a time limit of 0 means no limit for the MPSolver
+    private static long getTimeLimitInMillis(long stageDeadline) {
+        return Math.max(1, (stageDeadline - System.nanoTime()) / 1_000_000);
+    }
+
+    // the native libraries are loaded once per JVM, by the initialization of this class with the first stage
+    private static final class NativeLibraries {
+
+        static {
+            Loader.loadNativeLibraries();
+        }
+
+        private NativeLibraries() {
+        }
+
+        private static void load() {
+            // loaded by the class initialization
+        }
+
+    }
+
+}
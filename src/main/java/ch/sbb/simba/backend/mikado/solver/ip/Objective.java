@@ -2,69 +2,59 @@ package ch.sbb.simba.backend.mikado.solver.ip;
 
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
 import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getCost;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.getEmptyTripDuration;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isDifferentDebicodes;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isInSidingBetweenJournyes;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isStammChange;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import com.google.ortools.linearsolver.MPObjective;
-import com.google.ortools.linearsolver.MPSolver;
-import java.util.List;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
 
 public final class Objective {
 
     private Objective() {
     }
 
-    private static int minTurnTime;
+    static void makeObjective(IpModel model, ChainList possibleChains, ChainAttributes attributes, Variables v, IpSolverParams params) {
 
-    static void makeObjective(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
-
-        minTurnTime = params.getMinTurnTime();
-        MPObjective objective = solver.objective();
-        objective.setMinimization();
-
-        for(Pair<Integer,Integer> chain : possibleChains){
-            RotaziunSection fromSection = sections.get(chain.getFirst());
-            RotaziunSection toSection = sections.get(chain.getSecond());
-            int emptyTripDuration = getEmptyTripDuration(fromSection, toSection, params.getDurationMap());
-            objective.setCoefficient(v.xMap.get(getKey(chain)), getCost(emptyTripDuration) +
-                    params.getCostPerStammChange() * isStammChange(fromSection, toSection, params) +
-                    params.getVehicleCostPerDay() * getNumberOfBlockDays(fromSection, toSection, emptyTripDuration) +
-                    params.getCostPerDebicodeChange() * isDifferentDebicodes(fromSection, toSection, params) +
-                    params.getCostPerSiding() * isInSidingBetweenJournyes(fromSection, toSection, params));
+        // minimized, see IpModel
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            model.setObjectiveCoefficient(v.x[idx], getChainCost(attributes, idx, params));
         }
 
         if(params.getStageParams().isWithCouplingDecoupling()){
             for(int idx = 0; idx < v.decoup.length; idx++){
-                objective.setCoefficient(v.decoup[idx], params.getCostForCouplingDecoupling());
+                model.setObjectiveCoefficient(v.decoup[idx], params.getCostForCouplingDecoupling());
             }
         }
 
     }
 
-    public static int getNumberOfBlockDays(RotaziunSection fromSection, RotaziunSection toSection, int emptyTripDuration) {
+    // objective coefficient of x_i,j
+    static int getChainCost(ChainAttributes attributes, int idx, IpSolverParams params) {
+        return getCost(attributes.getEmptyTripDuration(idx)) +
+            params.getCostPerStammChange() * attributes.getStammChange(idx) +
+            params.getVehicleCostPerDay() * attributes.getBlockDays(idx) +
+            params.getCostPerDebicodeChange() * attributes.getDebicodeChange(idx) +
+            params.getCostPerSiding() * attributes.getSiding(idx);
+    }
 
-        Pair<Integer,Integer> fromSectionTimes = new Pair<>(fromSection.getDeparture(), fromSection.getArrival());
-        Pair<Integer,Integer> toSectionTimes = new Pair<>(toSection.getDeparture(), toSection.getArrival());
+    public static int getNumberOfBlockDays(RotaziunSection fromSection, RotaziunSection toSection, int emptyTripDuration, int minTurnTime) {
 
         if(emptyTripDuration == 0){
-            return startsNewBlockDay(fromSectionTimes, toSectionTimes);
+            return startsNewBlockDay(fromSection.getDeparture(), fromSection.getArrival(), toSection.getDeparture(), minTurnTime);
         }
 
-        Pair<Integer,Integer> emptyTripTimes = new Pair<>((fromSection.getArrival()+minTurnTime) % DAY_IN_SECONDS, (fromSection.getArrival()+minTurnTime+emptyTripDuration) % DAY_IN_SECONDS);
+        int emptyTripStart = (fromSection.getArrival()+minTurnTime) % DAY_IN_SECONDS;
+        int emptyTripEnd = (fromSection.getArrival()+minTurnTime+emptyTripDuration) % DAY_IN_SECONDS;
 
         // some section chain require two new block days
-        return startsNewBlockDay(fromSectionTimes, emptyTripTimes) + startsNewBlockDay(emptyTripTimes, toSectionTimes);
+        return startsNewBlockDay(fromSection.getDeparture(), fromSection.getArrival(), emptyTripStart, minTurnTime) +
+            startsNewBlockDay(emptyTripStart, emptyTripEnd, toSection.getDeparture(), minTurnTime);
     }
 
-    private static int startsNewBlockDay(Pair<Integer,Integer> fromSection, Pair<Integer,Integer> toSection) {
-        assert(fromSection.getSecond() <= DAY_IN_SECONDS);
-        return (fromSection.getSecond() < fromSection.getFirst() || toSection.getFirst() - fromSection.getSecond() - minTurnTime < 0) ? 1 : 0;
+    private static int startsNewBlockDay(int fromStart, int fromEnd, int toStart, int minTurnTime) {
+        assert(fromEnd <= DAY_IN_SECONDS);
+        return (fromEnd < fromStart || toStart - fromEnd - minTurnTime < 0) ? 1 : 0;
     }
 
-}
\ No newline at end of file
+}
@@ -1,123 +1,126 @@
 package ch.sbb.simba.backend.mikado.solver.ip;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.hasChainAnEmptyTrip;
 import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.areCouplingVariablesNeeded;
-import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSidingVariableNeeded;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.arePlacementVariablesNeeded;
 
-import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import com.google.ortools.linearsolver.MPSolver;
-import com.google.ortools.linearsolver.MPVariable;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import java.util.Arrays;
 
+// variable indices of the IpModel
 public class Variables {
 
-    // section chaining
-    public Map<Integer,MPVariable> xMap;
+    // section chaining (chain position -> x_i,j)
+    public int[] x;
 
     // oneBlock
-    public MPVariable[] u;
+    public int[] u;
 
     // coupling-decoupling
-    public MPVariable[] decoup;
-    public MPVariable[] h1decoup;
-    public MPVariable[] h2decoup;
-    public MPVariable[] coup;
-    public MPVariable[] h1coup;
-    public MPVariable[] h2coup;
+    public int[] decoup;
+    public int[] h1decoup;
+    public int[] h2decoup;
+    public int[] coup;
+    public int[] h1coup;
+    public int[] h2coup;
 
-    // sidings
-    public Map<Integer,Pair<MPVariable,MPVariable>> sMap;
+    // sidings (chain position -> s_first / s_second; IpModel.NO_VARIABLE if the chain needs no siding variable)
+    public int[] sFirst;
+    public int[] sSecond;
 
-    public Variables(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, List<RotaziunSection> sections, IpSolverParams params) {
+    public Variables(IpModel model, ChainList possibleChains, ChainAttributes attributes, IpSolverParams params) {
 
         // section chaining: x_i,j
-        makeChainingVariables(solver, possibleChains);
+        makeChainingVariables(model, possibleChains);
 
-        // oneBlock: u_i
-        if (params.getStageParams().isOnlyOneBlock()) {
-            makeNummerationVariables(solver);
+        // oneBlock: u_i (as circuit or with subtour cuts, the placements are only needed for maintenance)
+        if (arePlacementVariablesNeeded(params)) {
+            makeNummerationVariables(model, params.getNumOfSections());
         }
 
         // coupling-decoupling
         if (params.getStageParams().isWithCouplingDecoupling()){
-            makeCouplingDecouplingVariables(solver, params);
+            makeCouplingDecouplingVariables(model, params);
         }
 
         // sidings
         if(params.getStageParams().isWithSidings()){
-            makeSidingVariables(solver, params, possibleChains, sections);
+            makeSidingVariables(model, possibleChains, attributes);
         }
 
     }
 
+    // decoup, h1decoup, h2decoup, coup, h1coup, h2coup (null if not part of the stage)
+    public int[][] getCouplingDecouplingVariables() {
+        return new int[][]{decoup, h1decoup, h2decoup, coup, h1coup, h2coup};
+    }
+
     // x_i,j
-    private void makeChainingVariables(MPSolver solver, List<Pair<Integer, Integer>> possibleChains) {
-        this.xMap = new HashMap<>();
-        for(Pair<Integer,Integer> chain : possibleChains){
-            this.xMap.put(getKey(new Pair<>(chain.getFirst(), chain.getSecond())), solver.makeIntVar(0, 1, "x" + chain.getFirst() + "_" + chain.getSecond()));
+    private void makeChainingVariables(IpModel model, ChainList possibleChains) {
+        this.x = new int[possibleChains.size()];
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            int i = possibleChains.getFrom(idx);
+            int j = possibleChains.getTo(idx);
+            this.x[idx] = model.makeIntVar(0, 1, "x", i, j);
         }
     }
 
     // u_i
-    private void makeNummerationVariables(MPSolver solver) {
-        this.u = new MPVariable[numOfSections];
+    private void makeNummerationVariables(IpModel model, int numOfSections) {
+        this.u = new int[numOfSections];
         for (int i = 0; i < numOfSections; i++) {
-            this.u[i] = solver.makeIntVar(1, numOfSections, "u" + i);
+            this.u[i] = model.makeIntVar(1, numOfSections, "u", i);
         }
     }
 
-    private void makeCouplingDecouplingVariables(MPSolver solver, IpSolverParams params) {
+    private void makeCouplingDecouplingVariables(IpModel model, IpSolverParams params) {
         // Decoupling
         // decoup_i, h1decop_i, h2decop_i
         int numOfEnforcements = params.getEnforcementStammPairMap().size();
-        this.decoup = new MPVariable[numOfEnforcements];
-        this.h1decoup = new MPVariable[numOfEnforcements];
-        this.h2decoup = new MPVariable[numOfEnforcements];
+        this.decoup = new int[numOfEnforcements];
+        this.h1decoup = new int[numOfEnforcements];
+        this.h2decoup = new int[numOfEnforcements];
         for (int i = 0; i < numOfEnforcements; i++) {
-            this.decoup[i] = solver.makeIntVar(0, 1, "decoup" + i);
-            this.h1decoup[i] = solver.makeIntVar(0, 1, "h1decoup" + i);
-            this.h2decoup[i] = solver.makeIntVar(0, 1, "h2decoup" + i);
+            this.decoup[i] = model.makeIntVar(0, 1, "decoup", i);
+            this.h1decoup[i] = model.makeIntVar(0, 1, "h1decoup", i);
+            this.h2decoup[i] = model.makeIntVar(0, 1, "h2decoup", i);
         }
 
         // Coupling
         // coup_i, h1coup_i, h2coup_i
         if(areCouplingVariablesNeeded(params)){
-            this.coup = new MPVariable[numOfEnforcements];
-            this.h1coup = new MPVariable[numOfEnforcements];
-            this.h2coup = new MPVariable[numOfEnforcements];
+            this.coup = new int[numOfEnforcements];
+            this.h1coup = new int[numOfEnforcements];
+            this.h2coup = new int[numOfEnforcements];
             for (int i = 0; i < numOfEnforcements; i++) {
-                this.coup[i] = solver.makeIntVar(0, 1, "coup" + i);
-                this.h1coup[i] = solver.makeIntVar(0, 1, "h1coup" + i);
-                this.h2coup[i] = solver.makeIntVar(0, 1, "h2coup" + i);
+                this.coup[i] = model.makeIntVar(0, 1, "coup", i);
+                this.h1coup[i] = model.makeIntVar(0, 1, "h1coup", i);
+                this.h2coup[i] = model.makeIntVar(0, 1, "h2coup", i);
             }
         }
     }
 
     // s_first: siding before chain
     // s_second: siding after chain
-    private void makeSidingVariables(MPSolver solver, IpSolverParams params, List<Pair<Integer, Integer>> possibleChains, List<RotaziunSection> sections) {
-        this.sMap = new HashMap<>();
-        for(Pair<Integer,Integer> chain : possibleChains){
+    private void makeSidingVariables(IpModel model, ChainList possibleChains, ChainAttributes attributes) {
+        this.sFirst = new int[possibleChains.size()];
+        this.sSecond = new int[possibleChains.size()];
+        Arrays.fill(this.sFirst, IpModel.NO_VARIABLE);
+        Arrays.fill(this.sSecond, IpModel.NO_VARIABLE);
+        for(int idx = 0; idx < possibleChains.size(); idx++){
             /*
              * Only initialize siding variable if:
              * - a chain contains a siding
              * - a chain has a siding in a capacity-restricted station
              */
-            if(isSidingVariableNeeded(params, sections, chain)) {
-                int i = chain.getFirst();
-                int j = chain.getSecond();
-                if(hasChainAnEmptyTrip(sections, chain)){
-                    this.sMap.put(getKey(new Pair<>(i, j)), new Pair<>(solver.makeIntVar(0, 1, "sb_"+i+"_"+j), solver.makeIntVar(0, 1, "sa_"+i+"_"+j)));
-                } else {
-                    // no empty trip: second siding variable is redundant, can be fixed to 0
-                    this.sMap.put(getKey(new Pair<>(i, j)), new Pair<>(solver.makeIntVar(0, 1, "sb_"+i+"_"+j), solver.makeIntVar(0, 0, "sa_"+i+"_"+j)));
-                }
+            if(attributes.isSidingVariableNeeded(idx)) {
+                int i = possibleChains.getFrom(idx);
+                int j = possibleChains.getTo(idx);
+                this.sFirst[idx] = model.makeIntVar(0, 1, "sb_", i, j);
+                // no empty trip: second siding variable is redundant, can be fixed to 0
+                this.sSecond[idx] = model.makeIntVar(0, attributes.hasEmptyTrip(idx) ? 1 : 0, "sa_", i, j);
             }
         }
     }
@@ -3,6 +3,7 @@ package ch.sbb.simba.backend.mikado.solver.ip.chaining;
 import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainingOptionsPercentile.computeChainOptionsPercentiles;
 import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams.setChainingParams;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainingType;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.FindPossibleChainsMaintenanceStage;
@@ -13,7 +14,6 @@ import ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 @Slf4j
 public final class SectionChainUtil {
@@ -34,11 +34,11 @@ public final class SectionChainUtil {
           - prohibitedEmptyTrips (by User-Input)
      */
 
-    public static List<Pair<Integer,Integer>> determinePossibleSectionChains(List<RotaziunSection> sections, IpSolverParams params){
+    public static ChainList determinePossibleSectionChains(List<RotaziunSection> sections, IpSolverParams params){
 
         ChainingParams chainingParams = setChainingParams(params);
 
-        List<Pair<Integer,Integer>> possibleChains;
+        ChainList possibleChains;
         if(params.getStageParams().isWithMaintenance()){
             possibleChains = FindPossibleChainsMaintenanceStage.getChains(sections, params, chainingParams);
         } else {
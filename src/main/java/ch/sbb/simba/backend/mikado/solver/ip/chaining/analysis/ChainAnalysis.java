@@ -9,10 +9,8 @@ import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.Chaining
 import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
-import ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -26,7 +24,11 @@ public final class ChainAnalysis {
     // stilllagerzeit zwischen 2 Fahrten ohne minTurnTime
     public static int getIdleTimeWithoutMinTurnTime(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params) {
         int emptyTripDuration = getEmptyTripDuration(fromSection, toSection, params.getDurationMap());
-        int arrivalTimeAfterEmptyTrip = (fromSection.getArrival() + params.getMinTurnTime() + emptyTripDuration) % DAY_IN_SECONDS;
+        return getIdleTimeWithoutMinTurnTime(fromSection, toSection, emptyTripDuration, params.getMinTurnTime());
+    }
+
+    public static int getIdleTimeWithoutMinTurnTime(RotaziunSection fromSection, RotaziunSection toSection, int emptyTripDuration, int minTurnTime) {
+        int arrivalTimeAfterEmptyTrip = (fromSection.getArrival() + minTurnTime + emptyTripDuration) % DAY_IN_SECONDS;
         int idleTime =  mapToPositiveTimeDifference(toSection.getDeparture() - arrivalTimeAfterEmptyTrip) + emptyTripDuration;
         assert idleTime > 0;
         return idleTime;
@@ -60,44 +62,36 @@ public final class ChainAnalysis {
     }
 
     static boolean isChainAllowed(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params, Set<RotaziunSection> sectionsWithIncomingFixedChain) {
-        return !sectionsWithIncomingFixedChain.contains(toSection) &&
-            !isChainInProhibitedSidingSite(fromSection, toSection, params) &&
-            !chainContainsProhibitedEmptyTrip(fromSection, toSection, params);
+        return !sectionsWithIncomingFixedChain.contains(toSection) && isChainAllowed(fromSection, toSection, params);
     }
 
-    public static List<RotaziunSection> getAllowedToSections(RotaziunSection fromSection, List<RotaziunSection> toSections, IpSolverParams params, ChainingParams chainingParams) {
-        return toSections.stream().filter(toSection -> isChainAllowed(fromSection,toSection,params,chainingParams.getSectionsWithIncomingFixedChain())).toList();
+    // without the user-defined prohibited section chains
+    public static boolean isChainAllowed(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params) {
+        return !isChainInProhibitedSidingSite(fromSection, toSection, params) && !chainContainsProhibitedEmptyTrip(fromSection, toSection, params);
     }
 
-    public static List<RotaziunSection> getAllowedFromSections(List<RotaziunSection> fromSections, RotaziunSection toSection, IpSolverParams params, ChainingParams chainingParams) {
-        return fromSections.stream().filter(fromSection ->
-            !chainingParams.getSectionsWithOutgoingFixedChain().contains(fromSection) &&
-            isChainAllowed(fromSection,toSection,params,chainingParams.getSectionsWithIncomingFixedChain())).toList();
+    public static int isStammChange(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params){
+        if(isMaintenanceSection(fromSection)||isMaintenanceSection(toSection)){
+            return 0;
+        }
+        return isStammChange(fromSection, toSection, getIdleTimeWithoutMinTurnTime(fromSection,toSection,params));
     }
 
-    public static int isStammChange(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params){
+    public static int isStammChange(RotaziunSection fromSection, RotaziunSection toSection, int idleTimeWithoutMinTurnTime){
         if(isMaintenanceSection(fromSection)||isMaintenanceSection(toSection)){
             return 0;
         }
-        if(getIdleTimeWithoutMinTurnTime(fromSection,toSection,params) > IpSolverParams.STAMM_CHANGE_PENALTY_FREE_PERIOD && toSection.getDeparture() < fromSection.getArrival()){
+        if(idleTimeWithoutMinTurnTime > IpSolverParams.STAMM_CHANGE_PENALTY_FREE_PERIOD && toSection.getDeparture() < fromSection.getArrival()){
             return 0;
         }
         return fromSection.getIsStamm() == toSection.getIsStamm() ? 0 : 1;
     }
 
-    public static int isDifferentDebicodes(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params){
-        if(isMaintenanceSection(fromSection)||isMaintenanceSection(toSection)){
+    public static int isDifferentDebicodes(int fromSectionIdx, int toSectionIdx, List<RotaziunSection> sections, IpSolverParams params){
+        if(isMaintenanceSection(sections.get(fromSectionIdx))||isMaintenanceSection(sections.get(toSectionIdx))){
             return 0;
         }
-        return new HashSet<>(fromSection.getDebicodes()).equals(new HashSet<>(toSection.getDebicodes())) ? 0 : 1;
-    }
-
-    public static int isInSidingBetweenJournyes(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params){
-        return isSidingHappening(fromSection,toSection,params) ? 1 : 0;
-    }
-
-    public static boolean hasChainAnEmptyTrip(List<RotaziunSection> sections, Pair<Integer, Integer> p) {
-        return !Objects.equals(sections.get(p.getFirst()).getToStation().getId(), sections.get(p.getSecond()).getFromStation().getId());
+        return params.getDebicodeIds()[fromSectionIdx] == params.getDebicodeIds()[toSectionIdx] ? 0 : 1;
     }
 
     public static boolean hasChainEmptyTrip(Pair<RotaziunSection, RotaziunSection> chain) {
@@ -117,8 +111,7 @@ public final class ChainAnalysis {
     }
 
     private static boolean chainContainsProhibitedEmptyTrip(RotaziunSection fromSection, RotaziunSection toSection, IpSolverParams params) {
-        return params.getProhibitedEmptyTripsMap().containsKey(fromSection.getToStation().getId()) &&
-            params.getProhibitedEmptyTripsMap().get(fromSection.getToStation().getId()).contains(toSection.getFromStation().getId());
+        return params.getDurationMap().isEmptyTripProhibited(fromSection.getToStation().getId(), toSection.getFromStation().getId());
     }
 
     public static boolean isChainEqual(Pair<RotaziunSection, RotaziunSection> chain1, Pair<RotaziunSection, RotaziunSection> chain2) {
@@ -1,6 +1,5 @@
 package ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
 import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams.RATIO_ENFORCEMENT_STAMM_CHAINOPTIONS_MAX;
 import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams.RATIO_EVENING_DAY_CHAINOPTIONS_MAX;
 
@@ -22,7 +21,7 @@ public final class ChainingOptionsPercentile {
     // Percentile is between 0 and 100
     public static EnumMap<ChainingType, Integer> computeChainOptionsPercentiles(List<RotaziunSection> sections, ChainingParams chainingParams) {
 
-        if(numOfSections - chainingParams.getFixedChainMap().size() < chainingParams.getSectionAmountLimit()){
+        if(sections.size() - chainingParams.getFixedChainMap().size() < chainingParams.getSectionAmountLimit()){
             // all chaining options are allowed -> return 100th percentile for all catergories
             return getFullPercentilesForUnrestrictedChaining();
         }
@@ -83,7 +82,7 @@ public final class ChainingOptionsPercentile {
     }
 
     private static List<RotaziunSection> getUnchainedFromSections(List<RotaziunSection> sections, ChainingParams chainingParams) {
-        return IntStream.range(0, numOfSections).filter(i -> !chainingParams.getSectionsWithOutgoingFixedChain().contains(sections.get(i))).mapToObj(sections::get).toList();
+        return IntStream.range(0, sections.size()).filter(i -> !chainingParams.getSectionsWithOutgoingFixedChain().contains(sections.get(i))).mapToObj(sections::get).toList();
     }
 
     private static int getEnforcementsCount(List<RotaziunSection> unchainedFromSections) {
@@ -1,15 +1,15 @@
 package ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis;
 
 import static ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainingTypeUtil.getNonMaintenanceSections;
+import static ch.sbb.simba.backend.mikado.solver.utils.ParallelExecution.mapInOrder;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 @Slf4j
 public final class FindPossibleChainsMaintenanceStage {
@@ -17,9 +17,9 @@ public final class FindPossibleChainsMaintenanceStage {
     private FindPossibleChainsMaintenanceStage() {
     }
 
-    public static List<Pair<Integer, Integer>> getChains(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams) {
+    public static ChainList getChains(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams) {
 
-        List<Pair<Integer, Integer>> possibleChains = new ArrayList<>();
+        ChainList possibleChains = new ChainList();
 
         possibleChains.addAll(getUserDefinedRequiredSectionChains(params));
         possibleChains.addAll(getChainsFromPreviousSolution(params, chainingParams));
@@ -35,62 +35,75 @@ public final class FindPossibleChainsMaintenanceStage {
         return possibleChains;
     }
 
-    private static List<Pair<Integer, Integer>> getUserDefinedRequiredSectionChains(IpSolverParams params) {
-        return params.getRequiredSectionChains().stream().map(chain -> parseChainToIdxPair(params, chain.getFirst(), chain.getSecond())).toList();
+    private static ChainList getUserDefinedRequiredSectionChains(IpSolverParams params) {
+        ChainList chains = new ChainList(params.getRequiredSectionChains().size());
+        params.getRequiredSectionChains().forEach(chain -> addChain(chains, params, chain.getFirst(), chain.getSecond()));
+        return chains;
     }
 
     // do not add user-defined required chains twice
-    private static List<Pair<Integer, Integer>> getChainsFromPreviousSolution(IpSolverParams params, ChainingParams chainingParams) {
-        return params.getStageParams().getFixedChainMap().entrySet().stream().filter(chain ->
-            !chainingParams.getSectionsWithOutgoingFixedChain().contains(chain.getKey())).map(chain ->
-            parseChainToIdxPair(params, chain.getKey(), chain.getValue())).toList();
+    private static ChainList getChainsFromPreviousSolution(IpSolverParams params, ChainingParams chainingParams) {
+        ChainList chains = new ChainList(params.getStageParams().getFixedChainMap().size());
+        params.getStageParams().getFixedChainMap().entrySet().stream().filter(chain ->
+            !chainingParams.getSectionsWithOutgoingFixedChain().contains(chain.getKey())).forEach(chain ->
+            addChain(chains, params, chain.getKey(), chain.getValue()));
+        return chains;
     }
 
-    private static List<Pair<Integer, Integer>> getChainsFromAllMaintenanceWindows(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams, int percentile) {
+    private static ChainList getChainsFromAllMaintenanceWindows(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams, int percentile) {
 
-        List<RotaziunSection> nonMaintenanceSections = getNonMaintenanceSections(sections, params);
-        List<Pair<Integer,Integer>> possibleChains = new ArrayList<>();
+        StationSectionIndex toSectionIndex = StationSectionIndex.ofDepartures(getNonMaintenanceSections(sections, params), params, chainingParams);
+        List<RotaziunSection> maintenanceWindows = params.getMaintenanceWindows();
 
-        for (RotaziunSection maintenanceWindow : params.getMaintenanceWindows()) {
-            if(!chainingParams.getSectionsWithOutgoingFixedChain().contains(maintenanceWindow)){
-                List<RotaziunSection> bestToSections = FindPossibleChains.getBestAllowedChainingOptionsForFromSection(maintenanceWindow,nonMaintenanceSections,params,chainingParams,percentile);
-                possibleChains.addAll(bestToSections.stream().map(s -> parseChainToIdxPair(params, maintenanceWindow, s)).toList());
+        return ChainList.concat(mapInOrder(maintenanceWindows.size(), StationSectionIndex::newScratchBuffers, (buffers, i) -> {
+            RotaziunSection maintenanceWindow = maintenanceWindows.get(i);
+            if(chainingParams.getSectionsWithOutgoingFixedChain().contains(maintenanceWindow)){
+                return new ChainList(0);
             }
-        }
-        return possibleChains;
+            List<RotaziunSection> bestToSections = FindPossibleChains.getBestAllowedChainingOptionsForFromSection(maintenanceWindow,toSectionIndex,params,percentile,buffers);
+            ChainList chains = new ChainList(bestToSections.size());
+            bestToSections.forEach(s -> addChain(chains, params, maintenanceWindow, s));
+            return chains;
+        }, params.isParallelPreprocessing(), params.getPreprocessingExecutor()));
     }
 
-    private static List<Pair<Integer, Integer>> getChainsToAllMaintenanceWindows(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams, int percentile) {
+    private static ChainList getChainsToAllMaintenanceWindows(List<RotaziunSection> sections, IpSolverParams params, ChainingParams chainingParams, int percentile) {
 
-        List<RotaziunSection> nonMaintenanceSections = getNonMaintenanceSections(sections, params);
-        List<Pair<Integer,Integer>> possibleChains = new ArrayList<>();
+        StationSectionIndex fromSectionIndex = StationSectionIndex.ofArrivals(getNonMaintenanceSections(sections, params), params, chainingParams);
+        List<RotaziunSection> maintenanceWindows = params.getMaintenanceWindows();
 
-        for (RotaziunSection maintenanceWindow : params.getMaintenanceWindows()) {
-            if(!chainingParams.getSectionsWithIncomingFixedChain().contains(maintenanceWindow)) {
-                List<RotaziunSection> bestFromSections = FindPossibleChains.getBestAllowedChainingOptionsForToSection(nonMaintenanceSections, maintenanceWindow, params, chainingParams, percentile);
-                possibleChains.addAll(bestFromSections.stream().map(s -> parseChainToIdxPair(params, s, maintenanceWindow)).toList());
+        return ChainList.concat(mapInOrder(maintenanceWindows.size(), StationSectionIndex::newScratchBuffers, (buffers, i) -> {
+            RotaziunSection maintenanceWindow = maintenanceWindows.get(i);
+            if(chainingParams.getSectionsWithIncomingFixedChain().contains(maintenanceWindow)) {
+                return new ChainList(0);
             }
-        }
-        return possibleChains;
+            List<RotaziunSection> bestFromSections = FindPossibleChains.getBestAllowedChainingOptionsForToSection(fromSectionIndex, maintenanceWindow, params, percentile, buffers);
+            ChainList chains = new ChainList(bestFromSections.size());
+            bestFromSections.forEach(s -> addChain(chains, params, s, maintenanceWindow));
+            return chains;
+        }, params.isParallelPreprocessing(), params.getPreprocessingExecutor()));
     }
 
-    private static List<Pair<Integer, Integer>> getLargeGapChainingOptions(IpSolverParams params, ChainingParams chainingParams, int percentile) {
+    private static ChainList getLargeGapChainingOptions(IpSolverParams params, ChainingParams chainingParams, int percentile) {
 
-        List<Pair<Integer,Integer>> possibleChains = new ArrayList<>();
+        StationSectionIndex toSectionIndex = StationSectionIndex.ofDepartures(chainingParams.getEndOfGapSections(), params, chainingParams);
+        List<RotaziunSection> startOfGapSections = chainingParams.getStartOfGapSections();
 
-        for (RotaziunSection startOfGapSection : chainingParams.getStartOfGapSections()) {
-            if(!chainingParams.getSectionsWithOutgoingFixedChain().contains(startOfGapSection)){
-                List<RotaziunSection> bestToSections = FindPossibleChains.getBestAllowedChainingOptionsForFromSection(startOfGapSection,chainingParams.getEndOfGapSections(),params,chainingParams,percentile);
-                bestToSections = bestToSections.stream().filter(toSection -> isChainNew(params.getStageParams().getFixedChainMap().get(startOfGapSection),toSection)).toList();
-                possibleChains.addAll(bestToSections.stream().map(s -> parseChainToIdxPair(params, startOfGapSection, s)).toList());
+        return ChainList.concat(mapInOrder(startOfGapSections.size(), StationSectionIndex::newScratchBuffers, (buffers, i) -> {
+            RotaziunSection startOfGapSection = startOfGapSections.get(i);
+            if(chainingParams.getSectionsWithOutgoingFixedChain().contains(startOfGapSection)){
+                return new ChainList(0);
             }
-        }
-
-        return possibleChains;
+            List<RotaziunSection> bestToSections = FindPossibleChains.getBestAllowedChainingOptionsForFromSection(startOfGapSection,toSectionIndex,params,percentile,buffers);
+            ChainList chains = new ChainList(bestToSections.size());
+            bestToSections.stream().filter(toSection -> isChainNew(params.getStageParams().getFixedChainMap().get(startOfGapSection),toSection))
+                .forEach(s -> addChain(chains, params, startOfGapSection, s));
+            return chains;
+        }, params.isParallelPreprocessing(), params.getPreprocessingExecutor()));
     }
 
-    private static Pair<Integer, Integer> parseChainToIdxPair(IpSolverParams params, RotaziunSection fromSection, RotaziunSection toSection) {
-        return new Pair<>(params.getSectionIdxMap().get(fromSection), params.getSectionIdxMap().get(toSection));
+    private static void addChain(ChainList chains, IpSolverParams params, RotaziunSection fromSection, RotaziunSection toSection) {
+        chains.add(params.getSectionIdxMap().get(fromSection), params.getSectionIdxMap().get(toSection));
     }
 
     private static boolean isChainNew(RotaziunSection oldToSection, RotaziunSection newToSection) {
@@ -0,0 +1,351 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis;
+
+import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
+import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams.EMPTY_TRIP_MULTIPLIER;
+import static ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams.STAMM_CHANGE_ADDITION;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.filters.BoundedMaxHeap;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.filters.ChainingOptionsFilter;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.parameters.ChainingParams;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Index over the candidate sections of one chaining direction:
+ *  -> departure index: candidate to-sections, grouped by departure station and sorted by departure time
+ *  -> arrival index: candidate from-sections, grouped by arrival station
+ * Sections with a fixed chain on the indexed side are not part of the index.
+ *
+ * The empty trip reachability table holds, for every station of the duration map, the empty trip duration
+ * to (departure index) or from (arrival index) each indexed station. Prohibited empty trips are marked as not reachable.
+ * The rows of the table are computed on first use (thread-safe), so stations without chaining candidates cost nothing.
+ * The buffers of the percentile filter are passed in by the caller (one per task, see newScratchBuffers) and reused for every section of the task.
+ */
+public final class StationSectionIndex {
+
+    private static final int NOT_REACHABLE = Integer.MIN_VALUE;
+
+    private final List<RotaziunSection> sections;
+    private final int[] stationOrdinals; // (indexed station -> station ordinal of the duration map)
+    private final boolean[] prohibitedSidingSites;
+    private final int[][] positions; // (indexed station -> positions in sections, departure index: sorted by departure)
+    private final int[][] times; // (indexed station -> departure times of the positions)
+    private final AtomicReferenceArray<int[]> emptyTripDurations; // (station ordinal -> empty trip duration for each indexed station)
+    private final boolean departureIndex;
+    private final RotaziunDurationMap durationMap;
+    private final Set<RotaziunSection> sectionsWithIncomingFixedChain;
+    private final int numOfIndexedSections;
+
+    private StationSectionIndex(List<RotaziunSection> sections, boolean departureIndex, IpSolverParams params, ChainingParams chainingParams) {
+
+        this.sections = sections;
+        this.sectionsWithIncomingFixedChain = chainingParams.getSectionsWithIncomingFixedChain();
+
+        Map<Long, List<Integer>> positionsByStation = new LinkedHashMap<>();
+        for (int pos = 0; pos < sections.size(); pos++) {
+            RotaziunSection section = sections.get(pos);
+            if (!isIndexed(section, departureIndex, chainingParams)) {
+                continue;
+            }
+            RotaziunStation station = departureIndex ? section.getFromStation() : section.getToStation();
+            positionsByStation.computeIfAbsent(station.getId(), id -> new ArrayList<>()).add(pos);
+        }
+
+        int numOfStations = positionsByStation.size();
+        this.durationMap = params.getDurationMap();
+        this.stationOrdinals = new int[numOfStations];
+        this.prohibitedSidingSites = new boolean[numOfStations];
+        this.positions = new int[numOfStations][];
+        this.times = new int[numOfStations][];
+
+        int s = 0;
+        for (Map.Entry<Long, List<Integer>> entry : positionsByStation.entrySet()) {
+            stationOrdinals[s] = durationMap.getStationOrdinal(entry.getKey());
+            prohibitedSidingSites[s] = params.getProhibitedSidingSites().contains(entry.getKey());
+            positions[s] = entry.getValue().stream()
+                .sorted(departureIndex ? Comparator.comparing(pos -> sections.get(pos).getDeparture()) : Comparator.naturalOrder())
+                .mapToInt(Integer::intValue).toArray();
+            times[s] = Arrays.stream(positions[s]).map(pos -> sections.get(pos).getDeparture()).toArray();
+            s++;
+        }
+
+        this.departureIndex = departureIndex;
+        this.emptyTripDurations = new AtomicReferenceArray<>(durationMap.getNumOfStations());
+        this.numOfIndexedSections = Arrays.stream(positions).mapToInt(stationPositions -> stationPositions.length).sum();
+    }
+
+    public static StationSectionIndex ofDepartures(List<RotaziunSection> toSections, IpSolverParams params, ChainingParams chainingParams) {
+        return new StationSectionIndex(toSections, true, params, chainingParams);
+    }
+
+    public static StationSectionIndex ofArrivals(List<RotaziunSection> fromSections, IpSolverParams params, ChainingParams chainingParams) {
+        return new StationSectionIndex(fromSections, false, params, chainingParams);
+    }
+
+    private static boolean isIndexed(RotaziunSection section, boolean departureIndex, ChainingParams chainingParams) {
+        if (departureIndex) {
+            return !chainingParams.getSectionsWithIncomingFixedChain().contains(section);
+        }
+        return !chainingParams.getSectionsWithOutgoingFixedChain().contains(section);
+    }
+
+    private int[] getEmptyTripDurations(Long stationId) {
+        int station = durationMap.getStationOrdinal(stationId);
+        int[] row = emptyTripDurations.get(station);
+        if (row == null) {
+            row = computeEmptyTripDurations(station);
+            emptyTripDurations.compareAndSet(station, null, row);
+        }
+        return row;
+    }
+
+    private int[] computeEmptyTripDurations(int station) {
+        int[] row = new int[stationOrdinals.length];
+        for (int s = 0; s < stationOrdinals.length; s++) {
+            int from = departureIndex ? station : stationOrdinals[s];
+            int to = departureIndex ? stationOrdinals[s] : station;
+            row[s] = durationMap.isEmptyTripProhibited(from, to) ? NOT_REACHABLE : getEmptyTripDuration(from, to);
+        }
+        return row;
+    }
+
+    private int getEmptyTripDuration(int fromOrdinal, int toOrdinal) {
+        return fromOrdinal == toOrdinal ? 0 : durationMap.getDuration(fromOrdinal, toOrdinal);
+    }
+
+    /*
+     * returns the allowed to-sections whose valued chain time is within the given percentile
+     *  -> the departures of each station are visited in order of increasing idle time
+     *  -> the visit stops as soon as the percentile threshold is known, instead of valuing every allowed to-section
+     */
+    public List<RotaziunSection> getBestToSections(RotaziunSection fromSection, IpSolverParams params, int percentile, ScratchBuffers buffers) {
+
+        PriorityQueue<DepartureCursor> cursors = new PriorityQueue<>();
+        int numOfAllowedToSections = initDepartureCursors(fromSection, params, cursors);
+
+        if (numOfAllowedToSections == 0) {
+            return List.of();
+        }
+
+        // at most all allowed to-sections are visited
+        buffers.ensureCapacity(numOfAllowedToSections);
+        int[] visitedPositions = buffers.positions;
+        int[] visitedValues = buffers.values;
+        int numOfVisited;
+        int threshold;
+
+        if (percentile == 100) {
+            threshold = Integer.MAX_VALUE;
+            numOfVisited = visitAll(cursors, visitedPositions);
+        } else {
+            int rank = ChainingOptionsFilter.getPercentileRank(numOfAllowedToSections, percentile);
+            BoundedMaxHeap smallestValues = buffers.smallestValues;
+            smallestValues.reset(rank + 1);
+            numOfVisited = visitUntilThresholdIsKnown(fromSection, params, smallestValues, cursors, visitedPositions, visitedValues);
+            threshold = smallestValues.peekMax();
+        }
+
+        int numOfBest = 0;
+        for (int idx = 0; idx < numOfVisited; idx++) {
+            if (visitedValues[idx] <= threshold) {
+                visitedPositions[numOfBest++] = visitedPositions[idx];
+            }
+        }
+        Arrays.sort(visitedPositions, 0, numOfBest);
+        return Arrays.stream(visitedPositions, 0, numOfBest).mapToObj(sections::get).toList();
+    }
+
+    /*
+     * returns the allowed from-sections whose valued chain time is within the given percentile
+     *  -> stations from which the to-section cannot be reached by an empty trip are skipped as a whole
+     */
+    public List<RotaziunSection> getBestFromSections(RotaziunSection toSection, IpSolverParams params, int percentile, ScratchBuffers buffers) {
+
+        if (sectionsWithIncomingFixedChain.contains(toSection)) {
+            return List.of();
+        }
+
+        int[] durationRow = getEmptyTripDurations(toSection.getFromStation().getId());
+        buffers.ensureCapacity(numOfIndexedSections);
+        int[] allowedPositions = buffers.positions;
+        int[] valuedChainTimes = buffers.values;
+        int numOfAllowed = 0;
+        for (int s = 0; s < stationOrdinals.length; s++) {
+            if (durationRow[s] == NOT_REACHABLE) {
+                continue;
+            }
+            for (int pos : positions[s]) {
+                RotaziunSection fromSection = sections.get(pos);
+                if (ChainAnalysis.isChainAllowed(fromSection, toSection, params, sectionsWithIncomingFixedChain)) {
+                    allowedPositions[numOfAllowed] = pos;
+                    valuedChainTimes[numOfAllowed++] = ChainAnalysis.computeValuedChainTime(fromSection, toSection, params);
+                }
+            }
+        }
+
+        if (numOfAllowed == 0) {
+            return List.of();
+        }
+        int numOfBest = ChainingOptionsFilter.retainWithinPercentile(allowedPositions, valuedChainTimes, numOfAllowed, percentile, buffers.selection);
+        return Arrays.stream(allowedPositions, 0, numOfBest).mapToObj(sections::get).toList();
+    }
+
+    // departures at or after the ready time are reached on the same day, earlier departures on the next day
+    private int initDepartureCursors(RotaziunSection fromSection, IpSolverParams params, PriorityQueue<DepartureCursor> cursors) {
+
+        int[] durationRow = getEmptyTripDurations(fromSection.getToStation().getId());
+        boolean isFromStationProhibitedSidingSite = params.getProhibitedSidingSites().contains(fromSection.getToStation().getId());
+
+        int numOfAllowedToSections = 0;
+        for (int s = 0; s < stationOrdinals.length; s++) {
+            int emptyTripDuration = durationRow[s];
+            if (emptyTripDuration == NOT_REACHABLE) {
+                continue;
+            }
+
+            // a siding in a prohibited siding site is only avoided if the idle time is short enough
+            long maxWaitingTime = isFromStationProhibitedSidingSite && prohibitedSidingSites[s] ?
+                (long) params.getMinSidingDuration() - params.getMinTurnTime() - emptyTripDuration : Long.MAX_VALUE / 2;
+
+            int readyTime = (fromSection.getArrival() + params.getMinTurnTime() + emptyTripDuration) % DAY_IN_SECONDS;
+            int split = lowerBound(times[s], 0, times[s].length, readyTime);
+
+            numOfAllowedToSections += addCursor(cursors, s, split, times[s].length, readyTime, maxWaitingTime, emptyTripDuration);
+            numOfAllowedToSections += addCursor(cursors, s, 0, split, readyTime - DAY_IN_SECONDS, maxWaitingTime, emptyTripDuration);
+        }
+        return numOfAllowedToSections;
+    }
+
+    private int addCursor(PriorityQueue<DepartureCursor> cursors, int station, int start, int end, int offset, long maxWaitingTime, int emptyTripDuration) {
+        long maxDeparture = Math.min(offset + maxWaitingTime, Integer.MAX_VALUE);
+        int allowedEnd = lowerBound(times[station], start, end, maxDeparture + 1);
+        if (allowedEnd > start) {
+            cursors.add(new DepartureCursor(station, start, allowedEnd, offset, emptyTripDuration));
+        }
+        return allowedEnd - start;
+    }
+
+    private int visitAll(PriorityQueue<DepartureCursor> cursors, int[] visitedPositions) {
+        int numOfVisited = 0;
+        for (DepartureCursor cursor : cursors) {
+            for (int idx = cursor.current; idx < cursor.end; idx++) {
+                visitedPositions[numOfVisited++] = positions[cursor.station][idx];
+            }
+        }
+        return numOfVisited;
+    }
+
+    /*
+     * visits the to-sections in order of their lower bound (valued chain time without stamm change addition)
+     * and keeps the (rank+1) smallest valued chain times in the bounded heap. Once the lower bound of the next to-section
+     * exceeds the largest of them, the threshold is known and all to-sections within it have been visited.
+     */
+    private int visitUntilThresholdIsKnown(RotaziunSection fromSection, IpSolverParams params, BoundedMaxHeap smallestValues,
+        PriorityQueue<DepartureCursor> cursors, int[] visitedPositions, int[] visitedValues) {
+
+        int numOfVisited = 0;
+        while (!cursors.isEmpty()) {
+            DepartureCursor cursor = cursors.poll();
+            int lowerBound = cursor.getLowerBound();
+            if (smallestValues.isFull() && lowerBound > smallestValues.peekMax()) {
+                break;
+            }
+
+            int pos = positions[cursor.station][cursor.current];
+            RotaziunSection toSection = sections.get(pos);
+            int value = lowerBound + STAMM_CHANGE_ADDITION * ChainAnalysis.isStammChange(fromSection, toSection, params);
+
+            visitedPositions[numOfVisited] = pos;
+            visitedValues[numOfVisited++] = value;
+            smallestValues.add(value);
+
+            cursor.current++;
+            if (cursor.current < cursor.end) {
+                cursors.add(cursor);
+            }
+        }
+        return numOfVisited;
+    }
+
+    private static int lowerBound(int[] sortedValues, int from, int to, long key) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedValues[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // buffers for the sections of one task, not thread-safe
+    public static ScratchBuffers newScratchBuffers() {
+        return new ScratchBuffers();
+    }
+
+    // grown to the largest number of allowed sections of the task
+    public static final class ScratchBuffers {
+
+        private int[] positions = new int[0];
+        private int[] values = new int[0];
+        private int[] selection = new int[0];
+        private BoundedMaxHeap smallestValues;
+
+        private ScratchBuffers() {
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (positions.length >= capacity) {
+                return;
+            }
+            int newCapacity = Math.max(capacity, 2 * positions.length);
+            this.positions = new int[newCapacity];
+            this.values = new int[newCapacity];
+            this.selection = new int[newCapacity];
+            this.smallestValues = new BoundedMaxHeap(newCapacity);
+        }
+    }
+
+    private final class DepartureCursor implements Comparable<DepartureCursor> {
+
+        private final int station;
+        private final int end;
+        private final int offset;
+        private final int emptyTripDuration;
+        private int current;
+
+        private DepartureCursor(int station, int start, int end, int offset, int emptyTripDuration) {
+            this.station = station;
+            this.current = start;
+            this.end = end;
+            this.offset = offset;
+            this.emptyTripDuration = emptyTripDuration;
+        }
+
+        // idle time without min turn time + weighted empty trip duration
+        private int getLowerBound() {
+            int waitingTime = times[station][current] - offset;
+            return waitingTime + emptyTripDuration + (int) (EMPTY_TRIP_MULTIPLIER * emptyTripDuration);
+        }
+
+        @Override
+        public int compareTo(DepartureCursor other) {
+            return Integer.compare(getLowerBound(), other.getLowerBound());
+        }
+    }
+
+}
@@ -0,0 +1,86 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
+
+/*
+ * Keeps the capacity smallest of all added values in a primitive max-heap
+ *  -> peekMax() is the largest of them, i.e. the value at position (capacity-1) of all added values once the heap is full
+ *  -> the buffer is allocated once for the max capacity, reset() reuses it for the next values
+ */
+public final class BoundedMaxHeap {
+
+    private final int[] heap;
+    private int capacity;
+    private int size;
+
+    public BoundedMaxHeap(int maxCapacity) {
+        if (maxCapacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, currently: " + maxCapacity);
+        }
+        this.heap = new int[maxCapacity];
+        this.capacity = maxCapacity;
+    }
+
+    // removes all values and keeps the capacity smallest of the values added from now on
+    public void reset(int capacity) {
+        if (capacity <= 0 || capacity > heap.length) {
+            throw new IllegalArgumentException("Capacity must be between 1 and " + heap.length + ", currently: " + capacity);
+        }
+        this.capacity = capacity;
+        this.size = 0;
+    }
+
+    public void add(int value) {
+        if (size < capacity) {
+            heap[size] = value;
+            siftUp(size++);
+        } else if (value < heap[0]) {
+            heap[0] = value;
+            siftDown(0);
+        }
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int peekMax() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    private void siftUp(int idx) {
+        int value = heap[idx];
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            if (heap[parent] >= value) {
+                break;
+            }
+            heap[idx] = heap[parent];
+            idx = parent;
+        }
+        heap[idx] = value;
+    }
+
+    private void siftDown(int idx) {
+        int value = heap[idx];
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (value >= heap[child]) {
+                break;
+            }
+            heap[idx] = heap[child];
+            idx = child;
+        }
+        heap[idx] = value;
+    }
+
+}
@@ -2,34 +2,97 @@ package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
 
 import static java.lang.Math.max;
 
-import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
-import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 public final class ChainingOptionsFilter {
 
     private ChainingOptionsFilter() {
     }
 
-    public static List<RotaziunSection> filterByPercentile(Map<RotaziunSection, Integer> valuedChainTimeMap, int percentile, IpSolverParams params) {
-        int timeThreshold = getXthPercentileValue(valuedChainTimeMap.values().stream().toList(), percentile);
-        return valuedChainTimeMap.entrySet().stream().filter(e -> e.getValue() <= timeThreshold).map(Entry::getKey).toList();
+    /*
+     * keeps the first numOfValues positions whose value is within the given percentile at the front of positions (in their order)
+     * and returns their number
+     *  -> the threshold is selected in place on the selection buffer (at least numOfValues long), the values are not modified
+     */
+    public static int retainWithinPercentile(int[] positions, int[] values, int numOfValues, int percentile, int[] selection) {
+        if (percentile == 100) {
+            return numOfValues;
+        }
+        System.arraycopy(values, 0, selection, 0, numOfValues);
+        int timeThreshold = getXthPercentileValue(selection, numOfValues, percentile);
+        int numOfRetained = 0;
+        for (int idx = 0; idx < numOfValues; idx++) {
+            if (values[idx] <= timeThreshold) {
+                positions[numOfRetained++] = positions[idx];
+            }
+        }
+        return numOfRetained;
+    }
+
+    // reorders the first numOfValues values (quickselect) and returns the xth percentile value
+    static int getXthPercentileValue(int[] values, int numOfValues, int percentile) {
+        int index = getPercentileRank(numOfValues, percentile);
+        if (percentile == 100){
+            return Arrays.stream(values, 0, numOfValues).max().orElseThrow();
+        }
+        return selectKthSmallest(values, numOfValues, index);
     }
 
-    static int getXthPercentileValue(List<Integer> values, int percentile) {
+    // position of the xth percentile value in the sorted values
+    public static int getPercentileRank(int numOfValues, int percentile) {
         if (percentile < 0 || percentile > 100) {
             throw new IllegalArgumentException("Percentile must be between 0 and 100, currently: " + percentile);
         }
-        if (percentile == 100){
-            return Collections.max(values);
+        int index = (int) Math.ceil((percentile / 100.0) * numOfValues) - 1;
+        return max(0, Math.min(index, numOfValues - 1));
+    }
+
+    /*
+     * returns the value at position k of the sorted first numOfValues values (quickselect with three-way partitioning,
+     * equal valued chain times are frequent). The values are reordered in place.
+     */
+    static int selectKthSmallest(int[] values, int numOfValues, int k) {
+        if (numOfValues == 0) {
+            throw new IllegalArgumentException("Cannot select a value out of an empty list of values");
+        }
+        int low = 0;
+        int high = numOfValues - 1;
+        while (low < high) {
+            int pivot = medianOfThree(values[low], values[(low + high) >>> 1], values[high]);
+
+            // values[low..lt-1] < pivot, values[lt..gt] == pivot, values[gt+1..high] > pivot
+            int lt = low;
+            int gt = high;
+            int idx = low;
+            while (idx <= gt) {
+                if (values[idx] < pivot) {
+                    swap(values, lt++, idx++);
+                } else if (values[idx] > pivot) {
+                    swap(values, idx, gt--);
+                } else {
+                    idx++;
+                }
+            }
+
+            if (k < lt) {
+                high = lt - 1;
+            } else if (k > gt) {
+                low = gt + 1;
+            } else {
+                return pivot;
+            }
         }
-        List<Integer> sortedValuedTimes = values.stream().sorted().toList();
-        int index = (int) Math.ceil((percentile / 100.0) * values.size()) - 1;
-        index = max(0, Math.min(index, values.size() - 1));
-        return sortedValuedTimes.get(index);
+        return values[k];
+    }
+
+    private static int medianOfThree(int a, int b, int c) {
+        return max(Math.min(a, b), Math.min(max(a, b), c));
+    }
+
+    private static void swap(int[] values, int i, int j) {
+        int value = values[i];
+        values[i] = values[j];
+        values[j] = value;
     }
 
 }
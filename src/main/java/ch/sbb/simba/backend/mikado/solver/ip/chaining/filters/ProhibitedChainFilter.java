@@ -1,10 +1,10 @@
 package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
 
+import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import java.util.Arrays;
 
 public final class ProhibitedChainFilter {
 
@@ -12,12 +12,16 @@ public final class ProhibitedChainFilter {
     }
 
     // remove User-Defined prohibited section chains
-    public static List<Pair<Integer, Integer>> filter (IpSolverParams params, List<Pair<Integer, Integer>> chains) {
+    public static ChainList filter (IpSolverParams params, ChainList chains) {
+
+        if (params.getProhibitedSectionChains().isEmpty()) {
+            return chains;
+        }
 
-        Set<Pair<Integer,Integer>> prohibitedChainIndices = params.getProhibitedSectionChains().stream()
-            .map(chain -> new Pair<>(params.getSectionIdxMap().get(chain.getFirst()), params.getSectionIdxMap().get(chain.getSecond())))
-            .collect(Collectors.toSet());
-        return chains.stream().filter(chain -> !prohibitedChainIndices.contains(chain)).toList();
+        long[] prohibitedChainKeys = params.getProhibitedSectionChains().stream()
+            .mapToLong(chain -> getKey(params.getSectionIdxMap().get(chain.getFirst()), params.getSectionIdxMap().get(chain.getSecond())))
+            .sorted().toArray();
+        return chains.filter(idx -> Arrays.binarySearch(prohibitedChainKeys, getKey(chains.getFrom(idx), chains.getTo(idx))) < 0);
 
     }
 
@@ -1,23 +1,20 @@
 package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
-
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import java.util.List;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 public final class SelfLoopFilter {
 
     private SelfLoopFilter() {
     }
 
-    public static List<Pair<Integer, Integer>> filter(IpSolverParams params, List<Pair<Integer, Integer>> chains) {
+    public static ChainList filter(IpSolverParams params, ChainList chains) {
 
-        if (numOfSections <= 1) {
+        if (params.getNumOfSections() <= 1) {
             return chains;
         }
 
-        return chains.stream().filter(chain -> !chain.getFirst().equals(chain.getSecond())).toList();
+        return chains.filter(idx -> chains.getFrom(idx) != chains.getTo(idx));
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.model;
+
+import java.util.function.IntConsumer;
+
+/*
+ * Incoming and outgoing chains of every section, built once per stage from the possible chains (compressed sparse rows)
+ *  -> outgoing chains of section s: outChains[outStart[s]] .. outChains[outStart[s+1]-1], as chain positions in increasing order
+ *  -> incoming chains of section s: inChains[inStart[s]] .. inChains[inStart[s+1]-1], as chain positions in increasing order
+ * Constraints over the chains of a single section visit only these chains instead of all possible chains.
+ */
+public final class ChainAdjacency {
+
+    private final int[] outStart;
+    private final int[] outChains;
+    private final int[] inStart;
+    private final int[] inChains;
+
+    private ChainAdjacency(int[] outStart, int[] outChains, int[] inStart, int[] inChains) {
+        this.outStart = outStart;
+        this.outChains = outChains;
+        this.inStart = inStart;
+        this.inChains = inChains;
+    }
+
+    public static ChainAdjacency of(ChainList chains, int numOfSections) {
+
+        int[] outStart = new int[numOfSections + 1];
+        int[] inStart = new int[numOfSections + 1];
+        for (int idx = 0; idx < chains.size(); idx++) {
+            outStart[chains.getFrom(idx) + 1]++;
+            inStart[chains.getTo(idx) + 1]++;
+        }
+        for (int s = 0; s < numOfSections; s++) {
+            outStart[s + 1] += outStart[s];
+            inStart[s + 1] += inStart[s];
+        }
+
+        int[] outChains = new int[chains.size()];
+        int[] inChains = new int[chains.size()];
+        int[] outNext = outStart.clone();
+        int[] inNext = inStart.clone();
+        for (int idx = 0; idx < chains.size(); idx++) {
+            outChains[outNext[chains.getFrom(idx)]++] = idx;
+            inChains[inNext[chains.getTo(idx)]++] = idx;
+        }
+        return new ChainAdjacency(outStart, outChains, inStart, inChains);
+    }
+
+    // chain positions of all chains starting with the section
+    public void forEachOutgoingChain(int sectionIdx, IntConsumer action) {
+        for (int k = outStart[sectionIdx]; k < outStart[sectionIdx + 1]; k++) {
+            action.accept(outChains[k]);
+        }
+    }
+
+    // chain positions of all chains ending with the section
+    public void forEachIncomingChain(int sectionIdx, IntConsumer action) {
+        for (int k = inStart[sectionIdx]; k < inStart[sectionIdx + 1]; k++) {
+            action.accept(inChains[k]);
+        }
+    }
+
+    public int getNumOfSections() {
+        return outStart.length - 1;
+    }
+
+    // k-th outgoing chain of the section, k < getNumOfOutgoingChains(sectionIdx)
+    public int getOutgoingChain(int sectionIdx, int k) {
+        return outChains[outStart[sectionIdx] + k];
+    }
+
+    public int getNumOfOutgoingChains(int sectionIdx) {
+        return outStart[sectionIdx + 1] - outStart[sectionIdx];
+    }
+
+    public int getNumOfIncomingChains(int sectionIdx) {
+        return inStart[sectionIdx + 1] - inStart[sectionIdx];
+    }
+
+}
@@ -0,0 +1,121 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.model;
+
+import static ch.sbb.simba.backend.mikado.solver.utils.ParallelExecution.forEachIndex;
+
+import ch.sbb.simba.backend.mikado.solver.ip.Objective;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import java.util.List;
+import java.util.Objects;
+
+/*
+ * Attributes of all possible section chains of a stage, indexed by the position of the chain in possibleChains.
+ * Every attribute is computed exactly once per stage; objective, constraints, result metrics and block construction read them from here.
+ * The position of a chain is found among the outgoing chains of its from-section (see ChainAdjacency), which is built once per stage as well.
+ */
+public final class ChainAttributes {
+
+    private final int[] emptyTripDuration;
+    private final boolean[] emptyTrip;
+    private final int[] idleTime; // with minTurnTime
+    private final byte[] stammChange;
+    private final byte[] debicodeChange;
+    private final byte[] siding;
+    private final byte[] blockDays;
+    private final boolean[] sidingVariableNeeded;
+    private final ChainList chains;
+    private final ChainAdjacency adjacency;
+
+    private ChainAttributes(ChainList chains, int numOfSections) {
+        int numOfChains = chains.size();
+        this.emptyTripDuration = new int[numOfChains];
+        this.emptyTrip = new boolean[numOfChains];
+        this.idleTime = new int[numOfChains];
+        this.stammChange = new byte[numOfChains];
+        this.debicodeChange = new byte[numOfChains];
+        this.siding = new byte[numOfChains];
+        this.blockDays = new byte[numOfChains];
+        this.sidingVariableNeeded = new boolean[numOfChains];
+        this.chains = chains;
+        this.adjacency = ChainAdjacency.of(chains, numOfSections);
+    }
+
+    public static ChainAttributes of(ChainList possibleChains, List<RotaziunSection> sections, IpSolverParams params) {
+
+        ChainAttributes attributes = new ChainAttributes(possibleChains, sections.size());
+        forEachIndex(possibleChains.size(), idx -> attributes.computeAttributes(idx, possibleChains.getFrom(idx), possibleChains.getTo(idx), sections, params),
+            params.isParallelPreprocessing(), params.getPreprocessingExecutor());
+        return attributes;
+    }
+
+    private void computeAttributes(int idx, int fromSectionIdx, int toSectionIdx, List<RotaziunSection> sections, IpSolverParams params) {
+
+        RotaziunSection fromSection = sections.get(fromSectionIdx);
+        RotaziunSection toSection = sections.get(toSectionIdx);
+
+        int emptyTripTime = ChainAnalysis.getEmptyTripDuration(fromSection, toSection, params.getDurationMap());
+        int idleTimeWithoutMinTurnTime = ChainAnalysis.getIdleTimeWithoutMinTurnTime(fromSection, toSection, emptyTripTime, params.getMinTurnTime());
+        boolean isSiding = idleTimeWithoutMinTurnTime + params.getMinTurnTime() > params.getMinSidingDuration();
+
+        emptyTripDuration[idx] = emptyTripTime;
+        emptyTrip[idx] = !Objects.equals(fromSection.getToStation().getId(), toSection.getFromStation().getId());
+        idleTime[idx] = idleTimeWithoutMinTurnTime + params.getMinTurnTime();
+        stammChange[idx] = (byte) ChainAnalysis.isStammChange(fromSection, toSection, idleTimeWithoutMinTurnTime);
+        debicodeChange[idx] = (byte) ChainAnalysis.isDifferentDebicodes(fromSectionIdx, toSectionIdx, sections, params);
+        siding[idx] = (byte) (isSiding ? 1 : 0);
+        blockDays[idx] = (byte) Objective.getNumberOfBlockDays(fromSection, toSection, emptyTripTime, params.getMinTurnTime());
+        sidingVariableNeeded[idx] = isSiding && ChainAnalysis.isChainAtCapacityRestrictedStation(fromSection, toSection, params);
+    }
+
+    public int size() {
+        return emptyTripDuration.length;
+    }
+
+    public ChainAdjacency getAdjacency() {
+        return adjacency;
+    }
+
+    public int getPosition(int fromSectionIdx, int toSectionIdx) {
+        for (int k = 0; k < adjacency.getNumOfOutgoingChains(fromSectionIdx); k++) {
+            int idx = adjacency.getOutgoingChain(fromSectionIdx, k);
+            if (chains.getTo(idx) == toSectionIdx) {
+                return idx;
+            }
+        }
+        throw new IllegalArgumentException("Section chain " + fromSectionIdx + " -> " + toSectionIdx + " is not a possible chain of this stage");
+    }
+
+    public int getEmptyTripDuration(int idx) {
+        return emptyTripDuration[idx];
+    }
+
+    public boolean hasEmptyTrip(int idx) {
+        return emptyTrip[idx];
+    }
+
+    public int getIdleTime(int idx) {
+        return idleTime[idx];
+    }
+
+    public int getStammChange(int idx) {
+        return stammChange[idx];
+    }
+
+    public int getDebicodeChange(int idx) {
+        return debicodeChange[idx];
+    }
+
+    public int getSiding(int idx) {
+        return siding[idx];
+    }
+
+    public int getBlockDays(int idx) {
+        return blockDays[idx];
+    }
+
+    public boolean isSidingVariableNeeded(int idx) {
+        return sidingVariableNeeded[idx];
+    }
+
+}
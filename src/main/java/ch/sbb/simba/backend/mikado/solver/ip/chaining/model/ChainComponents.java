@@ -0,0 +1,117 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.model;
+
+import java.util.Arrays;
+
+/*
+ * Strongly connected components of the possible chains (sections as nodes, chains as arcs)
+ *  -> every section has exactly one chosen successor and one chosen predecessor, so the chosen chains form cycles; a cycle never leaves its
+ *     component, chains between two components are never chosen
+ *  -> inputs of several lines without common stations and without allowed empty trips between them split into one component per line
+ * Components by Tarjan (iterative, the number of sections can exceed the call stack), sections of a component in increasing index order.
+ */
+public final class ChainComponents {
+
+    private final int[] componentOfSection;
+    private final int[][] sectionsOfComponents;
+    private final int[] positionInComponent;
+
+    private ChainComponents(int[] componentOfSection, int[][] sectionsOfComponents, int[] positionInComponent) {
+        this.componentOfSection = componentOfSection;
+        this.sectionsOfComponents = sectionsOfComponents;
+        this.positionInComponent = positionInComponent;
+    }
+
+    public static ChainComponents of(ChainList chains, int numOfSections) {
+
+        ChainAdjacency adjacency = ChainAdjacency.of(chains, numOfSections);
+        int[] componentOfSection = new int[numOfSections];
+        int numOfComponents = 0;
+
+        int[] index = new int[numOfSections];
+        Arrays.fill(index, -1);
+        int[] lowLink = new int[numOfSections];
+        boolean[] isOnStack = new boolean[numOfSections];
+        int[] stack = new int[numOfSections];
+        int stackSize = 0;
+        int[] path = new int[numOfSections]; // sections of the depth-first search path (instead of recursive calls)
+        int[] nextChain = new int[numOfSections]; // next outgoing chain of a section on the path
+        int nextIndex = 0;
+
+        for (int root = 0; root < numOfSections; root++) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int pathSize = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            stack[stackSize++] = root;
+            isOnStack[root] = true;
+            path[pathSize++] = root;
+
+            while (pathSize > 0) {
+                int s = path[pathSize - 1];
+                if (nextChain[s] < adjacency.getNumOfOutgoingChains(s)) {
+                    int t = chains.getTo(adjacency.getOutgoingChain(s, nextChain[s]++));
+                    if (index[t] == -1) {
+                        index[t] = lowLink[t] = nextIndex++;
+                        stack[stackSize++] = t;
+                        isOnStack[t] = true;
+                        path[pathSize++] = t;
+                    } else if (isOnStack[t]) {
+                        lowLink[s] = Math.min(lowLink[s], index[t]);
+                    }
+                    continue;
+                }
+                pathSize--;
+                if (pathSize > 0) {
+                    int parent = path[pathSize - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[s]);
+                }
+                if (lowLink[s] == index[s]) {
+                    int t;
+                    do {
+                        t = stack[--stackSize];
+                        isOnStack[t] = false;
+                        componentOfSection[t] = numOfComponents;
+                    } while (t != s);
+                    numOfComponents++;
+                }
+            }
+        }
+
+        int[] componentSize = new int[numOfComponents];
+        int[] positionInComponent = new int[numOfSections];
+        for (int s = 0; s < numOfSections; s++) {
+            positionInComponent[s] = componentSize[componentOfSection[s]]++;
+        }
+        int[][] sectionsOfComponents = new int[numOfComponents][];
+        for (int c = 0; c < numOfComponents; c++) {
+            sectionsOfComponents[c] = new int[componentSize[c]];
+        }
+        for (int s = 0; s < numOfSections; s++) {
+            sectionsOfComponents[componentOfSection[s]][positionInComponent[s]] = s;
+        }
+        return new ChainComponents(componentOfSection, sectionsOfComponents, positionInComponent);
+    }
+
+    public int getNumOfComponents() {
+        return sectionsOfComponents.length;
+    }
+
+    public int getComponent(int sectionIdx) {
+        return componentOfSection[sectionIdx];
+    }
+
+    public int[] getSectionsOfComponent(int component) {
+        return sectionsOfComponents[component];
+    }
+
+    public int getPositionInComponent(int sectionIdx) {
+        return positionInComponent[sectionIdx];
+    }
+
+    // chains within a component, in the order of the given chains
+    public ChainList filterChainsWithinComponents(ChainList chains) {
+        return chains.filter(idx -> componentOfSection[chains.getFrom(idx)] == componentOfSection[chains.getTo(idx)]);
+    }
+
+}
@@ -0,0 +1,96 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/*
+ * Packed list of section chains (fromSectionIdx -> toSectionIdx), stored in two parallel int arrays
+ *  -> the position of a chain is its index in the arrays; variables, constraints, objective and chain attributes refer to chains by position
+ *  -> no object per chain, iterate by position: for (int idx = 0; idx < chains.size(); idx++) { chains.getFrom(idx); chains.getTo(idx); }
+ */
+public final class ChainList {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] from;
+    private int[] to;
+    private int size;
+
+    public ChainList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChainList(int capacity) {
+        this.from = new int[Math.max(capacity, 1)];
+        this.to = new int[Math.max(capacity, 1)];
+    }
+
+    public static ChainList of(int fromSectionIdx, int toSectionIdx) {
+        ChainList chains = new ChainList(1);
+        chains.add(fromSectionIdx, toSectionIdx);
+        return chains;
+    }
+
+    // concatenates the chain lists in list order
+    public static ChainList concat(List<ChainList> chainLists) {
+        ChainList chains = new ChainList(chainLists.stream().mapToInt(ChainList::size).sum());
+        chainLists.forEach(chains::addAll);
+        return chains;
+    }
+
+    public void add(int fromSectionIdx, int toSectionIdx) {
+        if (size == from.length) {
+            from = Arrays.copyOf(from, 2 * size);
+            to = Arrays.copyOf(to, 2 * size);
+        }
+        from[size] = fromSectionIdx;
+        to[size++] = toSectionIdx;
+    }
+
+    public void addAll(ChainList chains) {
+        if (size + chains.size > from.length) {
+            from = Arrays.copyOf(from, Math.max(2 * from.length, size + chains.size));
+            to = Arrays.copyOf(to, from.length);
+        }
+        System.arraycopy(chains.from, 0, from, size, chains.size);
+        System.arraycopy(chains.to, 0, to, size, chains.size);
+        size += chains.size;
+    }
+
+    // new chain list with the chains whose position satisfies the predicate, in the same order
+    public ChainList filter(IntPredicate keepPosition) {
+        ChainList chains = new ChainList(size);
+        for (int idx = 0; idx < size; idx++) {
+            if (keepPosition.test(idx)) {
+                chains.add(from[idx], to[idx]);
+            }
+        }
+        return chains;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getFrom(int idx) {
+        checkPosition(idx);
+        return from[idx];
+    }
+
+    public int getTo(int idx) {
+        checkPosition(idx);
+        return to[idx];
+    }
+
+    private void checkPosition(int idx) {
+        if (idx >= size) {
+            throw new IndexOutOfBoundsException("Chain position " + idx + " is out of bounds for " + size + " chains");
+        }
+    }
+
+}
@@ -1,13 +1,9 @@
 package ch.sbb.simba.backend.mikado.solver.ip.constraints;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
-
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
-import com.google.ortools.linearsolver.MPConstraint;
-import com.google.ortools.linearsolver.MPSolver;
-import java.util.List;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 
 public final class ConstrBasic {
 
@@ -15,30 +11,30 @@ public final class ConstrBasic {
     }
 
     // constraint 1: jede kommerzielle Fahrt ist genau ein Mal Teil eines Umlauftages
-    public static void eachSectionIsPartExactlyOnce(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v) {
-        exactlyOneChainAfterEachSection(solver, possibleChains, v);
-        exactlyOneChainBeforeEachSection(solver, possibleChains, v);
+    public static void eachSectionIsPartExactlyOnce(ConstraintBlock block, ChainList possibleChains, Variables v, IpSolverParams params) {
+        exactlyOneChainAfterEachSection(block, possibleChains, v, params.getNumOfSections());
+        exactlyOneChainBeforeEachSection(block, possibleChains, v, params.getNumOfSections());
     }
 
     // constraint 1a:
-    private static void exactlyOneChainAfterEachSection(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v) {
-        MPConstraint[] constrBasicAfter = new MPConstraint[numOfSections];
+    private static void exactlyOneChainAfterEachSection(ConstraintBlock block, ChainList possibleChains, Variables v, int numOfSections) {
+        int[] constrBasicAfter = new int[numOfSections];
         for (int i = 0; i < numOfSections; i++) {
-            constrBasicAfter[i] = solver.makeConstraint(1, 1, "basicAfter_" + i);
+            constrBasicAfter[i] = block.makeConstraint(1, 1, "basicAfter_", i);
         }
-        for(Pair<Integer,Integer> chain : possibleChains){
-            constrBasicAfter[chain.getFirst()].setCoefficient(v.xMap.get(getKey(chain)), 1);
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            block.setCoefficient(constrBasicAfter[possibleChains.getFrom(idx)], v.x[idx], 1);
         }
     }
 
     // constraint 1b:
-    private static void exactlyOneChainBeforeEachSection(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v) {
-        MPConstraint[] constrBasicBefore = new MPConstraint[numOfSections];
+    private static void exactlyOneChainBeforeEachSection(ConstraintBlock block, ChainList possibleChains, Variables v, int numOfSections) {
+        int[] constrBasicBefore = new int[numOfSections];
         for (int j = 0; j < numOfSections; j++) {
-            constrBasicBefore[j] = solver.makeConstraint(1, 1, "basicBefore_" + j);
+            constrBasicBefore[j] = block.makeConstraint(1, 1, "basicBefore_", j);
         }
-        for(Pair<Integer,Integer> chain : possibleChains){
-            constrBasicBefore[chain.getSecond()].setCoefficient(v.xMap.get(getKey(chain)), 1);
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            block.setCoefficient(constrBasicBefore[possibleChains.getTo(idx)], v.x[idx], 1);
         }
     }
 
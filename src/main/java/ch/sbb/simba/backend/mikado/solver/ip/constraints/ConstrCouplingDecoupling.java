@@ -3,16 +3,17 @@ package ch.sbb.simba.backend.mikado.solver.ip.constraints;
 import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.parseMapToList;
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.INFINITY;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
 import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.isCouplingDecouplingPossibleAtStation;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.getIdleTime;
 import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.areCouplingVariablesNeeded;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAdjacency;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
-import com.google.ortools.linearsolver.MPConstraint;
-import com.google.ortools.linearsolver.MPSolver;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
 import java.util.List;
 import java.util.Objects;
 import ch.sbb.simba.backend.mikado.solver.utils.Pair;
@@ -22,39 +23,43 @@ public final class ConstrCouplingDecoupling {
     private ConstrCouplingDecoupling() {
     }
 
-    public static void makeCouplingDecouplingConstraints(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections) {
+    public static void makeCouplingDecouplingConstraints(IpModel model, ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v, IpSolverParams params, List<RotaziunSection> sections) {
 
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs = parseMapToList(params.getEnforcementStammPairMap());
+        ChainAdjacency adjacency = attributes.getAdjacency();
 
-        detectDecoupling(solver, possibleChains, v, params, sections, enfStPairs, params.getSectionToDecouplingIdMap().size()+2);
+        detectDecoupling(block, possibleChains, adjacency, v, params, sections, enfStPairs, params.getSectionToDecouplingIdMap().size()+2);
         if(areCouplingVariablesNeeded(params)){
-            detectCoupling(solver, possibleChains, v, params, sections, enfStPairs, params.getSectionToCouplingIdMap().size()+2);
+            detectCoupling(block, possibleChains, adjacency, v, params, sections, enfStPairs, params.getSectionToCouplingIdMap().size()+2);
         }
 
-        enforcementsNeedTimeForCouplingDecoupling(solver, possibleChains, v, params, sections);
+        enforcementsNeedTimeForCouplingDecoupling(block, possibleChains, attributes, v, params, sections);
 
         if(!params.getProhibitedCouplingDecouplingStationIds().isEmpty()){
-            prohibitDecouplingAtStations(v, params, enfStPairs);
-            prohibitCouplingAtStations(v, params, enfStPairs);
+            prohibitDecouplingAtStations(model, v, params, enfStPairs);
+            prohibitCouplingAtStations(model, v, params, enfStPairs);
         }
 
     }
 
-    private static void enforcementsNeedTimeForCouplingDecoupling(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections) {
+    private static void enforcementsNeedTimeForCouplingDecoupling(ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v, IpSolverParams params, List<RotaziunSection> sections) {
 
-        List<RotaziunSection> enforcements = params.getEnforcementStammPairMap().keySet().stream().toList();
+        boolean[] isEnforcement = new boolean[sections.size()];
+        params.getEnforcementStammPairMap().keySet().forEach(enforcement -> isEnforcement[params.getSectionIdxMap().get(enforcement)] = true);
 
-        MPConstraint[] constrEnfTime = new MPConstraint[possibleChains.size()];
+        int[] constrEnfTime = new int[possibleChains.size()];
         int idx = 0;
-        for (Pair<Integer, Integer> p : possibleChains) {
-            if(enforcements.contains(sections.get(p.getFirst())) || enforcements.contains(sections.get(p.getSecond()))) {
-                constrEnfTime[idx] = solver.makeConstraint(-INFINITY, DAY_IN_SECONDS +  getIdleTime(sections.get(p.getFirst()), sections.get(p.getSecond()), params), "constrEnfTime_" + idx);
-                constrEnfTime[idx].setCoefficient(v.xMap.get(getKey(p)), DAY_IN_SECONDS);
-                if(enforcements.contains(sections.get(p.getFirst()))){
-                    constrEnfTime[idx].setCoefficient(v.decoup[params.getEnforcementSectionToEnforcementIdMap().get(sections.get(p.getFirst()))], params.getMinTimeForDecoupling());
+        for (int chainIdx = 0; chainIdx < possibleChains.size(); chainIdx++) {
+            int fromIdx = possibleChains.getFrom(chainIdx);
+            int toIdx = possibleChains.getTo(chainIdx);
+            if(isEnforcement[fromIdx] || isEnforcement[toIdx]) {
+                constrEnfTime[idx] = block.makeConstraint(-INFINITY, DAY_IN_SECONDS +  attributes.getIdleTime(chainIdx), "constrEnfTime_", idx);
+                block.setCoefficient(constrEnfTime[idx], v.x[chainIdx], DAY_IN_SECONDS);
+                if(isEnforcement[fromIdx]){
+                    block.setCoefficient(constrEnfTime[idx], v.decoup[params.getEnforcementSectionToEnforcementIdMap().get(sections.get(fromIdx))], params.getMinTimeForDecoupling());
                 }
-                if(enforcements.contains(sections.get(p.getSecond())) && areCouplingVariablesNeeded(params)){
-                    constrEnfTime[idx].setCoefficient(v.coup[params.getEnforcementSectionToEnforcementIdMap().get(sections.get(p.getSecond()))], params.getMinTimeForCoupling());
+                if(isEnforcement[toIdx] && areCouplingVariablesNeeded(params)){
+                    block.setCoefficient(constrEnfTime[idx], v.coup[params.getEnforcementSectionToEnforcementIdMap().get(sections.get(toIdx))], params.getMinTimeForCoupling());
                 }
                 idx++;
             }
@@ -62,7 +67,7 @@ public final class ConstrCouplingDecoupling {
 
     }
 
-    private static void prohibitDecouplingAtStations(Variables v, IpSolverParams params, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
+    private static void prohibitDecouplingAtStations(IpModel model, Variables v, IpSolverParams params, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
 
         for (int e = 0; e < enfStPairs.size(); e++) {
             if(isDecouplingProhibitedAtStation(params, enfStPairs, e)){
@@ -71,14 +76,14 @@ public final class ConstrCouplingDecoupling {
                         + " interferes with enhancement from " + enfStPairs.get(e).getFirst().getFromStation().getName() + " to " + enfStPairs.get(e).getFirst().getToStation().getName()
                     );
                 }
-                v.h1decoup[e].setBounds(0,0);
-                v.h2decoup[e].setBounds(0,0);
-                v.decoup[e].setBounds(0,0);
+                model.setBounds(v.h1decoup[e], 0, 0);
+                model.setBounds(v.h2decoup[e], 0, 0);
+                model.setBounds(v.decoup[e], 0, 0);
             }
         }
     }
 
-    private static void prohibitCouplingAtStations(Variables v, IpSolverParams params, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
+    private static void prohibitCouplingAtStations(IpModel model, Variables v, IpSolverParams params, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
 
         for (int e = 0; e < enfStPairs.size(); e++) {
             if(isCouplingProhibitedAtStation(params, enfStPairs, e)){
@@ -87,198 +92,164 @@ public final class ConstrCouplingDecoupling {
                         + " interferes with enhancement from " + enfStPairs.get(e).getFirst().getFromStation().getName() + " to " + enfStPairs.get(e).getFirst().getToStation().getName()
                     );
                 }
-                v.h1coup[e].setBounds(0,0);
-                v.h2coup[e].setBounds(0,0);
-                v.coup[e].setBounds(0,0);
+                model.setBounds(v.h1coup[e], 0, 0);
+                model.setBounds(v.h2coup[e], 0, 0);
+                model.setBounds(v.coup[e], 0, 0);
             }
         }
     }
 
-    private static void detectDecoupling(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectDecoupling(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
 
-        detectDecoupling1a(solver, possibleChains, v, params, sections, enfStPairs, m);
-        detectDecoupling1b(solver, possibleChains, v, params, sections, enfStPairs, m);
+        detectDecoupling1a(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
+        detectDecoupling1b(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
 
-        detectDecoupling2a(solver, possibleChains, v, params, sections, enfStPairs, m);
-        detectDecoupling2b(solver, possibleChains, v, params, sections, enfStPairs, m);
+        detectDecoupling2a(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
+        detectDecoupling2b(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
 
-        detectDecoupling3(solver, v, enfStPairs);
+        detectDecoupling3(block, v, enfStPairs);
     }
 
-    private static void detectCoupling(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectCoupling(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
 
-        detectCoupling1a(solver, possibleChains, v, params, sections, enfStPairs, m);
-        detectCoupling1b(solver, possibleChains, v, params, sections, enfStPairs, m);
+        detectCoupling1a(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
+        detectCoupling1b(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
 
-        detectCoupling2a(solver, possibleChains, v, params, sections, enfStPairs, m);
-        detectCoupling2b(solver, possibleChains, v, params, sections, enfStPairs, m);
+        detectCoupling2a(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
+        detectCoupling2b(block, possibleChains, adjacency, v, params, sections, enfStPairs, m);
 
-        detectCoupling3(solver, v, enfStPairs);
+        detectCoupling3(block, v, enfStPairs);
     }
 
-    private static void detectCoupling1a(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrCoupling1a = new MPConstraint[enfStPairs.size()];
+    private static void detectCoupling1a(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
+        int[] constrCoupling1a = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrCoupling1a[i] = solver.makeConstraint(-INFINITY, m-1, "coupling1a_" + i);
-            constrCoupling1a[i].setCoefficient(v.h1coup[i], m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrCoupling1a[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfPrevSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrCoupling1a[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfPrevSection(params, sections, p));
-                }
-            }
+            constrCoupling1a[i] = block.makeConstraint(-INFINITY, m-1, "coupling1a_", i);
+            block.setCoefficient(constrCoupling1a[i], v.h1coup[i], m);
+            setCouplingCoefficients(block, constrCoupling1a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), -1, possibleChains, adjacency, v, params, sections);
+            setCouplingCoefficients(block, constrCoupling1a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), 1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectCoupling1b(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectCoupling1b(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrCoupling1b = new MPConstraint[enfStPairs.size()];
+        int[] constrCoupling1b = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrCoupling1b[i] = solver.makeConstraint(-INFINITY, 0, "coupling1b_" + i);
-            constrCoupling1b[i].setCoefficient(v.h1coup[i], -m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrCoupling1b[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfPrevSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrCoupling1b[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfPrevSection(params, sections, p));
-                }
-            }
+            constrCoupling1b[i] = block.makeConstraint(-INFINITY, 0, "coupling1b_", i);
+            block.setCoefficient(constrCoupling1b[i], v.h1coup[i], -m);
+            setCouplingCoefficients(block, constrCoupling1b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), 1, possibleChains, adjacency, v, params, sections);
+            setCouplingCoefficients(block, constrCoupling1b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), -1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectCoupling2a(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectCoupling2a(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrCoupling2a = new MPConstraint[enfStPairs.size()];
+        int[] constrCoupling2a = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrCoupling2a[i] = solver.makeConstraint(-INFINITY, m-1, "coupling2a_" + i);
-            constrCoupling2a[i].setCoefficient(v.h2coup[i], m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrCoupling2a[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfPrevSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrCoupling2a[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfPrevSection(params, sections, p));
-                }
-            }
+            constrCoupling2a[i] = block.makeConstraint(-INFINITY, m-1, "coupling2a_", i);
+            block.setCoefficient(constrCoupling2a[i], v.h2coup[i], m);
+            setCouplingCoefficients(block, constrCoupling2a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), 1, possibleChains, adjacency, v, params, sections);
+            setCouplingCoefficients(block, constrCoupling2a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), -1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectCoupling2b(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectCoupling2b(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrCoupling2b = new MPConstraint[enfStPairs.size()];
+        int[] constrCoupling2b = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrCoupling2b[i] = solver.makeConstraint(-INFINITY, 0, "coupling2b_" + i);
-            constrCoupling2b[i].setCoefficient(v.h2coup[i], -m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrCoupling2b[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfPrevSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getSecond()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrCoupling2b[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfPrevSection(params, sections, p));
-                }
-            }
+            constrCoupling2b[i] = block.makeConstraint(-INFINITY, 0, "coupling2b_", i);
+            block.setCoefficient(constrCoupling2b[i], v.h2coup[i], -m);
+            setCouplingCoefficients(block, constrCoupling2b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), -1, possibleChains, adjacency, v, params, sections);
+            setCouplingCoefficients(block, constrCoupling2b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), 1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectCoupling3(MPSolver solver, Variables v, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
-        MPConstraint[] constrCoupling3 = new MPConstraint[enfStPairs.size()];
+    private static void detectCoupling3(ConstraintBlock block, Variables v, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
+        int[] constrCoupling3 = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrCoupling3[i] = solver.makeConstraint(0, 0, "coupling3_" + i);
-            constrCoupling3[i].setCoefficient(v.h1coup[i], 1);
-            constrCoupling3[i].setCoefficient(v.h2coup[i], 1);
-            constrCoupling3[i].setCoefficient(v.coup[i], -1);
+            constrCoupling3[i] = block.makeConstraint(0, 0, "coupling3_", i);
+            block.setCoefficient(constrCoupling3[i], v.h1coup[i], 1);
+            block.setCoefficient(constrCoupling3[i], v.h2coup[i], 1);
+            block.setCoefficient(constrCoupling3[i], v.coup[i], -1);
         }
     }
 
-    private static void detectDecoupling1a(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectDecoupling1a(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrDecoupling1a = new MPConstraint[enfStPairs.size()];
+        int[] constrDecoupling1a = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrDecoupling1a[i] = solver.makeConstraint(-INFINITY, m-1, "decoupling1a_" + i);
-            constrDecoupling1a[i].setCoefficient(v.h1decoup[i], m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrDecoupling1a[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfNextSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrDecoupling1a[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfNextSection(params, sections, p));
-                }
-            }
+            constrDecoupling1a[i] = block.makeConstraint(-INFINITY, m-1, "decoupling1a_", i);
+            block.setCoefficient(constrDecoupling1a[i], v.h1decoup[i], m);
+            setDecouplingCoefficients(block, constrDecoupling1a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), -1, possibleChains, adjacency, v, params, sections);
+            setDecouplingCoefficients(block, constrDecoupling1a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), 1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectDecoupling1b(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectDecoupling1b(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrDecoupling1b = new MPConstraint[enfStPairs.size()];
+        int[] constrDecoupling1b = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrDecoupling1b[i] = solver.makeConstraint(-INFINITY, 0, "decoupling1b_" + i);
-            constrDecoupling1b[i].setCoefficient(v.h1decoup[i], -m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrDecoupling1b[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfNextSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrDecoupling1b[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfNextSection(params, sections, p));
-                }
-            }
+            constrDecoupling1b[i] = block.makeConstraint(-INFINITY, 0, "decoupling1b_", i);
+            block.setCoefficient(constrDecoupling1b[i], v.h1decoup[i], -m);
+            setDecouplingCoefficients(block, constrDecoupling1b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), 1, possibleChains, adjacency, v, params, sections);
+            setDecouplingCoefficients(block, constrDecoupling1b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), -1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectDecoupling2a(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectDecoupling2a(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrDecoupling2a = new MPConstraint[enfStPairs.size()];
+        int[] constrDecoupling2a = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrDecoupling2a[i] = solver.makeConstraint(-INFINITY, m -1, "decoupling2a_" + i);
-            constrDecoupling2a[i].setCoefficient(v.h2decoup[i], m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrDecoupling2a[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfNextSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrDecoupling2a[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfNextSection(params, sections, p));
-                }
-            }
+            constrDecoupling2a[i] = block.makeConstraint(-INFINITY, m -1, "decoupling2a_", i);
+            block.setCoefficient(constrDecoupling2a[i], v.h2decoup[i], m);
+            setDecouplingCoefficients(block, constrDecoupling2a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), 1, possibleChains, adjacency, v, params, sections);
+            setDecouplingCoefficients(block, constrDecoupling2a[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), -1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectDecoupling2b(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, IpSolverParams params, List<RotaziunSection> sections,
+    private static void detectDecoupling2b(ConstraintBlock block, ChainList possibleChains, ChainAdjacency adjacency, Variables v, IpSolverParams params, List<RotaziunSection> sections,
         List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int m) {
-        MPConstraint[] constrDecoupling2b = new MPConstraint[enfStPairs.size()];
+        int[] constrDecoupling2b = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrDecoupling2b[i] = solver.makeConstraint(-INFINITY, 0, "decoupling2b_" + i);
-            constrDecoupling2b[i].setCoefficient(v.h2decoup[i], -m);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getSecond().getId())){
-                    constrDecoupling2b[i].setCoefficient(v.xMap.get(getKey(p)), -getIdOfNextSection(params, sections, p));
-                }
-                if(Objects.equals(sections.get(p.getFirst()).getId(), enfStPairs.get(i).getFirst().getId())){
-                    constrDecoupling2b[i].setCoefficient(v.xMap.get(getKey(p)), getIdOfNextSection(params, sections, p));
-                }
-            }
+            constrDecoupling2b[i] = block.makeConstraint(-INFINITY, 0, "decoupling2b_", i);
+            block.setCoefficient(constrDecoupling2b[i], v.h2decoup[i], -m);
+            setDecouplingCoefficients(block, constrDecoupling2b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getSecond()), -1, possibleChains, adjacency, v, params, sections);
+            setDecouplingCoefficients(block, constrDecoupling2b[i], params.getSectionIdxMap().get(enfStPairs.get(i).getFirst()), 1, possibleChains, adjacency, v, params, sections);
         }
     }
 
-    private static void detectDecoupling3(MPSolver solver, Variables v, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
-        MPConstraint[] constrDecoupling3 = new MPConstraint[enfStPairs.size()];
+    private static void detectDecoupling3(ConstraintBlock block, Variables v, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs) {
+        int[] constrDecoupling3 = new int[enfStPairs.size()];
         for (int i = 0; i < enfStPairs.size(); i++) {
-            constrDecoupling3[i] = solver.makeConstraint(0, 0, "decoupling3_" + i);
-            constrDecoupling3[i].setCoefficient(v.h1decoup[i], 1);
-            constrDecoupling3[i].setCoefficient(v.h2decoup[i], 1);
-            constrDecoupling3[i].setCoefficient(v.decoup[i], -1);
+            constrDecoupling3[i] = block.makeConstraint(0, 0, "decoupling3_", i);
+            block.setCoefficient(constrDecoupling3[i], v.h1decoup[i], 1);
+            block.setCoefficient(constrDecoupling3[i], v.h2decoup[i], 1);
+            block.setCoefficient(constrDecoupling3[i], v.decoup[i], -1);
         }
     }
 
-    private static Integer getIdOfNextSection(IpSolverParams params, List<RotaziunSection> sections, Pair<Integer, Integer> p) {
-        return params.getSectionToDecouplingIdMap().get(sections.get(p.getSecond()).getId());
+    // coupling rows: every chain into the section, weighted with the coupling id of its previous section
+    private static void setCouplingCoefficients(ConstraintBlock block, int row, int sectionIdx, int sign, ChainList possibleChains, ChainAdjacency adjacency, Variables v,
+        IpSolverParams params, List<RotaziunSection> sections) {
+        adjacency.forEachIncomingChain(sectionIdx, chainIdx ->
+            block.setCoefficient(row, v.x[chainIdx], sign * getIdOfPrevSection(params, sections, possibleChains.getFrom(chainIdx))));
+    }
+
+    // decoupling rows: every chain out of the section, weighted with the decoupling id of its next section
+    private static void setDecouplingCoefficients(ConstraintBlock block, int row, int sectionIdx, int sign, ChainList possibleChains, ChainAdjacency adjacency, Variables v,
+        IpSolverParams params, List<RotaziunSection> sections) {
+        adjacency.forEachOutgoingChain(sectionIdx, chainIdx ->
+            block.setCoefficient(row, v.x[chainIdx], sign * getIdOfNextSection(params, sections, possibleChains.getTo(chainIdx))));
+    }
+
+    private static Integer getIdOfNextSection(IpSolverParams params, List<RotaziunSection> sections, int toIdx) {
+        return params.getSectionToDecouplingIdMap().get(sections.get(toIdx).getId());
     }
 
-    private static Integer getIdOfPrevSection(IpSolverParams params, List<RotaziunSection> sections, Pair<Integer, Integer> p) {
-        return params.getSectionToCouplingIdMap().get(sections.get(p.getFirst()).getId());
+    private static Integer getIdOfPrevSection(IpSolverParams params, List<RotaziunSection> sections, int fromIdx) {
+        return params.getSectionToCouplingIdMap().get(sections.get(fromIdx).getId());
     }
 
     private static boolean isCouplingProhibitedAtStation(IpSolverParams params, List<Pair<RotaziunSection, RotaziunSection>> enfStPairs, int e) {
@@ -1,9 +1,8 @@
 package ch.sbb.simba.backend.mikado.solver.ip.constraints;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
-
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -14,21 +13,22 @@ public final class ConstrMaintenance {
     private ConstrMaintenance() {
     }
 
-    public static void makeMaintenanceConstraint(Variables v, IpSolverParams params) {
+    public static void makeMaintenanceConstraint(IpModel model, Variables v, IpSolverParams params) {
 
+        int numOfSections = params.getNumOfSections();
         int maintenanceWindowCount = params.getMaintenanceWindows().size();
         int tol = computeToleranceForPlacementBound(params, maintenanceWindowCount);
         log.info("Equal Spacing: " + numOfSections/params.getMaintenanceWindows().size());
         log.info("Spacing Tolerance: " + tol);
 
         for (int i=1; i<params.getMaintenanceWindows().size(); i++) {
-            v.u[i].setBounds((int) ((double) numOfSections /maintenanceWindowCount)*i - tol,(int) ((double) numOfSections /maintenanceWindowCount)*i + tol);
+            model.setBounds(v.u[i], (int) ((double) numOfSections /maintenanceWindowCount)*i - tol,(int) ((double) numOfSections /maintenanceWindowCount)*i + tol);
         }
 
     }
 
     private static int computeToleranceForPlacementBound(IpSolverParams params, int maintenanceWindowCount) {
-        return Math.max(MIN_ABSOLUTE_TOLERANCE,(int) (((double) numOfSections /maintenanceWindowCount)*params.getMaintenanceWindowDistributionTolerance()));
+        return Math.max(MIN_ABSOLUTE_TOLERANCE,(int) (((double) params.getNumOfSections() /maintenanceWindowCount)*params.getMaintenanceWindowDistributionTolerance()));
     }
 
 }
\ No newline at end of file
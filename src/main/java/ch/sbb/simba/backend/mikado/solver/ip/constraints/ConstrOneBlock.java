@@ -1,48 +1,162 @@
 package ch.sbb.simba.backend.mikado.solver.ip.constraints;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.INFINITY;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isOneBlockModelledAsCircuit;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAdjacency;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainComponents;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
-import com.google.ortools.linearsolver.MPConstraint;
-import com.google.ortools.linearsolver.MPSolver;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
+/*
+ * All sections form one block
+ *  -> MTZ (CBC and linear solver wrapper): placement u_i per section, chained sections must have increasing placements
+ *  -> native CP-SAT: the chosen section chains form one circuit over all sections; placements only for maintenance,
+ *     ordered by rows that are only enforced if the chain is chosen
+ *  -> subtour cuts (CBC): no rows upfront; the blocks of a solution are cut off and the model is solved again (see IpSolver)
+ * If the possible chains split into several components (see ChainComponents), every component forms one block of its own (first section
+ * of the component with placement one, one circuit per component); the blocks are joined afterwards (see BlockPatching).
+ */
 public final class ConstrOneBlock {
 
     private ConstrOneBlock() {
     }
 
-    public static void makeSubTourEliminationConstraint(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v) {
-        firstSectionHasPlacementOne(v);
-        allSectionsExceptFirstHavePlacementGreaterOne(v);
-        chainedSectionsMustHavePlacementDifferenceOne(solver, possibleChains, v);
+    // circuits: one block per component, for the circuit of the component (unused if oneBlock is not modelled as circuit)
+    public static void makeSubTourEliminationConstraint(IpModel model, ConstraintBlock block, List<ConstraintBlock> circuits, ChainList possibleChains,
+        ChainComponents components, Variables v, IpSolverParams params) {
+        if (isOneBlockModelledAsCircuit(params)) {
+            chosenChainsFormOneCircuitPerComponent(model, circuits, possibleChains, components, v);
+            if (params.getStageParams().isWithMaintenance()) {
+                firstSectionsHavePlacementOne(model, v, components);
+                allSectionsExceptFirstHavePlacementGreaterOne(model, v, components);
+                chosenChainsHaveIncreasingPlacement(block, possibleChains, components, v);
+            }
+            return;
+        }
+        firstSectionsHavePlacementOne(model, v, components);
+        allSectionsExceptFirstHavePlacementGreaterOne(model, v, components);
+        chainedSectionsMustHavePlacementDifferenceOne(block, possibleChains, components, v, params.getNumOfSections());
+    }
+
+    // first section of every component (section 0 if the chains do not split)
+    private static void firstSectionsHavePlacementOne(IpModel model, Variables v, ChainComponents components) {
+        for (int c = 0; c < components.getNumOfComponents(); c++) {
+            model.setBounds(v.u[components.getSectionsOfComponent(c)[0]], 1, 1);
+        }
+    }
+
+    private static void allSectionsExceptFirstHavePlacementGreaterOne(IpModel model, Variables v, ChainComponents components) {
+        for (int i = 0; i < v.u.length; i++) {
+            if (!isFirstSectionOfComponent(i, components)) {
+                model.setLb(v.u[i], 2);
+            }
+        }
+    }
+
+    private static void chainedSectionsMustHavePlacementDifferenceOne(ConstraintBlock block, ChainList possibleChains, ChainComponents components,
+        Variables v, int numOfSections) {
+        int[] constrOneBlock = new int[possibleChains.size()];
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            int i = possibleChains.getFrom(idx);
+            int j = possibleChains.getTo(idx);
+            if (i != j && !isFirstSectionOfComponent(i, components) && !isFirstSectionOfComponent(j, components)) {
+                constrOneBlock[idx] = block.makeConstraint(-INFINITY, numOfSections -2, "1Block_", i, j);
+                block.setCoefficient(constrOneBlock[idx], v.x[idx], numOfSections -1);
+                block.setCoefficient(constrOneBlock[idx], v.u[i], 1);
+                block.setCoefficient(constrOneBlock[idx], v.u[j], -1);
+            }
+        }
+    }
+
+    /*
+     * the nodes of a circuit are the positions of the sections in their component; a chain of a section to itself would close a block of one
+     * section (in the circuit: skip the section), only possible in a component of a single section
+     */
+    private static void chosenChainsFormOneCircuitPerComponent(IpModel model, List<ConstraintBlock> circuits, ChainList possibleChains,
+        ChainComponents components, Variables v) {
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            int i = possibleChains.getFrom(idx);
+            int j = possibleChains.getTo(idx);
+            int component = components.getComponent(i);
+            if (i == j && components.getSectionsOfComponent(component).length > 1) {
+                model.setBounds(v.x[idx], 0, 0);
+            } else {
+                circuits.get(component).addCircuitArc(components.getPositionInComponent(i), components.getPositionInComponent(j), v.x[idx]);
+            }
+        }
+    }
+
+    // same placements as the MTZ rows (u_j >= u_i + 1 for a chosen chain), without big-M
+    private static void chosenChainsHaveIncreasingPlacement(ConstraintBlock block, ChainList possibleChains, ChainComponents components, Variables v) {
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            int i = possibleChains.getFrom(idx);
+            int j = possibleChains.getTo(idx);
+            if (i != j && !isFirstSectionOfComponent(i, components) && !isFirstSectionOfComponent(j, components)) {
+                int row = block.makeConstraint(1, INFINITY, "1Block_", i, j);
+                block.setCoefficient(row, v.u[j], 1);
+                block.setCoefficient(row, v.u[i], -1);
+                block.setEnforcementLiteral(row, v.x[idx]);
+            }
+        }
     }
 
-    private static void firstSectionHasPlacementOne(Variables v) {
-        v.u[0].setBounds(1,1);
+    private static boolean isFirstSectionOfComponent(int sectionIdx, ChainComponents components) {
+        return components.getPositionInComponent(sectionIdx) == 0;
     }
 
-    private static void allSectionsExceptFirstHavePlacementGreaterOne(Variables v) {
-        for (int i = 1; i < numOfSections; i++) {
-            v.u[i].setLb(2);
+    // blocks (cycles of chained sections) of a solution, as section indices in chain order
+    public static List<int[]> getBlocksFromSolution(ChainList possibleChains, Variables v, double[] solution, int numOfSections) {
+        int[] nextSection = new int[numOfSections];
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            if (solution[v.x[idx]] == 1) {
+                nextSection[possibleChains.getFrom(idx)] = possibleChains.getTo(idx);
+            }
         }
+
+        List<int[]> blocks = new ArrayList<>();
+        boolean[] visited = new boolean[numOfSections];
+        int[] block = new int[numOfSections];
+        for (int start = 0; start < numOfSections; start++) {
+            int length = 0;
+            for (int i = start; !visited[i]; i = nextSection[i]) {
+                visited[i] = true;
+                block[length++] = i;
+            }
+            if (length > 0) {
+                blocks.add(Arrays.copyOf(block, length));
+            }
+        }
+        return blocks;
     }
 
-    private static void chainedSectionsMustHavePlacementDifferenceOne(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v) {
-        MPConstraint[] constrOneBlock = new MPConstraint[possibleChains.size()];
-        int idx = 0;
-        for (Pair<Integer, Integer> chain : possibleChains) {
-            if (!Objects.equals(chain.getFirst(), chain.getSecond()) && chain.getFirst() > 0 && chain.getSecond() > 0) {
-                constrOneBlock[idx] = solver.makeConstraint(-INFINITY, numOfSections -2, "1Block_" + chain.getFirst() + "_" + chain.getSecond());
-                constrOneBlock[idx].setCoefficient(v.xMap.get(getKey(chain)), numOfSections -1);
-                constrOneBlock[idx].setCoefficient(v.u[chain.getFirst()], 1);
-                constrOneBlock[idx].setCoefficient(v.u[chain.getSecond()], -1);
+    /*
+     * subtour cut per block S: sum of x_i,j with i, j in S <= |S| - 1, so the sections of S can not form a block on their own again
+     */
+    public static void addSubtourCuts(ConstraintBlock block, List<int[]> blocks, int round, ChainList possibleChains, ChainAdjacency adjacency, Variables v) {
+        boolean[] isInBlock = new boolean[adjacency.getNumOfSections()];
+        for (int b = 0; b < blocks.size(); b++) {
+            int[] sectionsOfBlock = blocks.get(b);
+            for (int i : sectionsOfBlock) {
+                isInBlock[i] = true;
+            }
+            int row = block.makeConstraint(-INFINITY, sectionsOfBlock.length - 1, "subtour_", round, b);
+            for (int i : sectionsOfBlock) {
+                adjacency.forEachOutgoingChain(i, idx -> {
+                    if (isInBlock[possibleChains.getTo(idx)]) {
+                        block.setCoefficient(row, v.x[idx], 1);
+                    }
+                });
+            }
+            for (int i : sectionsOfBlock) {
+                isInBlock[i] = false;
             }
-            idx++;
         }
     }
 
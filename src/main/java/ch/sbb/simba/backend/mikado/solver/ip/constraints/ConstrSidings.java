@@ -1,21 +1,17 @@
 package ch.sbb.simba.backend.mikado.solver.ip.constraints;
 
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.INFINITY;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
 import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.mapToPositiveTimeDifference;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.getEmptyTripDuration;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.getIdleTime;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.hasChainAnEmptyTrip;
-import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSidingVariableNeeded;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
-import com.google.ortools.linearsolver.MPConstraint;
-import com.google.ortools.linearsolver.MPSolver;
+import ch.sbb.simba.backend.mikado.solver.ip.model.ConstraintBlock;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import java.util.Map;
 
 public final class ConstrSidings {
 
@@ -25,32 +21,32 @@ public final class ConstrSidings {
     private ConstrSidings() {
     }
 
-    public static void makeSidingConstraints(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
+    public static void makeSidingConstraints(ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
 
-        restrictSidingVariables(solver, possibleChains, v, sections, params);
-        detectSiding(solver, possibleChains, v, sections, params);
-        limitSidingSitesCapacityAtSidingEvaluationTime(solver, possibleChains, v, sections, params);
+        restrictSidingVariables(block, possibleChains, attributes, v);
+        detectSiding(block, possibleChains, attributes, v);
+        limitSidingSitesCapacityAtSidingEvaluationTime(block, possibleChains, attributes, v, sections, params);
 
     }
 
     // set sidingVariables s_sart/ s_end to 0 if chain is not active
-    private static void restrictSidingVariables(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
+    private static void restrictSidingVariables(ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v) {
 
-        MPConstraint[] constraintSidingResActiveChainA = new MPConstraint[possibleChains.size()];
-        MPConstraint[] constraintSidingResActiveChainB = new MPConstraint[possibleChains.size()];
+        int[] constraintSidingResActiveChainA = new int[possibleChains.size()];
+        int[] constraintSidingResActiveChainB = new int[possibleChains.size()];
 
         int idx = 0;
-        for (Pair<Integer, Integer> p : possibleChains) {
-            if(isSidingVariableNeeded(params, sections, p)) {
+        for (int chainIdx = 0; chainIdx < possibleChains.size(); chainIdx++) {
+            if(attributes.isSidingVariableNeeded(chainIdx)) {
 
-                constraintSidingResActiveChainA[idx] = solver.makeConstraint(-INFINITY, 0, "sidingZeroA_" + idx);
-                constraintSidingResActiveChainA[idx].setCoefficient(v.sMap.get(getKey(p)).getFirst(), 1);
-                constraintSidingResActiveChainA[idx].setCoefficient(v.xMap.get(getKey(p)), -1);
+                constraintSidingResActiveChainA[idx] = block.makeConstraint(-INFINITY, 0, "sidingZeroA_", idx);
+                block.setCoefficient(constraintSidingResActiveChainA[idx], v.sFirst[chainIdx], 1);
+                block.setCoefficient(constraintSidingResActiveChainA[idx], v.x[chainIdx], -1);
 
-                if(hasChainAnEmptyTrip(sections, p)) {
-                    constraintSidingResActiveChainB[idx] = solver.makeConstraint(-INFINITY, 0, "sidingZeroB_" + idx);
-                    constraintSidingResActiveChainB[idx].setCoefficient(v.sMap.get(getKey(p)).getSecond(), 1);
-                    constraintSidingResActiveChainB[idx].setCoefficient(v.xMap.get(getKey(p)), -1);
+                if(attributes.hasEmptyTrip(chainIdx)) {
+                    constraintSidingResActiveChainB[idx] = block.makeConstraint(-INFINITY, 0, "sidingZeroB_", idx);
+                    block.setCoefficient(constraintSidingResActiveChainB[idx], v.sSecond[chainIdx], 1);
+                    block.setCoefficient(constraintSidingResActiveChainB[idx], v.x[chainIdx], -1);
                 }
 
                 idx++;
@@ -64,27 +60,27 @@ public final class ConstrSidings {
     // constraintSLb
     // -SUM_d {sl_i,j,d} + m*x_i,j <= -isSL_i,j + m
 
-    private static void detectSiding(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
+    private static void detectSiding(ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v) {
 
-        MPConstraint[] constraintSLa = new MPConstraint[possibleChains.size()];
-        MPConstraint[] constraintSLb = new MPConstraint[possibleChains.size()];
+        int[] constraintSLa = new int[possibleChains.size()];
+        int[] constraintSLb = new int[possibleChains.size()];
 
         int idx = 0;
-        for (Pair<Integer, Integer> p : possibleChains) {
-            if(isSidingVariableNeeded(params, sections, p)) {
-
-                constraintSLa[idx] = solver.makeConstraint(-INFINITY, M_DETECT_SIDINGS + 1, "detectSidingA_" + idx);
-                constraintSLa[idx].setCoefficient(v.xMap.get(getKey(p)), M_DETECT_SIDINGS);
-                constraintSLa[idx].setCoefficient(v.sMap.get(getKey(p)).getFirst(), 1);
-                if(hasChainAnEmptyTrip(sections, p)){
-                    constraintSLa[idx].setCoefficient(v.sMap.get(getKey(p)).getSecond(), 1);
+        for (int chainIdx = 0; chainIdx < possibleChains.size(); chainIdx++) {
+            if(attributes.isSidingVariableNeeded(chainIdx)) {
+
+                constraintSLa[idx] = block.makeConstraint(-INFINITY, M_DETECT_SIDINGS + 1, "detectSidingA_", idx);
+                block.setCoefficient(constraintSLa[idx], v.x[chainIdx], M_DETECT_SIDINGS);
+                block.setCoefficient(constraintSLa[idx], v.sFirst[chainIdx], 1);
+                if(attributes.hasEmptyTrip(chainIdx)){
+                    block.setCoefficient(constraintSLa[idx], v.sSecond[chainIdx], 1);
                 }
 
-                constraintSLb[idx] = solver.makeConstraint(-INFINITY, M_DETECT_SIDINGS - 1, "detectSidingB_" + idx);
-                constraintSLb[idx].setCoefficient(v.xMap.get(getKey(p)), M_DETECT_SIDINGS);
-                constraintSLb[idx].setCoefficient(v.sMap.get(getKey(p)).getFirst(), -1);
-                if(hasChainAnEmptyTrip(sections, p)) {
-                    constraintSLb[idx].setCoefficient(v.sMap.get(getKey(p)).getSecond(), -1);
+                constraintSLb[idx] = block.makeConstraint(-INFINITY, M_DETECT_SIDINGS - 1, "detectSidingB_", idx);
+                block.setCoefficient(constraintSLb[idx], v.x[chainIdx], M_DETECT_SIDINGS);
+                block.setCoefficient(constraintSLb[idx], v.sFirst[chainIdx], -1);
+                if(attributes.hasEmptyTrip(chainIdx)) {
+                    block.setCoefficient(constraintSLb[idx], v.sSecond[chainIdx], -1);
                 }
 
                 idx++;
@@ -93,37 +89,48 @@ public final class ConstrSidings {
 
     }
 
-    private static void limitSidingSitesCapacityAtSidingEvaluationTime(MPSolver solver, List<Pair<Integer, Integer>> possibleChains, Variables v, List<RotaziunSection> sections, IpSolverParams params) {
+    // one capacity row per siding station, every siding variable is added to the row of its siding station in a single pass over the chains
+    private static void limitSidingSitesCapacityAtSidingEvaluationTime(ConstraintBlock block, ChainList possibleChains, ChainAttributes attributes, Variables v,
+        List<RotaziunSection> sections, IpSolverParams params) {
 
-        MPConstraint[] constraintSidingCapacity = new MPConstraint[params.getSidingCapacityMap().size()];
+        if (params.getSidingCapacityMap().isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> constraintSidingCapacity = new HashMap<>();
         int idx = 0;
         for (Long stationID : params.getSidingCapacityMap().keySet()) {
+            constraintSidingCapacity.put(stationID, block.makeConstraint(-INFINITY, params.getSidingCapacityMap().get(stationID), "sidingCap_", idx));
+            idx++;
+        }
 
-            constraintSidingCapacity[idx] = solver.makeConstraint(-INFINITY, params.getSidingCapacityMap().get(stationID), "sidingCap_" + idx);
-            for (Pair<Integer, Integer> p : possibleChains) {
-                if(isSidingVariableNeeded(params, sections, p)) {
-                    if (Objects.equals(sections.get(p.getFirst()).getToStation().getId(), stationID) && isInSidingEvaluationTime(sections, p, params, false)) {
-                        constraintSidingCapacity[idx].setCoefficient(v.sMap.get(getKey(p)).getFirst(), params.getTrainLength());
-                    }
-                    if (hasChainAnEmptyTrip(sections, p) && Objects.equals(sections.get(p.getSecond()).getFromStation().getId(), stationID) && isInSidingEvaluationTime(sections, p, params, true)) {
-                        constraintSidingCapacity[idx].setCoefficient(v.sMap.get(getKey(p)).getSecond(), params.getTrainLength());
+        for (int chainIdx = 0; chainIdx < possibleChains.size(); chainIdx++) {
+            if(attributes.isSidingVariableNeeded(chainIdx)) {
+                int fromIdx = possibleChains.getFrom(chainIdx);
+                int toIdx = possibleChains.getTo(chainIdx);
+                Integer firstSidingRow = constraintSidingCapacity.get(sections.get(fromIdx).getToStation().getId());
+                if (firstSidingRow != null && isInSidingEvaluationTime(sections, fromIdx, chainIdx, attributes, params, false)) {
+                    block.setCoefficient(firstSidingRow, v.sFirst[chainIdx], params.getTrainLength());
+                }
+                if (attributes.hasEmptyTrip(chainIdx)) {
+                    Integer secondSidingRow = constraintSidingCapacity.get(sections.get(toIdx).getFromStation().getId());
+                    if (secondSidingRow != null && isInSidingEvaluationTime(sections, fromIdx, chainIdx, attributes, params, true)) {
+                        block.setCoefficient(secondSidingRow, v.sSecond[chainIdx], params.getTrainLength());
                     }
                 }
             }
-            idx++;
-
         }
     }
 
 
-    private static boolean isInSidingEvaluationTime(List<RotaziunSection> sections, Pair<Integer, Integer> p, IpSolverParams params, boolean sidingIsBeforeSection) {
+    private static boolean isInSidingEvaluationTime(List<RotaziunSection> sections, int fromIdx, int chainIdx, ChainAttributes attributes, IpSolverParams params,
+        boolean sidingIsBeforeSection) {
 
-        int durationToSidingEvaluationTime = mapToPositiveTimeDifference(params.getSidingEvaluationTime() - sections.get(p.getFirst()).getArrival());
+        int durationToSidingEvaluationTime = mapToPositiveTimeDifference(params.getSidingEvaluationTime() - sections.get(fromIdx).getArrival());
         if (sidingIsBeforeSection){
-            int emptyTripDuration = getEmptyTripDuration(sections.get(p.getFirst()), sections.get(p.getSecond()), params.getDurationMap());
-            durationToSidingEvaluationTime = mapToPositiveTimeDifference(params.getSidingEvaluationTime() - sections.get(p.getFirst()).getArrival() - emptyTripDuration);
+            durationToSidingEvaluationTime = mapToPositiveTimeDifference(params.getSidingEvaluationTime() - sections.get(fromIdx).getArrival() - attributes.getEmptyTripDuration(chainIdx));
         }
-        return durationToSidingEvaluationTime < getIdleTime(sections.get(p.getFirst()), sections.get(p.getSecond()), params);
+        return durationToSidingEvaluationTime < attributes.getIdleTime(chainIdx);
 
     }
 
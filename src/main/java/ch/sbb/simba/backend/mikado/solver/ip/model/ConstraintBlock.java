@@ -0,0 +1,185 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import java.util.Arrays;
+
+/*
+ * Rows of one constraint family of an IpModel, filled in primitive arrays
+ *  -> rows: lower bound, upper bound (and name) by row index within the block
+ *  -> coefficients: (row, variable, coefficient) in the order they are set; a variable is set at most once per row
+ *  -> enforcement literals (optional, CP-SAT only): the row only has to hold if the 0/1 literal variable is 1
+ *  -> circuit arcs (optional, CP-SAT only): (tail, head, literal) arcs of one circuit constraint over the sections, the selected arcs form one cycle
+ * Every block is filled by one thread only, so the constraint families of a model can be filled in parallel.
+ */
+public final class ConstraintBlock {
+
+    private final ModelNames names;
+
+    private int numOfRows;
+    private double[] lowerBounds = new double[16];
+    private double[] upperBounds = new double[16];
+
+    private int numOfCoefficients;
+    private int[] coefficientRows = new int[16];
+    private int[] coefficientVariables = new int[16];
+    private double[] coefficients = new double[16];
+
+    private int[] enforcementLiterals; // row -> literal variable, created on first use
+
+    private int numOfCircuitArcs;
+    private int[] circuitTails = new int[0];
+    private int[] circuitHeads = new int[0];
+    private int[] circuitLiterals = new int[0];
+
+    ConstraintBlock(boolean withNames) {
+        this.names = withNames ? new ModelNames() : null;
+    }
+
+    // lb <= row <= ub, named prefix + first
+    public int makeConstraint(double lb, double ub, String prefix, int first) {
+        return makeConstraint(lb, ub, prefix, first, ModelNames.NO_INDEX);
+    }
+
+    // lb <= row <= ub, named prefix + first + "_" + second
+    public int makeConstraint(double lb, double ub, String prefix, int first, int second) {
+        if (numOfRows == lowerBounds.length) {
+            lowerBounds = Arrays.copyOf(lowerBounds, 2 * numOfRows);
+            upperBounds = Arrays.copyOf(upperBounds, 2 * numOfRows);
+        }
+        lowerBounds[numOfRows] = lb;
+        upperBounds[numOfRows] = ub;
+        if (names != null) {
+            names.set(numOfRows, prefix, first, second);
+        }
+        return numOfRows++;
+    }
+
+    // row of the given block with its bounds and name, without coefficients (see IpModelDecomposition)
+    int copyRow(ConstraintBlock block, int row) {
+        int copy = makeConstraint(block.getLowerBound(row), block.getUpperBound(row), null, ModelNames.NO_INDEX);
+        if (names != null) {
+            names.copy(copy, block.names, row);
+        }
+        return copy;
+    }
+
+    public void setCoefficient(int row, int variable, double coefficient) {
+        if (numOfCoefficients == coefficients.length) {
+            coefficientRows = Arrays.copyOf(coefficientRows, 2 * numOfCoefficients);
+            coefficientVariables = Arrays.copyOf(coefficientVariables, 2 * numOfCoefficients);
+            coefficients = Arrays.copyOf(coefficients, 2 * numOfCoefficients);
+        }
+        coefficientRows[numOfCoefficients] = row;
+        coefficientVariables[numOfCoefficients] = variable;
+        coefficients[numOfCoefficients++] = coefficient;
+    }
+
+    // the row only has to hold if the 0/1 variable literal is 1
+    public void setEnforcementLiteral(int row, int literal) {
+        if (enforcementLiterals == null) {
+            enforcementLiterals = new int[0];
+        }
+        if (row >= enforcementLiterals.length) {
+            int oldLength = enforcementLiterals.length;
+            enforcementLiterals = Arrays.copyOf(enforcementLiterals, Math.max(lowerBounds.length, row + 1));
+            Arrays.fill(enforcementLiterals, oldLength, enforcementLiterals.length, IpModel.NO_VARIABLE);
+        }
+        enforcementLiterals[row] = literal;
+    }
+
+    // arc of the circuit constraint of this block, selected if the 0/1 variable literal is 1
+    public void addCircuitArc(int tail, int head, int literal) {
+        if (numOfCircuitArcs == circuitTails.length) {
+            int capacity = Math.max(16, 2 * numOfCircuitArcs);
+            circuitTails = Arrays.copyOf(circuitTails, capacity);
+            circuitHeads = Arrays.copyOf(circuitHeads, capacity);
+            circuitLiterals = Arrays.copyOf(circuitLiterals, capacity);
+        }
+        circuitTails[numOfCircuitArcs] = tail;
+        circuitHeads[numOfCircuitArcs] = head;
+        circuitLiterals[numOfCircuitArcs++] = literal;
+    }
+
+    public int getNumOfRows() {
+        return numOfRows;
+    }
+
+    public int getNumOfCoefficients() {
+        return numOfCoefficients;
+    }
+
+    public int getNumOfCircuitArcs() {
+        return numOfCircuitArcs;
+    }
+
+    // rows or arcs that only CP-SAT can represent
+    boolean hasCpSatOnlyConstraints() {
+        return enforcementLiterals != null || numOfCircuitArcs > 0;
+    }
+
+    double getLowerBound(int row) {
+        return lowerBounds[row];
+    }
+
+    double getUpperBound(int row) {
+        return upperBounds[row];
+    }
+
+    // null if the model is built without names
+    String getName(int row) {
+        return names != null ? names.get(row) : null;
+    }
+
+    // IpModel.NO_VARIABLE if the row always has to hold
+    int getEnforcementLiteral(int row) {
+        return enforcementLiterals != null && row < enforcementLiterals.length ? enforcementLiterals[row] : IpModel.NO_VARIABLE;
+    }
+
+    int getCircuitTail(int arc) {
+        return circuitTails[arc];
+    }
+
+    int getCircuitHead(int arc) {
+        return circuitHeads[arc];
+    }
+
+    int getCircuitLiteral(int arc) {
+        return circuitLiterals[arc];
+    }
+
+    /*
+     * coefficients grouped by row (counting sort, stable within a row): the coefficients of row r are
+     * sortedCoefficients[rowStart[r]] .. sortedCoefficients[rowStart[r+1]-1], with rowStart = computeRowStarts()
+     */
+    int[] computeRowStarts() {
+        int[] rowStart = new int[numOfRows + 1];
+        for (int k = 0; k < numOfCoefficients; k++) {
+            rowStart[coefficientRows[k] + 1]++;
+        }
+        for (int row = 0; row < numOfRows; row++) {
+            rowStart[row + 1] += rowStart[row];
+        }
+        return rowStart;
+    }
+
+    int[] sortCoefficientsByRow(int[] rowStart) {
+        int[] sortedCoefficients = new int[numOfCoefficients];
+        int[] next = rowStart.clone();
+        for (int k = 0; k < numOfCoefficients; k++) {
+            sortedCoefficients[next[coefficientRows[k]]++] = k;
+        }
+        return sortedCoefficients;
+    }
+
+    int getCoefficientRow(int k) {
+        return coefficientRows[k];
+    }
+
+    int getCoefficientVariable(int k) {
+        return coefficientVariables[k];
+    }
+
+    double getCoefficient(int k) {
+        return coefficients[k];
+    }
+
+}
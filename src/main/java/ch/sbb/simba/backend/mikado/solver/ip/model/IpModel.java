@@ -0,0 +1,147 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Integer program filled on the Java side before it is handed to the solver (see IpModelLoader)
+ *  -> variables are int indices with bounds and objective coefficient in primitive arrays
+ *  -> constraints are grouped in blocks (one per constraint family), the rows of all blocks are numbered in block order
+ *  -> names are optional; without names no name string is ever built
+ *  -> hints are optional start values of variables (e.g. the solution of the previous stage)
+ * The objective is always minimized.
+ */
+public final class IpModel {
+
+    // variable index of a variable that does not exist (e.g. siding variables of chains without siding)
+    public static final int NO_VARIABLE = -1;
+
+    private final boolean withNames;
+    private final ModelNames variableNames;
+
+    private int numOfVariables;
+    private double[] lowerBounds = new double[16];
+    private double[] upperBounds = new double[16];
+    private double[] objectiveCoefficients = new double[16];
+    private double[] hints; // NaN: no hint; created on first use
+
+    private final List<ConstraintBlock> constraintBlocks = new ArrayList<>();
+
+    public IpModel(boolean withNames) {
+        this.withNames = withNames;
+        this.variableNames = withNames ? new ModelNames() : null;
+    }
+
+    // integer variable lb <= var <= ub, named prefix + first
+    public int makeIntVar(double lb, double ub, String prefix, int first) {
+        return makeIntVar(lb, ub, prefix, first, ModelNames.NO_INDEX);
+    }
+
+    // integer variable lb <= var <= ub, named prefix + first + "_" + second
+    public int makeIntVar(double lb, double ub, String prefix, int first, int second) {
+        if (numOfVariables == lowerBounds.length) {
+            lowerBounds = Arrays.copyOf(lowerBounds, 2 * numOfVariables);
+            upperBounds = Arrays.copyOf(upperBounds, 2 * numOfVariables);
+            objectiveCoefficients = Arrays.copyOf(objectiveCoefficients, 2 * numOfVariables);
+        }
+        lowerBounds[numOfVariables] = lb;
+        upperBounds[numOfVariables] = ub;
+        if (variableNames != null) {
+            variableNames.set(numOfVariables, prefix, first, second);
+        }
+        return numOfVariables++;
+    }
+
+    // variable of the given model with its bounds, objective coefficient, name and hint (see IpModelDecomposition)
+    int copyVariable(IpModel model, int variable) {
+        int copy = makeIntVar(model.getLowerBound(variable), model.getUpperBound(variable), null, ModelNames.NO_INDEX);
+        objectiveCoefficients[copy] = model.getObjectiveCoefficient(variable);
+        if (variableNames != null) {
+            variableNames.copy(copy, model.variableNames, variable);
+        }
+        if (!Double.isNaN(model.getHint(variable))) {
+            setHint(copy, model.getHint(variable));
+        }
+        return copy;
+    }
+
+    public void setBounds(int variable, double lb, double ub) {
+        lowerBounds[variable] = lb;
+        upperBounds[variable] = ub;
+    }
+
+    public void setLb(int variable, double lb) {
+        lowerBounds[variable] = lb;
+    }
+
+    public void setObjectiveCoefficient(int variable, double coefficient) {
+        objectiveCoefficients[variable] = coefficient;
+    }
+
+    public void setHint(int variable, double value) {
+        if (hints == null) {
+            hints = new double[0];
+        }
+        if (variable >= hints.length) {
+            int oldLength = hints.length;
+            hints = Arrays.copyOf(hints, Math.max(lowerBounds.length, variable + 1));
+            Arrays.fill(hints, oldLength, hints.length, Double.NaN);
+        }
+        hints[variable] = value;
+    }
+
+    // new, empty block for the rows of one constraint family; blocks are numbered in the order they are created
+    public ConstraintBlock newConstraintBlock() {
+        ConstraintBlock block = new ConstraintBlock(withNames);
+        constraintBlocks.add(block);
+        return block;
+    }
+
+    public int getNumOfVariables() {
+        return numOfVariables;
+    }
+
+    public int getNumOfConstraints() {
+        return constraintBlocks.stream().mapToInt(ConstraintBlock::getNumOfRows).sum();
+    }
+
+    public int getNumOfCoefficients() {
+        return constraintBlocks.stream().mapToInt(ConstraintBlock::getNumOfCoefficients).sum();
+    }
+
+    boolean isWithNames() {
+        return withNames;
+    }
+
+    double getLowerBound(int variable) {
+        return lowerBounds[variable];
+    }
+
+    double getUpperBound(int variable) {
+        return upperBounds[variable];
+    }
+
+    public double getObjectiveCoefficient(int variable) {
+        return objectiveCoefficients[variable];
+    }
+
+    boolean hasHints() {
+        return hints != null;
+    }
+
+    // NaN if the variable has no hint
+    double getHint(int variable) {
+        return hints != null && variable < hints.length ? hints[variable] : Double.NaN;
+    }
+
+    // null if the model is built without names
+    String getVariableName(int variable) {
+        return variableNames != null ? variableNames.get(variable) : null;
+    }
+
+    List<ConstraintBlock> getConstraintBlocks() {
+        return constraintBlocks;
+    }
+
+}
@@ -0,0 +1,133 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import com.google.ortools.linearsolver.MPSolver.ResultStatus;
+import com.google.ortools.sat.CircuitConstraintProto;
+import com.google.ortools.sat.ConstraintProto;
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpModelProto;
+import com.google.ortools.sat.CpObjectiveProto;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverResponse;
+import com.google.ortools.sat.CpSolverStatus;
+import com.google.ortools.sat.IntegerVariableProto;
+import com.google.ortools.sat.LinearConstraintProto;
+import com.google.ortools.sat.PartialVariableAssignment;
+
+/*
+ * Hands an IpModel to the native CP-SAT solver
+ *  -> the CpModelProto is written directly by variable index: variable i of the IpModel is variable i of the CpModel
+ *  -> rows become linear constraints (with enforcement literal if set), circuit arcs one circuit constraint per block
+ *  -> hints become the solution hint of the model
+ *  -> CP-SAT only knows integer bounds and coefficients; infinite row bounds are unbounded domains
+ */
+public final class IpModelCpSat {
+
+    private IpModelCpSat() {
+    }
+
+    public static CpModel toCpModel(IpModel model) {
+
+        CpModel cpModel = new CpModel();
+        CpModelProto.Builder proto = cpModel.getBuilder();
+
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            IntegerVariableProto.Builder variable = proto.addVariablesBuilder()
+                .addDomain(toLong(model.getLowerBound(var)))
+                .addDomain(toLong(model.getUpperBound(var)));
+            if (model.isWithNames()) {
+                variable.setName(model.getVariableName(var));
+            }
+        }
+
+        for (ConstraintBlock block : model.getConstraintBlocks()) {
+            addConstraints(proto, block);
+            addCircuit(proto, block);
+        }
+
+        CpObjectiveProto.Builder objective = proto.getObjectiveBuilder();
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            if (model.getObjectiveCoefficient(var) != 0) {
+                objective.addVars(var).addCoeffs(toLong(model.getObjectiveCoefficient(var)));
+            }
+        }
+
+        if (model.hasHints()) {
+            PartialVariableAssignment.Builder solutionHint = proto.getSolutionHintBuilder();
+            for (int var = 0; var < model.getNumOfVariables(); var++) {
+                if (!Double.isNaN(model.getHint(var))) {
+                    solutionHint.addVars(var).addValues(toLong(model.getHint(var)));
+                }
+            }
+        }
+
+        return cpModel;
+    }
+
+    private static void addConstraints(CpModelProto.Builder proto, ConstraintBlock block) {
+
+        int[] rowStart = block.computeRowStarts();
+        int[] sortedCoefficients = block.sortCoefficientsByRow(rowStart);
+
+        for (int row = 0; row < block.getNumOfRows(); row++) {
+            ConstraintProto.Builder constraint = proto.addConstraintsBuilder();
+            String name = block.getName(row);
+            if (name != null) {
+                constraint.setName(name);
+            }
+            if (block.getEnforcementLiteral(row) != IpModel.NO_VARIABLE) {
+                constraint.addEnforcementLiteral(block.getEnforcementLiteral(row));
+            }
+            LinearConstraintProto.Builder linear = constraint.getLinearBuilder();
+            for (int s = rowStart[row]; s < rowStart[row + 1]; s++) {
+                int k = sortedCoefficients[s];
+                linear.addVars(block.getCoefficientVariable(k)).addCoeffs(toLong(block.getCoefficient(k)));
+            }
+            linear.addDomain(toLong(block.getLowerBound(row))).addDomain(toLong(block.getUpperBound(row)));
+        }
+    }
+
+    private static void addCircuit(CpModelProto.Builder proto, ConstraintBlock block) {
+        if (block.getNumOfCircuitArcs() == 0) {
+            return;
+        }
+        CircuitConstraintProto.Builder circuit = proto.addConstraintsBuilder().getCircuitBuilder();
+        for (int arc = 0; arc < block.getNumOfCircuitArcs(); arc++) {
+            circuit.addTails(block.getCircuitTail(arc)).addHeads(block.getCircuitHead(arc)).addLiterals(block.getCircuitLiteral(arc));
+        }
+    }
+
+    // variable values of the solution by variable index of the IpModel; all 0 if the solver found no solution
+    public static double[] getSolutionValues(IpModel model, CpSolver solver) {
+        CpSolverResponse response = solver.response();
+        double[] values = new double[model.getNumOfVariables()];
+        for (int var = 0; var < response.getSolutionCount() && var < values.length; var++) {
+            values[var] = response.getSolution(var);
+        }
+        return values;
+    }
+
+    // same result states as the linear solver wrapper reports for CP-SAT
+    public static ResultStatus toResultStatus(CpSolverStatus status) {
+        return switch (status) {
+            case OPTIMAL -> ResultStatus.OPTIMAL;
+            case FEASIBLE -> ResultStatus.FEASIBLE;
+            case INFEASIBLE -> ResultStatus.INFEASIBLE;
+            case MODEL_INVALID -> ResultStatus.MODEL_INVALID;
+            default -> ResultStatus.NOT_SOLVED;
+        };
+    }
+
+    private static long toLong(double value) {
+        if (value == Double.POSITIVE_INFINITY) {
+            return Long.MAX_VALUE;
+        }
+        if (value == Double.NEGATIVE_INFINITY) {
+            return Long.MIN_VALUE;
+        }
+        if (value != Math.rint(value)) {
+            throw new IllegalStateException("CP-SAT model requires integer bounds and coefficients, got " + value);
+        }
+        return (long) value;
+    }
+
+}
@@ -0,0 +1,186 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * Independent sub-models of an IpModel: variables that share a row (or a circuit) are in the same part, no row connects two parts
+ *  -> e.g. the model of a stage whose possible chains split into components (see ChainComponents): the rows of one component only contain
+ *     its own variables, unless a constraint family (sidings, coupling-decoupling, maintenance) connects them
+ *  -> the parts are grouped into at most maxNumOfSubModels sub-models, the largest part first to the smallest sub-model
+ *  -> within a sub-model, variables, blocks and rows keep the order of the model; names and hints are taken over
+ *  -> a model that does not split (or a single sub-model) is its own sub-model, it is not copied
+ * The objective is a sum over the variables, so the optimum of the model is the sum of the optima of its sub-models.
+ */
+public final class IpModelDecomposition {
+
+    private final List<IpModel> subModels;
+    private final int[] subModelOfVariable;
+    private final int[] variableInSubModel;
+
+    private IpModelDecomposition(List<IpModel> subModels, int[] subModelOfVariable, int[] variableInSubModel) {
+        this.subModels = subModels;
+        this.subModelOfVariable = subModelOfVariable;
+        this.variableInSubModel = variableInSubModel;
+    }
+
+    public static IpModelDecomposition of(IpModel model, int maxNumOfSubModels) {
+
+        int[] partOfVariable = computeParts(model);
+        int numOfParts = Arrays.stream(partOfVariable).max().orElse(-1) + 1;
+        int[] subModelOfPart = groupParts(partOfVariable, numOfParts, Math.max(1, Math.min(numOfParts, maxNumOfSubModels)));
+        int numOfSubModels = Arrays.stream(subModelOfPart).max().orElse(0) + 1;
+        if (numOfSubModels == 1) {
+            return new IpModelDecomposition(List.of(model), new int[model.getNumOfVariables()], IntStream.range(0, model.getNumOfVariables()).toArray());
+        }
+
+        List<IpModel> subModels = new ArrayList<>();
+        for (int m = 0; m < numOfSubModels; m++) {
+            subModels.add(new IpModel(model.isWithNames()));
+        }
+        int[] subModelOfVariable = new int[model.getNumOfVariables()];
+        int[] variableInSubModel = new int[model.getNumOfVariables()];
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            subModelOfVariable[var] = subModelOfPart[partOfVariable[var]];
+            variableInSubModel[var] = subModels.get(subModelOfVariable[var]).copyVariable(model, var);
+        }
+        for (ConstraintBlock block : model.getConstraintBlocks()) {
+            List<ConstraintBlock> subBlocks = subModels.stream().map(IpModel::newConstraintBlock).toList();
+            copyRows(block, subBlocks, subModelOfVariable, variableInSubModel);
+        }
+        return new IpModelDecomposition(subModels, subModelOfVariable, variableInSubModel);
+    }
+
+    public int getNumOfSubModels() {
+        return subModels.size();
+    }
+
+    public IpModel getSubModel(int subModel) {
+        return subModels.get(subModel);
+    }
+
+    // variable values of the model from the variable values of its sub-models
+    public double[] mergeSolutionValues(List<double[]> subModelValues) {
+        double[] values = new double[subModelOfVariable.length];
+        for (int var = 0; var < values.length; var++) {
+            values[var] = subModelValues.get(subModelOfVariable[var])[variableInSubModel[var]];
+        }
+        return values;
+    }
+
+    // parts numbered in the order of their first variable; union-find over the variables of every row and every circuit
+    private static int[] computeParts(IpModel model) {
+
+        int[] parent = IntStream.range(0, model.getNumOfVariables()).toArray();
+        for (ConstraintBlock block : model.getConstraintBlocks()) {
+            int[] firstVariableOfRow = getFirstVariableOfRows(block);
+            for (int k = 0; k < block.getNumOfCoefficients(); k++) {
+                union(parent, firstVariableOfRow[block.getCoefficientRow(k)], block.getCoefficientVariable(k));
+            }
+            for (int row = 0; row < block.getNumOfRows(); row++) {
+                if (block.getEnforcementLiteral(row) != IpModel.NO_VARIABLE) {
+                    union(parent, firstVariableOfRow[row], block.getEnforcementLiteral(row));
+                }
+            }
+            for (int arc = 0; arc < block.getNumOfCircuitArcs(); arc++) {
+                union(parent, block.getCircuitLiteral(0), block.getCircuitLiteral(arc));
+            }
+        }
+
+        int[] partOfRoot = new int[parent.length];
+        Arrays.fill(partOfRoot, -1);
+        int[] partOfVariable = new int[parent.length];
+        int numOfParts = 0;
+        for (int var = 0; var < parent.length; var++) {
+            int root = find(parent, var);
+            if (partOfRoot[root] == -1) {
+                partOfRoot[root] = numOfParts++;
+            }
+            partOfVariable[var] = partOfRoot[root];
+        }
+        return partOfVariable;
+    }
+
+    // first variable of every row (coefficient or enforcement literal), IpModel.NO_VARIABLE for a row without any
+    private static int[] getFirstVariableOfRows(ConstraintBlock block) {
+        int[] firstVariableOfRow = new int[block.getNumOfRows()];
+        Arrays.fill(firstVariableOfRow, IpModel.NO_VARIABLE);
+        for (int k = block.getNumOfCoefficients() - 1; k >= 0; k--) {
+            firstVariableOfRow[block.getCoefficientRow(k)] = block.getCoefficientVariable(k);
+        }
+        for (int row = 0; row < block.getNumOfRows(); row++) {
+            if (firstVariableOfRow[row] == IpModel.NO_VARIABLE) {
+                firstVariableOfRow[row] = block.getEnforcementLiteral(row);
+            }
+        }
+        return firstVariableOfRow;
+    }
+
+    private static int find(int[] parent, int var) {
+        while (parent[var] != var) {
+            parent[var] = parent[parent[var]];
+            var = parent[var];
+        }
+        return var;
+    }
+
+    private static void union(int[] parent, int first, int second) {
+        int firstRoot = find(parent, first);
+        int secondRoot = find(parent, second);
+        if (firstRoot != secondRoot) {
+            parent[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+    // the largest part first (by number of variables) to the sub-model with the fewest variables so far, ties to the lower index
+    private static int[] groupParts(int[] partOfVariable, int numOfParts, int numOfSubModels) {
+        long[] partSize = new long[numOfParts];
+        for (int part : partOfVariable) {
+            partSize[part]++;
+        }
+        Integer[] partsBySize = IntStream.range(0, numOfParts).boxed().toArray(Integer[]::new);
+        Arrays.sort(partsBySize, Comparator.comparingLong((Integer part) -> -partSize[part]).thenComparingInt(part -> part));
+
+        int[] subModelOfPart = new int[numOfParts];
+        long[] subModelSize = new long[numOfSubModels];
+        for (int part : partsBySize) {
+            int smallest = 0;
+            for (int m = 1; m < numOfSubModels; m++) {
+                if (subModelSize[m] < subModelSize[smallest]) {
+                    smallest = m;
+                }
+            }
+            subModelOfPart[part] = smallest;
+            subModelSize[smallest] += partSize[part];
+        }
+        return subModelOfPart;
+    }
+
+    // every row to the sub-model of its variables (a row without variables to the first sub-model), every arc to the one of its literal
+    private static void copyRows(ConstraintBlock block, List<ConstraintBlock> subBlocks, int[] subModelOfVariable, int[] variableInSubModel) {
+
+        int[] firstVariableOfRow = getFirstVariableOfRows(block);
+        int[] subModelOfRow = new int[block.getNumOfRows()];
+        int[] rowInSubModel = new int[block.getNumOfRows()];
+        for (int row = 0; row < block.getNumOfRows(); row++) {
+            subModelOfRow[row] = firstVariableOfRow[row] != IpModel.NO_VARIABLE ? subModelOfVariable[firstVariableOfRow[row]] : 0;
+            ConstraintBlock subBlock = subBlocks.get(subModelOfRow[row]);
+            rowInSubModel[row] = subBlock.copyRow(block, row);
+            if (block.getEnforcementLiteral(row) != IpModel.NO_VARIABLE) {
+                subBlock.setEnforcementLiteral(rowInSubModel[row], variableInSubModel[block.getEnforcementLiteral(row)]);
+            }
+        }
+        for (int k = 0; k < block.getNumOfCoefficients(); k++) {
+            int row = block.getCoefficientRow(k);
+            subBlocks.get(subModelOfRow[row]).setCoefficient(rowInSubModel[row], variableInSubModel[block.getCoefficientVariable(k)], block.getCoefficient(k));
+        }
+        for (int arc = 0; arc < block.getNumOfCircuitArcs(); arc++) {
+            int literal = block.getCircuitLiteral(arc);
+            subBlocks.get(subModelOfVariable[literal]).addCircuitArc(block.getCircuitTail(arc), block.getCircuitHead(arc), variableInSubModel[literal]);
+        }
+    }
+
+}
@@ -0,0 +1,171 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPConstraintProto;
+import com.google.ortools.linearsolver.MPModelProto;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolutionResponse;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import com.google.ortools.linearsolver.MPVariableProto;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * Hands an IpModel to the MPSolver
+ *  -> incremental: one native call per variable, constraint and coefficient (makeIntVar, makeConstraint, setCoefficient)
+ *  -> bulk: the model is written to one MPModelProto on the Java side and loaded by the solver in a single transfer
+ * Both ways result in the same model: variable i of the IpModel is variable i of the solver, rows are numbered in block order.
+ */
+@Slf4j
+public final class IpModelLoader {
+
+    private IpModelLoader() {
+    }
+
+    public static void load(IpModel model, MPSolver solver, boolean bulk) {
+        if (model.getConstraintBlocks().stream().anyMatch(ConstraintBlock::hasCpSatOnlyConstraints)) {
+            throw new IllegalStateException("Model with enforcement literals or circuit constraints can only be solved with the native CP-SAT solver");
+        }
+        if (bulk) {
+            loadInBulk(model, solver);
+        } else {
+            loadIncrementally(model, solver);
+        }
+        setHints(model, solver);
+    }
+
+    // hinted variables only; solvers without hint support (CBC) ignore them
+    private static void setHints(IpModel model, MPSolver solver) {
+        if (!model.hasHints()) {
+            return;
+        }
+        MPVariable[] variables = solver.variables();
+        int numOfHints = 0;
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            if (!Double.isNaN(model.getHint(var))) {
+                numOfHints++;
+            }
+        }
+        MPVariable[] hintVariables = new MPVariable[numOfHints];
+        double[] hintValues = new double[numOfHints];
+        int h = 0;
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            if (!Double.isNaN(model.getHint(var))) {
+                hintVariables[h] = variables[var];
+                hintValues[h++] = model.getHint(var);
+            }
+        }
+        solver.setHint(hintVariables, hintValues);
+    }
+
+    public static void loadIncrementally(IpModel model, MPSolver solver) {
+
+        MPVariable[] variables = new MPVariable[model.getNumOfVariables()];
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            variables[var] = solver.makeIntVar(model.getLowerBound(var), model.getUpperBound(var), nameOrEmpty(model.getVariableName(var)));
+        }
+
+        for (ConstraintBlock block : model.getConstraintBlocks()) {
+            MPConstraint[] rows = new MPConstraint[block.getNumOfRows()];
+            for (int row = 0; row < block.getNumOfRows(); row++) {
+                rows[row] = solver.makeConstraint(block.getLowerBound(row), block.getUpperBound(row), nameOrEmpty(block.getName(row)));
+            }
+            for (int k = 0; k < block.getNumOfCoefficients(); k++) {
+                rows[block.getCoefficientRow(k)].setCoefficient(variables[block.getCoefficientVariable(k)], block.getCoefficient(k));
+            }
+        }
+
+        MPObjective objective = solver.objective();
+        objective.setMinimization();
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            if (model.getObjectiveCoefficient(var) != 0) {
+                objective.setCoefficient(variables[var], model.getObjectiveCoefficient(var));
+            }
+        }
+    }
+
+    // rows of the last block of a loaded model, from firstRow on, that were added after the load (e.g. cuts); appended to the rows of the solver
+    public static void loadRows(ConstraintBlock block, int firstRow, MPSolver solver) {
+
+        MPVariable[] variables = solver.variables();
+        MPConstraint[] rows = new MPConstraint[block.getNumOfRows() - firstRow];
+        for (int row = firstRow; row < block.getNumOfRows(); row++) {
+            rows[row - firstRow] = solver.makeConstraint(block.getLowerBound(row), block.getUpperBound(row), nameOrEmpty(block.getName(row)));
+        }
+        for (int k = 0; k < block.getNumOfCoefficients(); k++) {
+            if (block.getCoefficientRow(k) >= firstRow) {
+                rows[block.getCoefficientRow(k) - firstRow].setCoefficient(variables[block.getCoefficientVariable(k)], block.getCoefficient(k));
+            }
+        }
+    }
+
+    public static void loadInBulk(IpModel model, MPSolver solver) {
+
+        MPModelProto.Builder proto = MPModelProto.newBuilder().setMaximize(false);
+
+        for (int var = 0; var < model.getNumOfVariables(); var++) {
+            MPVariableProto.Builder variable = MPVariableProto.newBuilder()
+                .setLowerBound(model.getLowerBound(var))
+                .setUpperBound(model.getUpperBound(var))
+                .setIsInteger(true)
+                .setObjectiveCoefficient(model.getObjectiveCoefficient(var));
+            if (model.isWithNames()) {
+                variable.setName(model.getVariableName(var));
+            }
+            proto.addVariable(variable);
+        }
+
+        for (ConstraintBlock block : model.getConstraintBlocks()) {
+            addConstraints(proto, block);
+        }
+
+        MPModelProto modelProto = proto.build();
+        String error = model.isWithNames() ? solver.loadModelFromProtoKeepNames(modelProto) : solver.loadModelFromProto(modelProto);
+        if (!error.isEmpty() && model.isWithNames()) {
+            // names must be unique to be kept (the incremental load accepts duplicate names), the model itself does not depend on them
+            log.warn("Model names could not be kept (" + error + "), model is loaded without names");
+            solver.clear();
+            error = solver.loadModelFromProto(modelProto);
+        }
+        if (!error.isEmpty()) {
+            throw new IllegalStateException("Model could not be loaded by the solver: " + error);
+        }
+    }
+
+    // the coefficients of a block are set in any row order, they are grouped by row first
+    private static void addConstraints(MPModelProto.Builder proto, ConstraintBlock block) {
+
+        int[] rowStart = block.computeRowStarts();
+        int[] sortedCoefficients = block.sortCoefficientsByRow(rowStart);
+
+        for (int row = 0; row < block.getNumOfRows(); row++) {
+            MPConstraintProto.Builder constraint = MPConstraintProto.newBuilder()
+                .setLowerBound(block.getLowerBound(row))
+                .setUpperBound(block.getUpperBound(row));
+            String name = block.getName(row);
+            if (name != null) {
+                constraint.setName(name);
+            }
+            for (int s = rowStart[row]; s < rowStart[row + 1]; s++) {
+                int k = sortedCoefficients[s];
+                constraint.addVarIndex(block.getCoefficientVariable(k)).addCoefficient(block.getCoefficient(k));
+            }
+            proto.addConstraint(constraint);
+        }
+    }
+
+    // variable values of the solution by variable index of the IpModel, read in one transfer; all 0 if the solver found no solution
+    public static double[] getSolutionValues(IpModel model, MPSolver solver) {
+        MPSolutionResponse response = solver.createSolutionResponseProto();
+        double[] values = new double[model.getNumOfVariables()];
+        for (int var = 0; var < response.getVariableValueCount() && var < values.length; var++) {
+            values[var] = response.getVariableValue(var);
+        }
+        return values;
+    }
+
+    private static String nameOrEmpty(String name) {
+        return name != null ? name : "";
+    }
+
+}
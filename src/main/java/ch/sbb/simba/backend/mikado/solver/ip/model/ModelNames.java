@@ -0,0 +1,38 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import java.util.Arrays;
+
+/*
+ * Names of the variables or constraints of an IpModel, stored as (prefix, first index, second index)
+ *  -> the prefixes are string constants, no name string is built while the model is filled
+ *  -> name(i) = prefix + first [+ "_" + second], built only when the model is handed to the solver
+ */
+final class ModelNames {
+
+    static final int NO_INDEX = -1;
+
+    private String[] prefixes = new String[16];
+    private int[] firstIndices = new int[16];
+    private int[] secondIndices = new int[16];
+
+    void set(int idx, String prefix, int first, int second) {
+        if (idx >= prefixes.length) {
+            int capacity = Math.max(2 * prefixes.length, idx + 1);
+            prefixes = Arrays.copyOf(prefixes, capacity);
+            firstIndices = Arrays.copyOf(firstIndices, capacity);
+            secondIndices = Arrays.copyOf(secondIndices, capacity);
+        }
+        prefixes[idx] = prefix;
+        firstIndices[idx] = first;
+        secondIndices[idx] = second;
+    }
+
+    void copy(int idx, ModelNames names, int namesIdx) {
+        set(idx, names.prefixes[namesIdx], names.firstIndices[namesIdx], names.secondIndices[namesIdx]);
+    }
+
+    String get(int idx) {
+        return secondIndices[idx] == NO_INDEX ? prefixes[idx] + firstIndices[idx] : prefixes[idx] + firstIndices[idx] + "_" + secondIndices[idx];
+    }
+
+}
@@ -4,12 +4,20 @@ import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.parseChains
 
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunSolutionEvent;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunSolutionListener;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunStageMemory;
 import ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation;
 import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
 import ch.sbb.simba.backend.mikado.solver.utils.PreProcessCouplingDecoupling;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import lombok.Getter;
@@ -24,10 +32,36 @@ public class IpSolverParams {
     private boolean twoStages;
     private int precisionLevel;
     private int numOfWorkers;
+    private boolean parallelPreprocessing;
+    private Executor preprocessingExecutor;
+    private boolean bulkModelBuild;
+    private boolean modelNames;
+    private boolean nativeCpSat;
+    private boolean subtourCuts;
+    private boolean solutionHints;
+    private boolean linearSumAssignment;
+    private boolean rollingHorizon;
+    private int rollingHorizonWindow; // [s]
+    private int rollingHorizonOverlap; // [s]
+    private RotaziunSolutionListener solutionListener;
 
     private StageParams stageParams;
 
+    // time budget
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+    private LongSupplier clock = System::nanoTime; // [ns], the budget and stage deadlines are computed against it (replaced in tests)
+    private long deadline = NO_DEADLINE; // clock time at which the time budget is used up
+    private long startTime = clock.getAsLong(); // clock time at the start of the solve
+
+    // cancellation of the solve (asynchronous solve only)
+    private SolveCancellation cancellation = new SolveCancellation();
+
+    // resident memory at the end of each stage of the solve, in the order of the stages
+    private List<RotaziunStageMemory> stageMemory = new ArrayList<>();
+
+    private int numOfSections;
     private Map<RotaziunSection,Integer> sectionIdxMap;
+    private int[] debicodeIds; // (section-idx -> id of the debicode set, equal sets have equal ids)
 
     // basic constants
     public static final int MIN_NUMBER_OF_SECTIONS_FOR_TWO_STAGE_APPROACH = 30;
@@ -84,9 +118,21 @@ public class IpSolverParams {
 
         this.durationMap = durationMap;
 
-        // Get Input Parameters
+        // Get Input Parameters (maps and sets are copied -> solves that share one input do not change it)
         this.precisionLevel = input.getPrecisionLevel();
         this.numOfWorkers = input.getNumOfWorkers();
+        this.parallelPreprocessing = input.getParallelPreprocessing();
+        this.preprocessingExecutor = input.getPreprocessingExecutor();
+        this.bulkModelBuild = input.getBulkModelBuild();
+        this.modelNames = input.getModelNames();
+        this.nativeCpSat = input.getNativeCpSat();
+        this.subtourCuts = input.getSubtourCuts();
+        this.solutionHints = input.getSolutionHints();
+        this.linearSumAssignment = input.getLinearSumAssignment();
+        this.rollingHorizon = input.getRollingHorizon();
+        this.rollingHorizonWindow = input.getRollingHorizonWindow();
+        this.rollingHorizonOverlap = input.getRollingHorizonOverlap();
+        this.solutionListener = input.getSolutionListener();
         this.minTurnTime = input.getMinTurnTime();
         this.vehicleCostPerDay = input.getVehicleCostPerDay();
         this.costPerStammChange = input.getCostPerStammChange();
@@ -94,16 +140,17 @@ public class IpSolverParams {
         this.costPerDebicodeChange = input.getCostPerDebicodeChange();
         this.requiredSectionChains = parseChainsFromIdsToObjects(sections, input.getRequiredSectionChains());
         this.prohibitedSectionChains = parseChainsFromIdsToObjects(sections, input.getProhibitedSectionChains());
-        this.prohibitedEmptyTripsMap = input.getProhibitedEmptyTripsMap();
-        this.prohibitedSidingSites = input.getProhibitedSidingSites();
+        this.prohibitedEmptyTripsMap = copyProhibitedEmptyTripsMap(input.getProhibitedEmptyTripsMap());
+        this.durationMap.setProhibitedEmptyTrips(this.prohibitedEmptyTripsMap);
+        this.prohibitedSidingSites = new HashSet<>(input.getProhibitedSidingSites());
         this.onlyOneBlock = input.getOnlyOneBlock();
         this.costForCouplingDecoupling = input.getCostForCouplingDecoupling();
         this.minTimeForCoupling = input.getMinTimeForCoupling();
         this.minTimeForDecoupling = input.getMinTimeForDecoupling();
-        this.prohibitedCouplingDecouplingStationIds = input.getProhibitedCouplingDecouplingStationIds();
+        this.prohibitedCouplingDecouplingStationIds = new HashSet<>(input.getProhibitedCouplingDecouplingStationIds());
         this.minSidingDuration = input.getMinSidingDuration();
         this.sidingEvaluationTime = input.getSidingEvaluationTime();
-        this.sidingCapacityMap = input.getSidingCapacityMap();
+        this.sidingCapacityMap = new HashMap<>(input.getSidingCapacityMap()); // copy, the prohibited siding sites are added below
         this.maintenanceWindowDistributionTolerance = input.getMaintenanceWindowDistributionTolerance();
         this.maintenanceWindows = maintenanceSections;
 
@@ -113,7 +160,9 @@ public class IpSolverParams {
         this.withMaintenance = ModuleAcitvation.isMaintenaceModuleNeeded(maintenanceSections);
         this.twoStages = ModuleAcitvation.solveWithTwoStages(this, sections);
         this.trainLength = (int) sections.get(0).getVehicle().getLength();
+        this.numOfSections = sections.size();
         this.sectionIdxMap = computeSectionIdxMap(sections);
+        this.debicodeIds = computeDebicodeIds(sections);
 
         // Set Coupling & Decouling Parameters
         if(this.isTwoStages() || this.isWithCouplingDecoupling()){
@@ -143,12 +192,74 @@ public class IpSolverParams {
         return this;
     }
 
+    public IpSolverParams setWindowStageParams(List<RotaziunSection> sections, Map<RotaziunSection,RotaziunSection> sectionChainMap,
+        RollingHorizon.TimeWindow window, int numOfRemainingWindows) {
+        this.stageParams = RollingHorizon.getWindowStageParams(this, sections, sectionChainMap, window, numOfRemainingWindows);
+        return this;
+    }
+
+    public IpSolverParams setStitchingStageParams(Map<RotaziunSection,RotaziunSection> chainsWithinCores) {
+        this.stageParams = RollingHorizon.getStitchingStageParams(this, chainsWithinCores);
+        return this;
+    }
+
     public IpSolverParams setMaintenanceStageParams(Map<RotaziunSection,RotaziunSection> sectionChainMap) {
         this.stageParams = MaintenanceStage.getMaintenanceStageParams(this, sectionChainMap);
         return this;
     }
 
+    public boolean isTimeBudgetUsedUp() {
+        return deadline != NO_DEADLINE && clock.getAsLong() >= deadline;
+    }
+
+    // end of the current stage: its share of the remaining time budget (the remaining time of a stage is passed on to the next stages)
+    public long computeStageDeadline() {
+        if (deadline == NO_DEADLINE) {
+            return NO_DEADLINE;
+        }
+        long now = clock.getAsLong();
+        return now + Math.max(0, deadline - now) / stageParams.getNumOfRemainingStages();
+    }
+
+    // solution of a previous stage as hint for the current stage (ignored if solution hints are switched off)
+    public IpSolverParams withSolutionHint(SolutionHint solutionHint) {
+        this.stageParams.setSolutionHint(this.solutionHints ? solutionHint : null);
+        return this;
+    }
+
+    // solution of the current stage to the solution listener, if one is set
+    public void notifySolutionListener(double objectiveValue, double bestObjectiveBound, Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+        if (solutionListener == null) {
+            return;
+        }
+        solutionListener.onSolution(RotaziunSolutionEvent.builder()
+            .stage(stageParams.getStage())
+            .precisionLevel(precisionLevel)
+            .objectiveValue(objectiveValue)
+            .bestObjectiveBound(bestObjectiveBound)
+            .gap(RotaziunSolutionEvent.computeGap(objectiveValue, bestObjectiveBound))
+            .elapsedTime((clock.getAsLong() - startTime) / 1_000_000_000.0)
+            .sectionChainMap(Map.copyOf(sectionChainMap)) // unmodifiable snapshot, the listener may keep the event
+            .build());
+    }
+
     public Map<RotaziunSection,Integer> computeSectionIdxMap(List<RotaziunSection> sections) {
         return IntStream.range(0, sections.size()).boxed().collect(Collectors.toMap(sections::get, i -> i));
     }
+
+    private static Map<Long, Set<Long>> copyProhibitedEmptyTripsMap(Map<Long, Set<Long>> prohibitedEmptyTripsMap) {
+        Map<Long, Set<Long>> copy = new HashMap<>();
+        prohibitedEmptyTripsMap.forEach((stationId, prohibitedStationIds) -> copy.put(stationId, new HashSet<>(prohibitedStationIds)));
+        return copy;
+    }
+
+    // intern the debicode set of each section once, debicode changes are then detected by comparing ids
+    private static int[] computeDebicodeIds(List<RotaziunSection> sections) {
+        Map<Set<Integer>,Integer> debicodeSetIds = new HashMap<>();
+        int[] debicodeIds = new int[sections.size()];
+        for (int idx = 0; idx < sections.size(); idx++) {
+            debicodeIds[idx] = debicodeSetIds.computeIfAbsent(new HashSet<>(sections.get(idx).getDebicodes()), set -> debicodeSetIds.size());
+        }
+        return debicodeIds;
+    }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ public final class MaintenanceStage {
             .stage(3)
             .fixedChainMap(fixedChains)
             .problemComplexity(1) // not relevant for maintenance stage
+            .numOfRemainingStages(1)
             .onlyOneBlock(true)
             .withCouplingDecoupling(params.isWithCouplingDecoupling())
             .withSidings(params.isWithSidings())
@@ -0,0 +1,151 @@
+package ch.sbb.simba.backend.mikado.solver.ip.parameters;
+
+import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.mapToPositiveTimeDifference;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.determineProblemComplexity;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Stage 2 of the two-stage approach as rolling horizon (for large instances)
+ *  -> the service day is split into overlapping time windows by the departure of the sections: a window covers [start, end),
+ *     the next window starts at the end of its core [start, end - overlap)
+ *  -> the windows are solved in sequence with the stage 2 settings: only the sections departing in the window choose their successor,
+ *     all other chains of the current solution are fixed
+ *  -> the chains of a solved window whose from- and to-section depart in its core are kept, the stitching stage solves all other chains
+ */
+public final class RollingHorizon {
+
+    private RollingHorizon() {
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class TimeWindow {
+
+        private final int start;
+        private final int coreEnd;
+        private final int end;
+
+        public boolean contains(RotaziunSection section) {
+            return start <= section.getDeparture() && section.getDeparture() < end;
+        }
+
+        public boolean containsInCore(RotaziunSection section) {
+            return start <= section.getDeparture() && section.getDeparture() < coreEnd;
+        }
+
+    }
+
+    // windows without any section are left out; the last window ends after the last departure
+    public static List<TimeWindow> computeTimeWindows(List<RotaziunSection> sections, IpSolverParams params) {
+        int firstDeparture = sections.stream().mapToInt(RotaziunSection::getDeparture).min().orElse(0);
+        int lastDeparture = sections.stream().mapToInt(RotaziunSection::getDeparture).max().orElse(0);
+        int step = params.getRollingHorizonWindow() - params.getRollingHorizonOverlap();
+
+        List<TimeWindow> windows = new ArrayList<>();
+        for (int start = firstDeparture; start <= lastDeparture; start += step) {
+            TimeWindow window = new TimeWindow(start, start + step, start + params.getRollingHorizonWindow());
+            if (sections.stream().anyMatch(window::contains)) {
+                windows.add(window);
+            }
+            if (window.getEnd() > lastDeparture) {
+                break;
+            }
+        }
+        return windows;
+    }
+
+    public static StageParams getWindowStageParams(IpSolverParams params, List<RotaziunSection> sections, Map<RotaziunSection,RotaziunSection> sectionChainMap,
+        TimeWindow window, int numOfRemainingWindows) {
+
+        return StageParams.builder()
+            .stage(2)
+            .fixedChainMap(getFixedChainsForWindow(sections, sectionChainMap, window))
+            .problemComplexity(determineProblemComplexity(params))
+            .numOfRemainingStages(numOfRemainingWindows + 1 + (params.isWithMaintenance() ? 1 : 0))
+            .onlyOneBlock(params.isOnlyOneBlock())
+            .withCouplingDecoupling(params.isWithCouplingDecoupling())
+            .withSidings(params.isWithSidings())
+            .withMaintenance(false)
+            .build();
+    }
+
+    public static StageParams getStitchingStageParams(IpSolverParams params, Map<RotaziunSection,RotaziunSection> chainsWithinCores) {
+
+        return StageParams.builder()
+            .stage(2)
+            .fixedChainMap(new HashMap<>(chainsWithinCores))
+            .problemComplexity(determineProblemComplexity(params))
+            .numOfRemainingStages(1 + (params.isWithMaintenance() ? 1 : 0))
+            .onlyOneBlock(params.isOnlyOneBlock())
+            .withCouplingDecoupling(params.isWithCouplingDecoupling())
+            .withSidings(params.isWithSidings())
+            .withMaintenance(false)
+            .build();
+    }
+
+    public static Map<RotaziunSection,RotaziunSection> getChainsWithinCore(Map<RotaziunSection,RotaziunSection> sectionChainMap, TimeWindow window) {
+        return sectionChainMap.entrySet().stream()
+            .filter(entry -> window.containsInCore(entry.getKey()) && window.containsInCore(entry.getValue()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /*
+     * fix all chains except the ones from sections of the window
+     *  -> a block of the current solution without any section in the window could not be joined with the other blocks (oneBlock),
+     *     its chain with the longest standstill is not fixed either
+     */
+    private static Map<RotaziunSection,RotaziunSection> getFixedChainsForWindow(List<RotaziunSection> sections,
+        Map<RotaziunSection,RotaziunSection> sectionChainMap, TimeWindow window) {
+
+        Set<RotaziunSection> freeSections = sections.stream().filter(window::contains).collect(Collectors.toCollection(HashSet::new));
+        for (List<RotaziunSection> block : getBlocks(sections, sectionChainMap)) {
+            if (block.stream().noneMatch(freeSections::contains)) {
+                freeSections.add(getSectionWithLongestStandstill(block, sectionChainMap));
+            }
+        }
+
+        return sectionChainMap.entrySet().stream()
+            .filter(entry -> !freeSections.contains(entry.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private static List<List<RotaziunSection>> getBlocks(List<RotaziunSection> sections, Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+        List<List<RotaziunSection>> blocks = new ArrayList<>();
+        Set<RotaziunSection> visited = new HashSet<>();
+        for (RotaziunSection first : sections) {
+            List<RotaziunSection> block = new ArrayList<>();
+            for (RotaziunSection section = first; section != null && visited.add(section); section = sectionChainMap.get(section)) {
+                block.add(section);
+            }
+            if (!block.isEmpty()) {
+                blocks.add(block);
+            }
+        }
+        return blocks;
+    }
+
+    private static RotaziunSection getSectionWithLongestStandstill(List<RotaziunSection> block, Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+        RotaziunSection longest = block.get(0);
+        for (RotaziunSection section : block) {
+            if (getStandstill(section, sectionChainMap) > getStandstill(longest, sectionChainMap)) {
+                longest = section;
+            }
+        }
+        return longest;
+    }
+
+    private static int getStandstill(RotaziunSection fromSection, Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+        return mapToPositiveTimeDifference(sectionChainMap.get(fromSection).getDeparture() - fromSection.getArrival());
+    }
+
+}
@@ -0,0 +1,55 @@
+package ch.sbb.simba.backend.mikado.solver.ip.parameters;
+
+import ch.sbb.simba.backend.mikado.solver.ip.Variables;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/*
+ * Solution of a stage, handed to the next stage as starting point (warm start)
+ *  -> the variable indices differ between stages, so the values are kept by section: chains by from-section,
+ *     second siding of a chain by its from-section (the first siding follows from the chain and the second siding)
+ *  -> coupling-decoupling values by enforcement index, which is the same for all stages
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class SolutionHint {
+
+    private final Map<RotaziunSection,RotaziunSection> sectionChainMap;
+    private final Set<RotaziunSection> sidingAfterEmptyTrip; // from-sections of chains with s_second = 1
+    private final double[][] couplingDecouplingValues; // in the order of Variables.getCouplingDecouplingVariables(), null if not part of the stage
+
+    public static SolutionHint of(List<RotaziunSection> sections, ChainList possibleChains, Variables v, double[] solution,
+        Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+
+        Set<RotaziunSection> sidingAfterEmptyTrip = new HashSet<>();
+        if (v.sSecond != null) {
+            for (int idx = 0; idx < possibleChains.size(); idx++) {
+                if (v.sSecond[idx] != IpModel.NO_VARIABLE && solution[v.sSecond[idx]] == 1) {
+                    sidingAfterEmptyTrip.add(sections.get(possibleChains.getFrom(idx)));
+                }
+            }
+        }
+
+        int[][] couplingDecouplingVariables = v.getCouplingDecouplingVariables();
+        double[][] couplingDecouplingValues = new double[couplingDecouplingVariables.length][];
+        for (int g = 0; g < couplingDecouplingVariables.length; g++) {
+            if (couplingDecouplingVariables[g] != null) {
+                couplingDecouplingValues[g] = new double[couplingDecouplingVariables[g].length];
+                for (int i = 0; i < couplingDecouplingVariables[g].length; i++) {
+                    couplingDecouplingValues[g][i] = solution[couplingDecouplingVariables[g][i]];
+                }
+            }
+        }
+
+        return new SolutionHint(sectionChainMap, sidingAfterEmptyTrip, couplingDecouplingValues);
+    }
+
+}
@@ -0,0 +1,57 @@
+package ch.sbb.simba.backend.mikado.solver.ip.parameters;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/*
+ * Cancellation of a running solve (see RotaziunSolver.solveAsync)
+ *  -> the solvers of the running stage are stopped right away (MPSolver.interruptSolve, CpSolver.stopSearch); a stage whose model splits
+ *     into sub-models runs one solver per sub-model (see IpSolver)
+ *  -> a stop that lands after the solver is registered but before its native solve has started is lost (CpSolver.stopSearch does nothing
+ *     without a running solve, the MPSolver clears its interrupt when the solve starts), so the stop is repeated until the solver has ended
+ *  -> the solve ends with a CancellationException before the next stage and after the running stage
+ * cancel() is called from another thread than the solve, all methods are synchronized
+ */
+public final class SolveCancellation {
+
+    private static final long STOP_REPEAT_INTERVAL = 50; // [ms]
+
+    private boolean cancelled;
+    private final List<BooleanSupplier> stopSolvers = new ArrayList<>(); // stop the running solvers, false if a solver cannot be stopped
+
+    public synchronized void cancel() {
+        cancelled = true;
+        stopRunningSolvers();
+    }
+
+    public synchronized void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Solve is cancelled");
+        }
+    }
+
+    // registers a solver of the stage before it is started
+    public synchronized void startSolver(BooleanSupplier stopSolver) {
+        throwIfCancelled();
+        stopSolvers.add(stopSolver);
+    }
+
+    public synchronized void endSolver(BooleanSupplier stopSolver) {
+        stopSolvers.remove(stopSolver);
+    }
+
+    private synchronized void stopRunningSolvers() {
+        boolean isStopRepeated = false;
+        for (BooleanSupplier stopSolver : stopSolvers) {
+            isStopRepeated |= stopSolver.getAsBoolean();
+        }
+        if (isStopRepeated) {
+            CompletableFuture.delayedExecutor(STOP_REPEAT_INTERVAL, TimeUnit.MILLISECONDS).execute(this::stopRunningSolvers);
+        }
+    }
+
+}
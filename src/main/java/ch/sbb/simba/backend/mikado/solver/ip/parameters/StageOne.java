@@ -1,6 +1,7 @@
 package ch.sbb.simba.backend.mikado.solver.ip.parameters;
 
 import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.determineProblemComplexity;
+import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isStageOneWithoutOneBlock;
 
 import java.util.HashMap;
 
@@ -15,8 +16,9 @@ public final class StageOne {
             return StageParams.builder()
                 .stage(1)
                 .fixedChainMap(new HashMap<>())
-                .problemComplexity(params.getPrecisionLevel() >= 1 ? 1 : 0)
-                .onlyOneBlock(params.getPrecisionLevel() >= 1)
+                .problemComplexity(isStageOneWithoutOneBlock(params) ? 0 : 1)
+                .numOfRemainingStages(2 + (params.isWithMaintenance() ? 1 : 0))
+                .onlyOneBlock(!isStageOneWithoutOneBlock(params))
                 .withCouplingDecoupling(false)
                 .withSidings(false)
                 .withMaintenance(false)
@@ -27,6 +29,7 @@ public final class StageOne {
             .stage(1)
             .fixedChainMap(new HashMap<>())
             .problemComplexity(determineProblemComplexity(params))
+            .numOfRemainingStages(1 + (params.isWithMaintenance() ? 1 : 0))
             .onlyOneBlock(params.isOnlyOneBlock())
             .withCouplingDecoupling(params.isWithCouplingDecoupling())
             .withSidings(params.isWithSidings())
@@ -1,6 +1,7 @@
 package ch.sbb.simba.backend.mikado.solver.ip.parameters;
 
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.utils.ResidentMemory;
 import java.util.Map;
 import lombok.Builder;
 import lombok.Getter;
@@ -13,8 +14,11 @@ public class StageParams {
 
     private int stage;
     private int problemComplexity;
+    private int numOfRemainingStages; // this stage and the planned stages after it, each gets its share of the remaining time budget
 
     private Map<RotaziunSection,RotaziunSection> fixedChainMap;
+    private SolutionHint solutionHint; // solution of the previous stage as starting point; null: no hint
+    private ResidentMemory.PeakSampler peakSampler; // peak resident memory since the start of the stage
 
     private boolean onlyOneBlock;
     private boolean withCouplingDecoupling;
@@ -22,6 +22,7 @@ public final class StageTwo {
             .stage(2)
             .fixedChainMap(fixedChains)
             .problemComplexity(determineProblemComplexity(params))
+            .numOfRemainingStages(1 + (params.isWithMaintenance() ? 1 : 0))
             .onlyOneBlock(params.isOnlyOneBlock())
             .withCouplingDecoupling(params.isWithCouplingDecoupling())
             .withSidings(params.isWithSidings())
@@ -8,6 +8,19 @@ public final class InputDefaultValues {
     // internal solver parameters
     private static final int DEFAULT_PRECISION_LEVEL = 0;
     private static final int DEFAULT_NUM_OF_WORKERS = 8;
+    private static final boolean DEFAULT_PARALLEL_PREPROCESSING = true;
+    private static final boolean DEFAULT_LAZY_DURATION_MAP = false;
+    private static final boolean DEFAULT_NETWORK_DURATIONS = false;
+    private static final int DEFAULT_DURATION_CACHE_MAX_SIZE = 1024;
+    private static final boolean DEFAULT_BULK_MODEL_BUILD = false;
+    private static final boolean DEFAULT_MODEL_NAMES = true;
+    private static final boolean DEFAULT_NATIVE_CP_SAT = false;
+    private static final boolean DEFAULT_SUBTOUR_CUTS = false;
+    private static final boolean DEFAULT_SOLUTION_HINTS = true;
+    private static final boolean DEFAULT_LINEAR_SUM_ASSIGNMENT = true;
+    private static final boolean DEFAULT_ROLLING_HORIZON = false;
+    private static final int DEFAULT_ROLLING_HORIZON_WINDOW = 4*3600;
+    private static final int DEFAULT_ROLLING_HORIZON_OVERLAP = 3600;
 
     // basic constants
     private static final int DEFAULT_MIN_TURN_TIME = 180;
@@ -37,16 +50,32 @@ public final class InputDefaultValues {
     private InputDefaultValues() {
     }
 
-    public static void setDefaults(RotaziunInputParams input){
+    // copy of the input with a default value for every parameter that is not set -> the input of the caller is not changed
+    public static RotaziunInputParams withDefaults(RotaziunInputParams input){
 
-        setIntAndBoolDefaultValues(input);
-        setMapAndSetDefaultValues(input);
+        RotaziunInputParams inputWithDefaults = input.toBuilder().build();
+        setIntAndBoolDefaultValues(inputWithDefaults);
+        setMapAndSetDefaultValues(inputWithDefaults);
+        return inputWithDefaults;
 
     }
 
     private static void setIntAndBoolDefaultValues(RotaziunInputParams input) {
         input.setPrecisionLevel(defaultIfNull(input.getPrecisionLevel(), DEFAULT_PRECISION_LEVEL));
         input.setNumOfWorkers(defaultIfNull(input.getNumOfWorkers(), DEFAULT_NUM_OF_WORKERS));
+        input.setParallelPreprocessing(defaultIfNull(input.getParallelPreprocessing(), DEFAULT_PARALLEL_PREPROCESSING));
+        input.setLazyDurationMap(defaultIfNull(input.getLazyDurationMap(), DEFAULT_LAZY_DURATION_MAP));
+        input.setNetworkDurations(defaultIfNull(input.getNetworkDurations(), DEFAULT_NETWORK_DURATIONS));
+        input.setDurationCacheMaxSize(defaultIfNull(input.getDurationCacheMaxSize(), DEFAULT_DURATION_CACHE_MAX_SIZE));
+        input.setBulkModelBuild(defaultIfNull(input.getBulkModelBuild(), DEFAULT_BULK_MODEL_BUILD));
+        input.setModelNames(defaultIfNull(input.getModelNames(), DEFAULT_MODEL_NAMES));
+        input.setNativeCpSat(defaultIfNull(input.getNativeCpSat(), DEFAULT_NATIVE_CP_SAT));
+        input.setSubtourCuts(defaultIfNull(input.getSubtourCuts(), DEFAULT_SUBTOUR_CUTS));
+        input.setSolutionHints(defaultIfNull(input.getSolutionHints(), DEFAULT_SOLUTION_HINTS));
+        input.setLinearSumAssignment(defaultIfNull(input.getLinearSumAssignment(), DEFAULT_LINEAR_SUM_ASSIGNMENT));
+        input.setRollingHorizon(defaultIfNull(input.getRollingHorizon(), DEFAULT_ROLLING_HORIZON));
+        input.setRollingHorizonWindow(defaultIfNull(input.getRollingHorizonWindow(), DEFAULT_ROLLING_HORIZON_WINDOW));
+        input.setRollingHorizonOverlap(defaultIfNull(input.getRollingHorizonOverlap(), DEFAULT_ROLLING_HORIZON_OVERLAP));
         input.setMinTurnTime(defaultIfNull(input.getMinTurnTime(), DEFAULT_MIN_TURN_TIME));
         input.setMinSidingDuration(defaultIfNull(input.getMinSidingDuration(), DEFAULT_MIN_SIDING_DURATION));
         input.setVehicleCostPerDay(defaultIfNull(input.getVehicleCostPerDay(), DEFAULT_VEHICLE_COST_PER_DAY));
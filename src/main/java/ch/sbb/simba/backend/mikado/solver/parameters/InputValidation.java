@@ -22,6 +22,10 @@ public final class InputValidation {
     public static final int MAX_PRECISION_LEVEL = 2;
     private static final int MIN_NUM_OF_WORKERS = 1;
     private static final int MAX_NUM_OF_WORKERS = 16;
+    private static final int MIN_TIME_BUDGET = 1;
+    private static final int MAX_TIME_BUDGET = 24*3600;
+    private static final int MIN_ROLLING_HORIZON_WINDOW = 3600;
+    private static final int MAX_ROLLING_HORIZON_WINDOW = 24*3600;
 
     // basic constants
     private static final int MIN_TURN_TIME_LIMIT = 12*3600;
@@ -66,6 +70,11 @@ public final class InputValidation {
     private static void validateInputParameterRange(RotaziunInputParams input) {
         checkRange("precisionLevel", input.getPrecisionLevel(), MIN_PRECISION_LEVEL, MAX_PRECISION_LEVEL);
         checkRange("numOfWorkers", input.getNumOfWorkers(), MIN_NUM_OF_WORKERS, MAX_NUM_OF_WORKERS);
+        if (input.getTimeBudget() != null) {
+            checkRange("timeBudget", input.getTimeBudget(), MIN_TIME_BUDGET, MAX_TIME_BUDGET);
+        }
+        checkRange("rollingHorizonWindow", input.getRollingHorizonWindow(), MIN_ROLLING_HORIZON_WINDOW, MAX_ROLLING_HORIZON_WINDOW);
+        checkRange("rollingHorizonOverlap", input.getRollingHorizonOverlap(), 0, input.getRollingHorizonWindow() / 2); // the core of a window is at least half of it
         checkRange("minTurnTime", input.getMinTurnTime(), 0, MIN_TURN_TIME_LIMIT);
         checkRange("minSidingDuration", input.getMinSidingDuration(), MIN_SIDING_DURATION_LOWER_LIMIT, MIN_SIDING_DURATION_UPPER_LIMIT);
         checkRange("vehicleCostPerDay", input.getVehicleCostPerDay(), 0, MAX_VEHICLE_COST_PER_DAY);
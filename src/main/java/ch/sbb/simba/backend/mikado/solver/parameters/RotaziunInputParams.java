@@ -2,6 +2,7 @@ package ch.sbb.simba.backend.mikado.solver.parameters;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -11,7 +12,7 @@ import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 public class RotaziunInputParams {
@@ -19,6 +20,23 @@ public class RotaziunInputParams {
     // internal solver parameters
     private Integer precisionLevel; // determines the trade-off between computation speed and solution quality -> 0: fast solve, 1: high solution quality, 2: perfect solution quality
     private Integer numOfWorkers; // CP-SAT optimizer can use parallel computing; numOfWorkers defines how many solver instances are used
+    private Integer timeBudget; // total time for solving [s]; every stage gets its share of the remaining time and returns its best solution when it is up; no limit if not set
+    private Boolean parallelPreprocessing; // compute the station durations, the possible section chains, their attributes and the constraint families of the model in parallel
+    private Executor preprocessingExecutor; // executor for the parallel preprocessing; common fork-join pool if not set
+    private Boolean lazyDurationMap; // compute bee line durations between stations on first use instead of for all station pairs upfront
+    private Boolean networkDurations; // empty trip durations as shortest paths over the observed section relations instead of bee line estimations
+    private String durationCacheDirectory; // directory of the on-disk cache for resolved station durations; no cache if not set
+    private Integer durationCacheMaxSize; // maximum size of the duration cache directory [MB]; least recently used files are evicted
+    private Boolean bulkModelBuild; // hand the model to the solver as one model proto instead of one call per variable, constraint and coefficient
+    private Boolean modelNames; // name the variables and constraints of the model (e.g. x3_7, basicAfter_3); no name strings are built if false
+    private Boolean nativeCpSat; // solve the CP-SAT stages with the native CP-SAT model (oneBlock as circuit constraint) instead of the linear solver wrapper
+    private Boolean subtourCuts; // solve oneBlock stages without maintenance with CBC, adding subtour cuts for the blocks of each solution until only one block is left
+    private Boolean solutionHints; // start every stage from the solution of the previous stage (stage 1 -> 2 -> maintenance, precision level k -> k+1)
+    private Boolean linearSumAssignment; // solve stages without oneBlock as linear sum assignment of the sections to their successors instead of a MIP with CBC
+    private Boolean rollingHorizon; // solve stage 2 of large instances in overlapping time windows of the service day, followed by a stitching stage for the chains between the windows
+    private Integer rollingHorizonWindow; // length of a time window of the rolling horizon [s]
+    private Integer rollingHorizonOverlap; // overlap of two consecutive time windows of the rolling horizon [s]
+    private RotaziunSolutionListener solutionListener; // receives the solutions found while solving (improving solutions of CP-SAT stages, final solution of other stages); none if not set
 
     // basic constants
     private Integer minTurnTime; // Minimum time required between two chained sections [s]
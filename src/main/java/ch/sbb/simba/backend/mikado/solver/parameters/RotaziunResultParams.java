@@ -1,21 +1,14 @@
 package ch.sbb.simba.backend.mikado.solver.parameters;
 
 import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getChainsFromSolution;
-import static ch.sbb.simba.backend.mikado.solver.utils.HelperMethods.getKey;
-import static ch.sbb.simba.backend.mikado.solver.ip.Objective.getNumberOfBlockDays;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.hasChainAnEmptyTrip;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isDifferentDebicodes;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isInSidingBetweenJournyes;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isSidingHappening;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isStammChange;
-import static ch.sbb.simba.backend.mikado.solver.utils.ModuleAcitvation.isSidingVariableNeeded;
 
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.blocking.models.RotaziunBlock;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
-import ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
-import com.google.ortools.linearsolver.MPSolver;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.SolutionHint;
 import com.google.ortools.linearsolver.MPSolver.ResultStatus;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -25,7 +18,6 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import ch.sbb.simba.backend.mikado.solver.utils.Pair;
 
 @Slf4j
 @Getter
@@ -35,6 +27,8 @@ public class RotaziunResultParams {
 
     private Map<RotaziunSection,RotaziunSection> sectionChainMap;
     private Map<RotaziunSection, Boolean> sidingBeforeEmptyTrip;
+    private ChainAttributes chainAttributes; // attributes of the possible section chains of the final stage
+    private SolutionHint solutionHint; // solution as starting point of the next stage
 
     private List<RotaziunBlock> blocks;
 
@@ -49,8 +43,14 @@ public class RotaziunResultParams {
     private int numOfSidings;
     private int numOfDecoupling;
 
-    public static RotaziunResultParams getResultParams(List<RotaziunSection> sections, List<Pair<Integer, Integer>> possibleChains, Variables v, ResultStatus resultStatus,
-        MPSolver solver, IpSolverParams params) {
+    private int numOfSubtourRounds; // solves of the subtour cut loop of the last stage (0 without subtour cuts)
+    private int numOfSubtourCuts; // subtour cuts added in the last stage
+    private int numOfRollingHorizonWindows; // solved time windows of the rolling horizon in the last stage 2 (0 without rolling horizon)
+
+    private List<RotaziunStageMemory> stageMemory; // resident memory of the process at the end of each solved stage, before its solver is released
+
+    public static RotaziunResultParams getResultParams(List<RotaziunSection> sections, ChainList possibleChains, ChainAttributes attributes, Variables v,
+        double[] solution, ResultStatus resultStatus, double objectiveValue, IpSolverParams params) {
 
         Map<RotaziunSection, Boolean> sidingBeforeEmptyTrip = new HashMap<>();
 
@@ -61,33 +61,36 @@ public class RotaziunResultParams {
         int numOfSidings = 0;
         int numOfDecouplings = 0;
 
-        for(Pair<Integer,Integer> chain : possibleChains){
-            if(v.xMap.get(getKey(chain)).solutionValue() == 1.0){
-                int minFromToDuration = ChainAnalysis.getEmptyTripDuration(sections.get(chain.getFirst()), sections.get(chain.getSecond()), params.getDurationMap());
-                emptyTripDuration += minFromToDuration;
-                numOfStammChanges += isStammChange(sections.get(chain.getFirst()), sections.get(chain.getSecond()), params);
-                numOfBlockDays += getNumberOfBlockDays(sections.get(chain.getFirst()), sections.get(chain.getSecond()), minFromToDuration);
-                numOfDebicodeChanges += isDifferentDebicodes(sections.get(chain.getFirst()), sections.get(chain.getSecond()), params);
-                numOfSidings += isInSidingBetweenJournyes(sections.get(chain.getFirst()), sections.get(chain.getSecond()), params);
-
-                if(params.getStageParams().isWithSidings() && isSidingVariableNeeded(params, sections, chain) && hasChainAnEmptyTrip(sections, chain)){
-                    sidingBeforeEmptyTrip.put(sections.get(chain.getFirst()),v.sMap.get(getKey(chain)).getSecond().solutionValue() != 1.0);
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            if(solution[v.x[idx]] == 1.0){
+                emptyTripDuration += attributes.getEmptyTripDuration(idx);
+                numOfStammChanges += attributes.getStammChange(idx);
+                numOfBlockDays += attributes.getBlockDays(idx);
+                numOfDebicodeChanges += attributes.getDebicodeChange(idx);
+                numOfSidings += attributes.getSiding(idx);
+
+                if(params.getStageParams().isWithSidings() && attributes.isSidingVariableNeeded(idx) && attributes.hasEmptyTrip(idx)){
+                    sidingBeforeEmptyTrip.put(sections.get(possibleChains.getFrom(idx)),solution[v.sSecond[idx]] != 1.0);
                 }
             }
         }
 
         if(params.getStageParams().isWithCouplingDecoupling()){
-            numOfDecouplings = (int) Arrays.stream(v.decoup).filter(decoupling -> decoupling.solutionValue() == 1.0).count();
+            numOfDecouplings = (int) Arrays.stream(v.decoup).filter(decoupling -> solution[decoupling] == 1.0).count();
         }
 
         boolean isSolved = resultStatus == ResultStatus.OPTIMAL || resultStatus == ResultStatus.FEASIBLE;
 
+        Map<RotaziunSection,RotaziunSection> sectionChainMap = getChainsFromSolution(sections, possibleChains, v, solution);
+
         RotaziunResultParams result = RotaziunResultParams.builder()
-            .sectionChainMap(getChainsFromSolution(sections, possibleChains, v))
+            .sectionChainMap(sectionChainMap)
             .sidingBeforeEmptyTrip(sidingBeforeEmptyTrip)
+            .chainAttributes(attributes)
+            .solutionHint(isSolved ? SolutionHint.of(sections, possibleChains, v, solution, sectionChainMap) : null)
             .resultStatus(resultStatus)
             .solved(isSolved)
-            .objectiveValue((int) solver.objective().value())
+            .objectiveValue((int) objectiveValue)
             .emptyTripDuration(emptyTripDuration)
             .numOfStammChanges(numOfStammChanges)
             .numOfBlockDays(numOfBlockDays)
@@ -101,6 +104,28 @@ public class RotaziunResultParams {
 
     }
 
+    // stage that is known to be infeasible without solving it
+    public static RotaziunResultParams getInfeasibleResultParams() {
+        return getUnsolvedResultParams(ResultStatus.INFEASIBLE);
+    }
+
+    // stage that is skipped because the time budget is used up
+    public static RotaziunResultParams getNotSolvedResultParams() {
+        return getUnsolvedResultParams(ResultStatus.NOT_SOLVED);
+    }
+
+    private static RotaziunResultParams getUnsolvedResultParams(ResultStatus resultStatus) {
+        RotaziunResultParams result = RotaziunResultParams.builder()
+            .sectionChainMap(new HashMap<>())
+            .sidingBeforeEmptyTrip(new HashMap<>())
+            .resultStatus(resultStatus)
+            .solved(false)
+            .build();
+
+        logResults(resultStatus, result);
+        return result;
+    }
+
     private static void logResults(ResultStatus resultStatus, RotaziunResultParams result) {
         log.info("Result metrics:");
 
@@ -0,0 +1,31 @@
+package ch.sbb.simba.backend.mikado.solver.parameters;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import java.util.Map;
+import lombok.Builder;
+import lombok.Getter;
+
+/*
+ * Solution found during the solve
+ *  -> the chains are those of the stage: after stage 1 of the two-stage approach, the enforcement sections are not chained yet
+ *  -> the objective and the bound are those of the stage model, they can only be compared within one stage
+ */
+@Getter
+@Builder
+public class RotaziunSolutionEvent {
+
+    private int stage; // 1, 2 or 3 (maintenance)
+    private int precisionLevel;
+
+    private double objectiveValue;
+    private double bestObjectiveBound; // lower bound of the objective of the stage known to the solver
+    private double gap; // relative gap between objective and bound -> 0: the solution is optimal for the stage
+    private double elapsedTime; // time since the start of the solve [s]
+
+    private Map<RotaziunSection,RotaziunSection> sectionChainMap;
+
+    public static double computeGap(double objectiveValue, double bestObjectiveBound) {
+        return Math.abs(objectiveValue - bestObjectiveBound) / Math.max(1, Math.abs(objectiveValue));
+    }
+
+}
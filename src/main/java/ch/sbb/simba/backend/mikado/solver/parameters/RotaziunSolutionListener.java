@@ -0,0 +1,14 @@
+package ch.sbb.simba.backend.mikado.solver.parameters;
+
+/*
+ * Receives the solutions of the solver while it is running (see RotaziunSolutionEvent)
+ *  -> CP-SAT stages (native CP-SAT model): every improving solution of the stage
+ *  -> CBC and linear solver wrapper stages: the solution of the stage once the stage is solved
+ * The listener is called on the solver thread and blocks the search while it runs, it should hand the event on and return.
+ */
+@FunctionalInterface
+public interface RotaziunSolutionListener {
+
+    void onSolution(RotaziunSolutionEvent event);
+
+}
@@ -0,0 +1,23 @@
+package ch.sbb.simba.backend.mikado.solver.parameters;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/*
+ * Resident memory of one stage of the solve, measured at its end with its model and solver still in memory
+ *  -> the values are those of the whole process (JVM and native solver memory), concurrent solves in the same process are included
+ *  -> the peak is the one since the start of the stage, from samples of the resident memory (see ResidentMemory.PeakSampler); the peak of
+ *     the process is not reset
+ *  -> -1 if not available (only on Linux)
+ */
+@Getter
+@Builder
+public class RotaziunStageMemory {
+
+    private int stage; // 1, 2 or 3 (maintenance)
+    private int precisionLevel;
+
+    private long residentMemory; // [MB]
+    private long peakResidentMemory; // [MB]
+
+}
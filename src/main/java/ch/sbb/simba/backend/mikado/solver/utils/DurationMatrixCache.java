@@ -0,0 +1,270 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/*
+ * On-disk cache of resolved station duration matrices (one file per matrix, named by its key)
+ *  -> key: SHA-256 of the station ordinals, station coordinates, observed section durations and duration mode, i.e. of everything the matrix is computed from
+ *  -> file: header (magic, format version, number of stations, CRC32C of the durations, key) followed by the durations as little endian ints
+ *  -> a cached matrix is memory-mapped read-only, so several JVMs on one host share the pages
+ * Files are written to a temporary file and atomically moved into place. Files with a wrong header, size or checksum are deleted and rebuilt.
+ * After each store the least recently used files are evicted until the cache directory is within its size limit;
+ * temporary files left over from writes that did not finish are deleted as well.
+ * The cache is optional: I/O problems are logged and the matrix is computed as without cache.
+ */
+@Slf4j
+@Getter
+public final class DurationMatrixCache {
+
+    private static final int MAGIC = 0x525A444D; // "RZDM"
+    private static final int FORMAT_VERSION = 1;
+    private static final int KEY_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 * Integer.BYTES + KEY_LENGTH;
+    private static final String FILE_SUFFIX = ".durations";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final long STALE_TMP_FILE_AGE = 10 * 60 * 1000L; // [ms], temporary files of writes that did not finish (crashed or killed JVM)
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+
+    public DurationMatrixCache(Path directory, long maxSizeInBytes) {
+        if (maxSizeInBytes < 0) {
+            throw new IllegalArgumentException("Maximum size of the duration cache must not be negative, currently: " + maxSizeInBytes);
+        }
+        this.directory = directory;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    // observedDurations: flat (fromOrdinal * numOfStations + toOrdinal) matrix of the observed section durations, notSet for unobserved relations
+    public static byte[] computeKey(long[] stationIds, float[] xcoords, float[] ycoords, int[] observedDurations, int notSet, boolean network) {
+        MessageDigest digest = getSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FORMAT_VERSION).putInt(stationIds.length).putInt(network ? 1 : 0);
+        for (int ordinal = 0; ordinal < stationIds.length; ordinal++) {
+            flushIfFull(digest, buffer, Long.BYTES + 2 * Float.BYTES);
+            buffer.putLong(stationIds[ordinal]).putFloat(xcoords[ordinal]).putFloat(ycoords[ordinal]);
+        }
+        for (int idx = 0; idx < observedDurations.length; idx++) {
+            if (observedDurations[idx] != notSet) {
+                flushIfFull(digest, buffer, 2 * Integer.BYTES);
+                buffer.putInt(idx).putInt(observedDurations[idx]);
+            }
+        }
+        buffer.flip();
+        digest.update(buffer);
+        return digest.digest();
+    }
+
+    private static void flushIfFull(MessageDigest digest, ByteBuffer buffer, int bytesToPut) {
+        if (buffer.remaining() < bytesToPut) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+        }
+    }
+
+    private static MessageDigest getSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // memory-mapped read-only durations of the cached matrix, null if the matrix is not (validly) cached
+    public IntBuffer load(byte[] key, int numOfStations) {
+        Path file = getFile(key);
+        long numOfEntries = (long) numOfStations * numOfStations;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_LENGTH + numOfEntries * Integer.BYTES) {
+                return invalidate(file, "unexpected file size");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] storedKey = new byte[KEY_LENGTH];
+            int magic = mapped.getInt();
+            int version = mapped.getInt();
+            int storedNumOfStations = mapped.getInt();
+            int checksum = mapped.getInt();
+            mapped.get(storedKey);
+            if (magic != MAGIC || version != FORMAT_VERSION || storedNumOfStations != numOfStations || !Arrays.equals(storedKey, key)) {
+                return invalidate(file, "header does not match");
+            }
+
+            ByteBuffer durations = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C crc = new CRC32C();
+            crc.update(durations.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return invalidate(file, "checksum does not match");
+            }
+
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis())); // recently used, see evict()
+            log.info("Duration matrix loaded from cache: " + file);
+            return durations.asIntBuffer();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Duration matrix cache file " + file + " could not be read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private IntBuffer invalidate(Path file, String reason) throws IOException {
+        log.warn("Duration matrix cache file " + file + " is invalid (" + reason + ") and is rebuilt");
+        Files.deleteIfExists(file);
+        return null;
+    }
+
+    public void store(byte[] key, IntBuffer durations, int numOfStations) {
+        Path file = getFile(key);
+        Path tmpFile = null;
+        try {
+            Files.createDirectories(directory);
+            tmpFile = Files.createTempFile(directory, file.getFileName().toString(), TMP_FILE_SUFFIX);
+            writeFile(tmpFile, key, durations, numOfStations);
+            moveIntoPlace(tmpFile, file);
+            evict(file);
+        } catch (IOException e) {
+            log.warn("Duration matrix could not be written to cache directory " + directory + ": " + e.getMessage());
+        } finally {
+            deleteQuietly(tmpFile);
+        }
+    }
+
+    private static void writeFile(Path file, byte[] key, IntBuffer durations, int numOfStations) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            CRC32C crc = new CRC32C();
+            IntBuffer remaining = durations.duplicate();
+            remaining.rewind();
+            channel.position(HEADER_LENGTH);
+            while (remaining.hasRemaining()) {
+                buffer.clear();
+                int numOfInts = Math.min(remaining.remaining(), buffer.capacity() / Integer.BYTES);
+                for (int i = 0; i < numOfInts; i++) {
+                    buffer.putInt(remaining.get());
+                }
+                buffer.flip();
+                crc.update(buffer.duplicate());
+                writeFully(channel, buffer);
+            }
+
+            // the header is written last, a partially written file never passes the checksum
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(numOfStations).putInt((int) crc.getValue()).put(key);
+            buffer.flip();
+            channel.position(0);
+            writeFully(channel, buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void moveIntoPlace(Path tmpFile, Path file) throws IOException {
+        try {
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+     * delete the least recently used cache files until the directory is within maxSizeInBytes; the file just stored is kept
+     *  -> temporary files older than STALE_TMP_FILE_AGE are left over from writes that did not finish and are deleted,
+     *     younger ones (writes in progress, e.g. of another JVM) count toward the size but are not deleted
+     */
+    private void evict(Path storedFile) throws IOException {
+        List<CacheFile> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.map(DurationMatrixCache::toCacheFile).filter(Objects::nonNull).toList();
+        }
+
+        long totalSize = 0;
+        long staleTime = System.currentTimeMillis() - STALE_TMP_FILE_AGE;
+        for (CacheFile tmpFile : files.stream().filter(CacheFile::isTmpFile).toList()) {
+            if (tmpFile.lastModified() < staleTime) {
+                log.info("Stale temporary duration matrix file deleted: " + tmpFile.path());
+                deleteQuietly(tmpFile.path());
+            } else {
+                totalSize += tmpFile.size();
+            }
+        }
+
+        List<CacheFile> cacheFiles = files.stream().filter(CacheFile::isCacheFile)
+            .sorted(Comparator.comparingLong(CacheFile::lastModified).reversed()).toList();
+        for (CacheFile cacheFile : cacheFiles) {
+            totalSize += cacheFile.size();
+            if (totalSize > maxSizeInBytes && !cacheFile.path().equals(storedFile)) {
+                log.info("Duration matrix evicted from cache: " + cacheFile.path());
+                deleteQuietly(cacheFile.path());
+                totalSize -= cacheFile.size();
+            }
+        }
+    }
+
+    private record CacheFile(Path path, long size, long lastModified) {
+
+        boolean isCacheFile() {
+            return path.getFileName().toString().endsWith(FILE_SUFFIX);
+        }
+
+        boolean isTmpFile() {
+            return path.getFileName().toString().endsWith(TMP_FILE_SUFFIX);
+        }
+
+    }
+
+    // null if the file was removed concurrently
+    private static CacheFile toCacheFile(Path path) {
+        try {
+            return new CacheFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Duration matrix cache file " + file + " could not be deleted: " + e.getMessage());
+        }
+    }
+
+    private Path getFile(byte[] key) {
+        return directory.resolve(HexFormat.of().formatHex(key) + FILE_SUFFIX);
+    }
+
+}
@@ -1,9 +1,9 @@
 package ch.sbb.simba.backend.mikado.solver.utils;
 
-import static ch.sbb.simba.backend.mikado.solver.RotaziunSolver.numOfSections;
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
 
 import ch.sbb.simba.backend.mikado.solver.ip.Variables;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
@@ -24,8 +24,9 @@ public final class HelperMethods {
         return delta < 0 ? delta + DAY_IN_SECONDS : delta;
     }
 
-    public static int getKey(Pair<Integer,Integer> x) {
-        return x.getFirst() * numOfSections + x.getSecond();
+    // 64 bit, from-section in the upper and to-section in the lower half; unique without knowing the number of sections
+    public static long getKey(int fromSectionIdx, int toSectionIdx) {
+        return ((long) fromSectionIdx << 32) | toSectionIdx;
     }
 
     public static int getCost(Integer duration) {
@@ -36,11 +37,11 @@ public final class HelperMethods {
         return !params.getProhibitedCouplingDecouplingStationIds().contains(station.getId());
     }
 
-    public static Map<RotaziunSection,RotaziunSection> getChainsFromSolution(List<RotaziunSection> sections, List<Pair<Integer, Integer>> possibleChains, Variables v) {
+    public static Map<RotaziunSection,RotaziunSection> getChainsFromSolution(List<RotaziunSection> sections, ChainList possibleChains, Variables v, double[] solution) {
         Map<RotaziunSection,RotaziunSection> sectionChainMap = new HashMap<>();
-        for(Pair<Integer,Integer> p : possibleChains){
-            if(v.xMap.get(getKey(p)).solutionValue() == 1){
-                sectionChainMap.put(sections.get(p.getFirst()), sections.get(p.getSecond()));
+        for(int idx = 0; idx < possibleChains.size(); idx++){
+            if(solution[v.x[idx]] == 1){
+                sectionChainMap.put(sections.get(possibleChains.getFrom(idx)), sections.get(possibleChains.getTo(idx)));
             }
         }
         return sectionChainMap;
@@ -1,8 +1,5 @@
 package ch.sbb.simba.backend.mikado.solver.utils;
 
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isChainAtCapacityRestrictedStation;
-import static ch.sbb.simba.backend.mikado.solver.ip.chaining.analysis.ChainAnalysis.isSidingHappening;
-
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
@@ -17,7 +14,8 @@ public final class ModuleAcitvation {
         if(sections.size() < IpSolverParams.MIN_NUMBER_OF_SECTIONS_FOR_TWO_STAGE_APPROACH) {
             return false;
         }
-        if(params.getPrecisionLevel() == 0){
+        if(params.getPrecisionLevel() == 0 || params.isRollingHorizon()){
+            // the rolling horizon is stage 2, with oneBlock stage 1 is needed as its starting solution
             return determineProblemComplexity(params) > 0;
         }
         return determineProblemComplexity(params) > 1;
@@ -38,6 +36,44 @@ public final class ModuleAcitvation {
         return params.getMinTimeForCoupling() != 0 || !params.getProhibitedCouplingDecouplingStationIds().isEmpty();
     }
 
+    // stage 1 without oneBlock (and oneBlock with subtour cuts) is solved by CBC, all other stages by CP-SAT
+    public static boolean isSolvedWithCbc(IpSolverParams params) {
+        return (params.getStageParams().getStage() == 1 && !params.getStageParams().isOnlyOneBlock()) || isOneBlockSolvedWithSubtourCuts(params);
+    }
+
+    /*
+     * without oneBlock (coupling-decoupling, sidings and maintenance require oneBlock), the stage model is an assignment problem: every section
+     * gets exactly one successor and one predecessor, the cost of a chain only depends on the chain
+     */
+    public static boolean isSolvedAsLinearSumAssignment(IpSolverParams params) {
+        return params.isLinearSumAssignment() && !params.getStageParams().isOnlyOneBlock();
+    }
+
+    // two-stage approach: stage 1 without oneBlock at precision level 0, and with rolling horizon (its time windows join the blocks of stage 1)
+    public static boolean isStageOneWithoutOneBlock(IpSolverParams params) {
+        return params.getPrecisionLevel() == 0 || params.isRollingHorizon();
+    }
+
+    public static boolean isSolvedWithNativeCpSat(IpSolverParams params) {
+        return params.isNativeCpSat() && !isSolvedWithCbc(params);
+    }
+
+    // native CP-SAT: oneBlock as circuit constraint over the possible section chains instead of MTZ placement rows
+    public static boolean isOneBlockModelledAsCircuit(IpSolverParams params) {
+        return params.getStageParams().isOnlyOneBlock() && isSolvedWithNativeCpSat(params);
+    }
+
+    // oneBlock by subtour cuts for the blocks of each solution instead of MTZ rows or circuit; maintenance needs the placements
+    public static boolean isOneBlockSolvedWithSubtourCuts(IpSolverParams params) {
+        return params.isSubtourCuts() && params.getStageParams().isOnlyOneBlock() && !params.getStageParams().isWithMaintenance();
+    }
+
+    // placements u_i: for the MTZ rows or the maintenance windows
+    public static boolean arePlacementVariablesNeeded(IpSolverParams params) {
+        return params.getStageParams().isOnlyOneBlock() &&
+            (params.getStageParams().isWithMaintenance() || !isOneBlockModelledAsCircuit(params) && !isOneBlockSolvedWithSubtourCuts(params));
+    }
+
     public static boolean isSidingModuleNeeded(RotaziunInputParams input) {
         return !input.getSidingCapacityMap().isEmpty();
     }
@@ -72,14 +108,4 @@ public final class ModuleAcitvation {
         }
     }
 
-    public static boolean isSidingVariableNeeded(IpSolverParams params, List<RotaziunSection> sections, Pair<Integer, Integer> p) {
-        return isSidingHappening(sections.get(p.getFirst()), sections.get(p.getSecond()), params)
-            && isChainAtCapacityRestrictedStation(sections.get(p.getFirst()), sections.get(p.getSecond()), params);
-    }
-
-    public static boolean isSidingVariableNeeded(IpSolverParams params, RotaziunSection fromSection, RotaziunSection toSection) {
-        return isSidingHappening(fromSection, toSection, params)
-            && isChainAtCapacityRestrictedStation(fromSection, toSection, params);
-    }
-
 }
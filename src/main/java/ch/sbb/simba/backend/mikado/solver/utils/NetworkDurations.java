@@ -0,0 +1,139 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
+
+import java.util.Arrays;
+
+/*
+ * Shortest path durations over the network of observed section relations
+ *  -> every section is a relation of the network, stored in primitive adjacency arrays (outgoing relations of station s: outStart[s] .. outStart[s+1]-1),
+ *     the reversed relations likewise (incoming relations of station s)
+ *  -> one Dijkstra per requested row, no matrix is kept: the caller computes the rows it needs (in parallel if it wants to)
+ *  -> overnight sections (arrival before departure) are weighted with their real duration, i.e. plus one day
+ */
+public final class NetworkDurations {
+
+    private final int numOfStations;
+    private final int[] outStart;
+    private final int[] outTarget;
+    private final int[] outWeight;
+    private final int[] inStart;
+    private final int[] inSource;
+    private final int[] inWeight;
+
+    // section i leads from station fromOrdinals[i] to station toOrdinals[i] in durations[i] seconds
+    public NetworkDurations(int[] fromOrdinals, int[] toOrdinals, int[] durations, int numOfStations) {
+        this.numOfStations = numOfStations;
+        this.outStart = new int[numOfStations + 1];
+        this.outTarget = new int[fromOrdinals.length];
+        this.outWeight = new int[fromOrdinals.length];
+        this.inStart = new int[numOfStations + 1];
+        this.inSource = new int[fromOrdinals.length];
+        this.inWeight = new int[fromOrdinals.length];
+        fillAdjacency(fromOrdinals, toOrdinals, durations, outStart, outTarget, outWeight);
+        fillAdjacency(toOrdinals, fromOrdinals, durations, inStart, inSource, inWeight);
+    }
+
+    private void fillAdjacency(int[] fromOrdinals, int[] toOrdinals, int[] durations, int[] start, int[] target, int[] weight) {
+        for (int from : fromOrdinals) {
+            start[from + 1]++;
+        }
+        for (int station = 0; station < numOfStations; station++) {
+            start[station + 1] += start[station];
+        }
+
+        int[] nextEdge = Arrays.copyOf(start, numOfStations);
+        for (int i = 0; i < fromOrdinals.length; i++) {
+            int edge = nextEdge[fromOrdinals[i]]++;
+            target[edge] = toOrdinals[i];
+            weight[edge] = durations[i] < 0 ? durations[i] + DAY_IN_SECONDS : durations[i];
+        }
+    }
+
+    // shortest path durations from the source to every station, notSet for stations that cannot be reached
+    public int[] computeDurationsFrom(int source, int notSet) {
+        return dijkstra(source, outStart, outTarget, outWeight, notSet);
+    }
+
+    // shortest path durations from every station to the target (Dijkstra over the reversed relations), notSet for stations without a path
+    public int[] computeDurationsTo(int target, int notSet) {
+        return dijkstra(target, inStart, inSource, inWeight, notSet);
+    }
+
+    /*
+     * heap entries: (duration << 32 | station), stale entries are skipped when polled
+     *  -> every relation adds at most one entry, so the heap never holds more than (number of relations + 1) entries
+     *  -> durations of overnight sections are never negative, so Dijkstra is applicable
+     */
+    private int[] dijkstra(int source, int[] start, int[] target, int[] weight, int notSet) {
+
+        long[] durations = new long[numOfStations];
+        Arrays.fill(durations, Long.MAX_VALUE);
+        long[] heap = new long[target.length + 1];
+        int heapSize = 0;
+
+        durations[source] = 0;
+        heap[heapSize++] = source;
+        while (heapSize > 0) {
+            long entry = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+
+            int station = (int) entry;
+            long duration = entry >>> 32;
+            if (duration > durations[station]) {
+                continue;
+            }
+            for (int edge = start[station]; edge < start[station + 1]; edge++) {
+                int next = target[edge];
+                long newDuration = Math.min(duration + weight[edge], Integer.MAX_VALUE); // keeps the heap entries positive
+                if (newDuration < durations[next]) {
+                    durations[next] = newDuration;
+                    heap[heapSize] = newDuration << 32 | next;
+                    siftUp(heap, heapSize++);
+                }
+            }
+        }
+
+        int[] row = new int[numOfStations];
+        for (int station = 0; station < numOfStations; station++) {
+            row[station] = durations[station] == Long.MAX_VALUE ? notSet : (int) durations[station];
+        }
+        return row;
+    }
+
+    private static void siftUp(long[] heap, int idx) {
+        long value = heap[idx];
+        while (idx > 0) {
+            int parent = (idx - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[idx] = heap[parent];
+            idx = parent;
+        }
+        heap[idx] = value;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        int idx = 0;
+        long value = heap[0];
+        int half = size >>> 1;
+        while (idx < half) {
+            int child = 2 * idx + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[idx] = heap[child];
+            idx = child;
+        }
+        heap[idx] = value;
+    }
+
+}
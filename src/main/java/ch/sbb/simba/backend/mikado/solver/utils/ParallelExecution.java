@@ -0,0 +1,135 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+public final class ParallelExecution {
+
+    private static final int MIN_CHUNK_SIZE = 16;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelExecution() {
+    }
+
+    /*
+     * maps every index in [0,size) to a list and concatenates the lists in index order
+     *  -> the index range is split into chunks which are computed on the executor (common pool if null)
+     *  -> the result is identical to the sequential computation
+     */
+    public static <T> List<T> flatMapInOrder(int size, IntFunction<List<T>> mapper, boolean parallel, Executor executor) {
+        return flatMapChunksInOrder(size, (from, to) -> flatMapRange(from, to, mapper), parallel, executor);
+    }
+
+    // maps every index in [0,size) to one element, in index order
+    public static <T> List<T> mapInOrder(int size, IntFunction<T> mapper, boolean parallel, Executor executor) {
+        return flatMapInOrder(size, idx -> List.of(mapper.apply(idx)), parallel, executor);
+    }
+
+    /*
+     * maps every index in [0,size) to one element, in index order
+     *  -> every chunk gets its own scratch from the supplier, it is reused for all indices of the chunk and dropped with it
+     */
+    public static <S, T> List<T> mapInOrder(int size, Supplier<S> scratchSupplier, ScratchMapper<S, T> mapper, boolean parallel, Executor executor) {
+        return flatMapChunksInOrder(size, (from, to) -> {
+            S scratch = scratchSupplier.get();
+            List<T> result = new ArrayList<>(to - from);
+            for (int idx = from; idx < to; idx++) {
+                result.add(mapper.apply(scratch, idx));
+            }
+            return result;
+        }, parallel, executor);
+    }
+
+    @FunctionalInterface
+    public interface ScratchMapper<S, T> {
+        T apply(S scratch, int idx);
+    }
+
+    @FunctionalInterface
+    private interface RangeMapper<T> {
+        List<T> apply(int from, int to);
+    }
+
+    private static <T> List<T> flatMapChunksInOrder(int size, RangeMapper<T> rangeMapper, boolean parallel, Executor executor) {
+
+        if (!parallel || size <= MIN_CHUNK_SIZE) {
+            return rangeMapper.apply(0, size);
+        }
+
+        Executor chunkExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        int numOfChunks = Math.min(Runtime.getRuntime().availableProcessors() * CHUNKS_PER_THREAD, (size + MIN_CHUNK_SIZE - 1) / MIN_CHUNK_SIZE);
+        int chunkSize = (size + numOfChunks - 1) / numOfChunks;
+
+        List<CompletableFuture<List<T>>> chunks = new ArrayList<>();
+        for (int start = 0; start < size; start += chunkSize) {
+            int from = start;
+            int to = Math.min(start + chunkSize, size);
+            chunks.add(CompletableFuture.supplyAsync(() -> rangeMapper.apply(from, to), chunkExecutor));
+        }
+
+        List<T> result = new ArrayList<>();
+        for (CompletableFuture<List<T>> chunk : chunks) {
+            result.addAll(join(chunk));
+        }
+        return result;
+    }
+
+    /*
+     * applies the action to every index in [0,size)
+     *  -> the index range is split into chunks which are computed on the executor (common pool if null)
+     *  -> the action must only write state that belongs to its own index
+     */
+    public static void forEachIndex(int size, IntConsumer action, boolean parallel, Executor executor) {
+        flatMapInOrder(size, idx -> {
+            action.accept(idx);
+            return List.of();
+        }, parallel, executor);
+    }
+
+    /*
+     * runs every task, each on its own on the executor (common pool if null) if parallel, otherwise one after the other in list order
+     *  -> the tasks must only write state that belongs to themselves
+     */
+    public static void runAll(List<Runnable> tasks, boolean parallel, Executor executor) {
+
+        if (!parallel || tasks.size() <= 1) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        Executor taskExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        List<CompletableFuture<Void>> futures = tasks.stream().map(task -> CompletableFuture.runAsync(task, taskExecutor)).toList();
+        futures.forEach(ParallelExecution::join);
+    }
+
+    private static <T> List<T> flatMapRange(int from, int to, IntFunction<List<T>> mapper) {
+        List<T> result = new ArrayList<>();
+        for (int idx = from; idx < to; idx++) {
+            result.addAll(mapper.apply(idx));
+        }
+        return result;
+    }
+
+    // rethrow exceptions of the chunk computation unwrapped
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Resident memory of the process (JVM and native solver memory) from /proc/self/status, only available on Linux
+ *  -> VmRSS: resident memory now
+ *  -> VmHWM: peak resident memory since the start of the process (high-water mark)
+ * All values are those of the whole process, concurrent solves in the same process are included. Only read, never reset.
+ */
+public final class ResidentMemory {
+
+    public static final long NOT_AVAILABLE = -1;
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+    private static final long SAMPLE_INTERVAL = 100; // [ms]
+
+    private static final ScheduledExecutorService SAMPLING = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rotaziun-resident-memory-sampling");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private ResidentMemory() {
+    }
+
+    // [MB]
+    public static long getResidentMemory() {
+        return readStatusField("VmRSS:");
+    }
+
+    // [MB]
+    public static long getPeakResidentMemory() {
+        return readStatusField("VmHWM:");
+    }
+
+    // samples the resident memory until stop() is called
+    public static PeakSampler startPeakSampling() {
+        return new PeakSampler();
+    }
+
+    /*
+     * Peak resident memory since the start of the sampling (e.g. of a stage), measured without resetting the peak of the process
+     *  -> VmRSS is sampled every SAMPLE_INTERVAL ms, the peak is the largest sample; a short peak between two samples is missed
+     *  -> if VmHWM has risen since the start, the process reached its peak within the sampling time, the new VmHWM is then the exact peak
+     */
+    public static final class PeakSampler {
+
+        private final long peakAtStart = ResidentMemory.getPeakResidentMemory();
+        private final AtomicLong sampledPeak = new AtomicLong(NOT_AVAILABLE);
+        private final ScheduledFuture<?> sampling;
+
+        private PeakSampler() {
+            sample();
+            sampling = SAMPLING.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL, SAMPLE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+
+        // [MB], resident memory now, included in the peak
+        public long sample() {
+            long residentMemory = getResidentMemory();
+            sampledPeak.accumulateAndGet(residentMemory, Math::max);
+            return residentMemory;
+        }
+
+        // [MB]
+        public long getPeakResidentMemory() {
+            long peak = ResidentMemory.getPeakResidentMemory();
+            return peak > peakAtStart ? Math.max(peak, sampledPeak.get()) : sampledPeak.get();
+        }
+
+        public void stop() {
+            sampling.cancel(false);
+        }
+
+    }
+
+    // status fields are given in kB, e.g. "VmRSS:     123456 kB"
+    private static long readStatusField(String field) {
+        try {
+            List<String> lines = Files.readAllLines(PROC_STATUS);
+            for (String line : lines) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.substring(field.length()).trim().split("\\s+")[0]) / 1024;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return NOT_AVAILABLE;
+        }
+        return NOT_AVAILABLE;
+    }
+
+}
@@ -1,38 +1,126 @@
 package ch.sbb.simba.backend.mikado.solver.utils;
 
 import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
+import static ch.sbb.simba.backend.mikado.solver.utils.ParallelExecution.forEachIndex;
 
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
 
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import java.nio.IntBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
+import lombok.AccessLevel;
 import lombok.Getter;
 
+/*
+ * Minimal durations between all stations of the sections:
+ *  -> observed duration of a section between the stations, otherwise the observed duration in reverse direction, otherwise a bee line estimation
+ *  -> with network durations: observed duration, otherwise the shortest path over the observed relations, otherwise the shortest path
+ *     in reverse direction, otherwise (stations not connected) a bee line estimation
+ *  -> stations are numbered by ordinals; durations and prohibited empty trips are stored in flat matrices (fromOrdinal * numOfStations + toOrdinal)
+ * The station-ID based methods are adapters to the ordinal based ones.
+ *
+ * The missing durations are either filled for all station pairs at construction (row-wise, in parallel if activated)
+ * or computed lazily on first access. Both give identical durations. Network durations are resolved for a whole row at once
+ * (one Dijkstra from and, if a station cannot be reached, one to the row's station), no shortest path matrix is kept.
+ * With a duration cache, a fully resolved matrix is stored on disk and memory-mapped by later runs with the same stations and sections
+ * (a lazily computed matrix is only read from, not written to the cache).
+ */
 @Getter
 public class RotaziunDurationMap {
 
-    private final Map<Relation, Integer> minFromToDuration = new HashMap<>();
-    private final Map<Long, RotaziunStation> stationsById = new HashMap<>();;
+    private static final int MAX_DURATION = DAY_IN_SECONDS - 3600;
+    private static final int NOT_SET = Integer.MIN_VALUE;
+    private static final long MAX_MATRIX_ENTRIES = Integer.MAX_VALUE - 8; // largest int[] the JVM allocates
 
-    record Relation(Long fromId, Long toId) {
+    private final Map<Long, RotaziunStation> stationsById = new LinkedHashMap<>();
+    private final Map<Long, Integer> stationOrdinals = new HashMap<>(); // (station-ID -> ordinal)
+    private final long[] stationIds; // (ordinal -> station-ID)
+    private final int numOfStations;
+    @Getter(AccessLevel.NONE)
+    private final IntBuffer minFromToDuration; // (fromOrdinal * numOfStations + toOrdinal -> min duration [s]); heap or memory-mapped from the cache
+    @Getter(AccessLevel.NONE)
+    private final long[] prohibitedEmptyTrips; // bit matrix with the same indexing as minFromToDuration
+    private final boolean lazy;
+    private final boolean network;
+    @Getter(AccessLevel.NONE)
+    private final NetworkDurations networkDurations; // network durations only: relations of the sections for the shortest paths
 
-    }
+    // station coordinates in radians and cosine of the latitude (ordinal -> value)
+    @Getter(AccessLevel.NONE)
+    private final double[] lonRad;
+    @Getter(AccessLevel.NONE)
+    private final double[] latRad;
+    @Getter(AccessLevel.NONE)
+    private final double[] cosLat;
 
     public RotaziunDurationMap(List<RotaziunSection> sections) {
+        this(sections, false, false, false, null, null);
+    }
+
+    public RotaziunDurationMap(List<RotaziunSection> sections, boolean lazy, boolean network, boolean parallel, Executor executor, DurationMatrixCache cache) {
 
-        // fill stationByIdMap
+        // fill stationByIdMap and number the stations
         getAllStations(sections).forEach(station -> stationsById.put(station.getId(), station));
+        this.numOfStations = stationsById.size();
+        this.stationIds = stationsById.keySet().stream().mapToLong(Long::longValue).toArray();
+        this.lonRad = new double[numOfStations];
+        this.latRad = new double[numOfStations];
+        this.cosLat = new double[numOfStations];
+        for (int ordinal = 0; ordinal < numOfStations; ordinal++) {
+            stationOrdinals.put(stationIds[ordinal], ordinal);
+            RotaziunStation station = stationsById.get(stationIds[ordinal]);
+            lonRad[ordinal] = Math.toRadians(station.getXcoord());
+            latRad[ordinal] = Math.toRadians(station.getYcoord());
+            cosLat[ordinal] = Math.cos(latRad[ordinal]);
+        }
+
+        long numOfEntries = (long) numOfStations * numOfStations;
+        if (numOfEntries > MAX_MATRIX_ENTRIES) {
+            throw new IllegalArgumentException("Too many stations for the duration matrix: " + numOfStations + ", at most " + (int) Math.sqrt(MAX_MATRIX_ENTRIES));
+        }
+        this.prohibitedEmptyTrips = new long[(int) ((numOfEntries + 63) / 64)];
 
         // save all section duration times
-        for (RotaziunSection section : sections) {
-            saveInMap(section.getFromStation().getId(), section.getToStation().getId(), section.getArrival() - section.getDeparture());
+        int[] observedDurations = new int[(int) numOfEntries];
+        Arrays.fill(observedDurations, NOT_SET);
+        int[] fromOrdinals = new int[sections.size()];
+        int[] toOrdinals = new int[sections.size()];
+        int[] sectionDurations = new int[sections.size()];
+        for (int i = 0; i < sections.size(); i++) {
+            RotaziunSection section = sections.get(i);
+            fromOrdinals[i] = getStationOrdinal(section.getFromStation().getId());
+            toOrdinals[i] = getStationOrdinal(section.getToStation().getId());
+            sectionDurations[i] = section.getArrival() - section.getDeparture();
+            saveInMatrix(observedDurations, fromOrdinals[i], toOrdinals[i], sectionDurations[i]);
+        }
+
+        this.network = network;
+        byte[] cacheKey = cache != null ? computeCacheKey(observedDurations) : null;
+        IntBuffer cachedDurations = cache != null ? cache.load(cacheKey, numOfStations) : null;
+        if (cachedDurations != null) {
+            this.minFromToDuration = cachedDurations;
+            this.networkDurations = null;
+            this.lazy = false;
+            return;
         }
+        this.networkDurations = network ? new NetworkDurations(fromOrdinals, toOrdinals, sectionDurations, numOfStations) : null;
+        this.minFromToDuration = IntBuffer.wrap(observedDurations);
+        this.lazy = lazy;
 
         // compute remaining relation times
-        addEmptyTripTimes(getAllStations(sections));
+        if (!lazy) {
+            forEachIndex(numOfStations, network ? this::addNetworkDurations : this::addEmptyTripTimes, parallel, executor);
+            if (cache != null) {
+                cache.store(cacheKey, minFromToDuration, numOfStations);
+            }
+        }
     }
 
 
@@ -40,60 +128,149 @@ public class RotaziunDurationMap {
         return sections.stream().flatMap(section -> Stream.of(section.getToStation(), section.getFromStation())).distinct().toList();
     }
 
-    private void saveInMap(Long fromStationId, Long toStationId, int duration) {
-        var relation = new Relation(fromStationId, toStationId);
-        if (this.minFromToDuration.getOrDefault(relation, Integer.MAX_VALUE) > duration) {
-            this.minFromToDuration.put(relation, duration);
+    private void saveInMatrix(int[] durations, int fromOrdinal, int toOrdinal, int duration) {
+        int idx = fromOrdinal * numOfStations + toOrdinal;
+        if (durations[idx] == NOT_SET || durations[idx] > duration) {
+            durations[idx] = duration;
+        }
+    }
+
+    private byte[] computeCacheKey(int[] observedDurations) {
+        float[] xcoords = new float[numOfStations];
+        float[] ycoords = new float[numOfStations];
+        for (int ordinal = 0; ordinal < numOfStations; ordinal++) {
+            RotaziunStation station = stationsById.get(stationIds[ordinal]);
+            xcoords[ordinal] = station.getXcoord();
+            ycoords[ordinal] = station.getYcoord();
         }
+        return DurationMatrixCache.computeKey(stationIds, xcoords, ycoords, observedDurations, NOT_SET, network);
     }
 
-    private void addEmptyTripTimes(List<RotaziunStation> allStations) {
-        for(RotaziunStation stationFrom : allStations){
-            for(RotaziunStation stationTo : allStations){
-                getDuration(stationFrom.getId(), stationTo.getId());
+    /*
+     * a relation without observed duration uses the observed reverse duration, otherwise the (symmetric) bee line estimation
+     *  -> row "from" resolves the relations (from,to) and (to,from) for to >= from, so different rows never write the same entry
+     */
+    private void addEmptyTripTimes(int from) {
+        for (int to = from; to < numOfStations; to++) {
+            int idx = from * numOfStations + to;
+            int reverseIdx = to * numOfStations + from;
+            int duration = minFromToDuration.get(idx);
+            int reverseDuration = minFromToDuration.get(reverseIdx);
+            if (duration == NOT_SET && reverseDuration == NOT_SET) {
+                duration = computeBeeLineDuration(from, to);
+                minFromToDuration.put(idx, duration);
+            }
+            if (duration == NOT_SET) {
+                minFromToDuration.put(idx, reverseDuration);
+            } else if (reverseDuration == NOT_SET) {
+                minFromToDuration.put(reverseIdx, duration);
             }
         }
     }
 
-    public Integer getDuration(Long fromStationId, Long toStationId) {
-        var relation = new Relation(fromStationId, toStationId);
-        if (!minFromToDuration.containsKey(relation)) {
-            minFromToDuration.put(relation, comupteAdditionalDuration(fromStationId, toStationId));
+    /*
+     * network durations: row "from" only writes its own relations
+     *  -> shortest path from -> to, otherwise the shortest path to -> from (Dijkstra over the reversed relations, only if needed),
+     *     otherwise the bee line
+     */
+    private void addNetworkDurations(int from) {
+        int[] durationsFrom = networkDurations.computeDurationsFrom(from, NOT_SET);
+        int[] durationsTo = null;
+        for (int to = 0; to < numOfStations; to++) {
+            int idx = from * numOfStations + to;
+            if (minFromToDuration.get(idx) != NOT_SET) {
+                continue;
+            }
+            int duration = durationsFrom[to];
+            if (duration == NOT_SET) {
+                durationsTo = durationsTo != null ? durationsTo : networkDurations.computeDurationsTo(from, NOT_SET);
+                duration = durationsTo[to];
+            }
+            minFromToDuration.put(idx, duration != NOT_SET ? duration : computeBeeLineDuration(from, to));
         }
-        var x = minFromToDuration.get(relation);
-        return Math.min(x,DAY_IN_SECONDS-3600);
     }
 
-    private Integer comupteAdditionalDuration(Long fromStationId, Long toStationId) {
-        // if a reverse duration exists, use it
+    /*
+     * lazy mode: resolves the relation on first access, network durations for the whole row of the from-station
+     *  -> the resolved value does not depend on the access order, concurrent accesses at most compute it twice
+     */
+    private int resolveDuration(int fromOrdinal, int toOrdinal) {
+        int idx = fromOrdinal * numOfStations + toOrdinal;
+        int duration = minFromToDuration.get(idx);
+        if (duration == NOT_SET && network) {
+            addNetworkDurations(fromOrdinal);
+            duration = minFromToDuration.get(idx);
+        } else if (duration == NOT_SET) {
+            duration = minFromToDuration.get(toOrdinal * numOfStations + fromOrdinal);
+            if (duration == NOT_SET) {
+                duration = computeBeeLineDuration(fromOrdinal, toOrdinal);
+            }
+            minFromToDuration.put(idx, duration);
+        }
+        return duration;
+    }
 
-        var reverseRelation = new Relation(toStationId, fromStationId);
-        if (this.minFromToDuration.containsKey(reverseRelation)) {
-            return this.minFromToDuration.get(reverseRelation);
+    // mark the prohibited empty trips (from Station-ID, to prohibited Station-IDs); stations without sections are ignored
+    public void setProhibitedEmptyTrips(Map<Long, Set<Long>> prohibitedEmptyTripsMap) {
+        Arrays.fill(prohibitedEmptyTrips, 0L);
+        prohibitedEmptyTripsMap.forEach((fromStationId, toStationIds) -> {
+            Integer fromOrdinal = stationOrdinals.get(fromStationId);
+            if (fromOrdinal == null) {
+                return;
+            }
+            for (Long toStationId : toStationIds) {
+                Integer toOrdinal = stationOrdinals.get(toStationId);
+                if (toOrdinal != null) {
+                    int idx = fromOrdinal * numOfStations + toOrdinal;
+                    prohibitedEmptyTrips[idx >>> 6] |= 1L << idx;
+                }
+            }
+        });
+    }
+
+    public int getStationOrdinal(Long stationId) {
+        Integer ordinal = stationOrdinals.get(stationId);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("Station " + stationId + " is not part of any section");
         }
+        return ordinal;
+    }
 
-        var from = stationsById.get(fromStationId);
-        var to = stationsById.get(toStationId);
+    public Integer getDuration(Long fromStationId, Long toStationId) {
+        return getDuration(getStationOrdinal(fromStationId), getStationOrdinal(toStationId));
+    }
+
+    public int getDuration(int fromOrdinal, int toOrdinal) {
+        int duration = lazy ? resolveDuration(fromOrdinal, toOrdinal) : minFromToDuration.get(fromOrdinal * numOfStations + toOrdinal);
+        return Math.min(duration, MAX_DURATION);
+    }
+
+    public boolean isEmptyTripProhibited(Long fromStationId, Long toStationId) {
+        Integer fromOrdinal = stationOrdinals.get(fromStationId);
+        Integer toOrdinal = stationOrdinals.get(toStationId);
+        return fromOrdinal != null && toOrdinal != null && isEmptyTripProhibited(fromOrdinal.intValue(), toOrdinal.intValue());
+    }
+
+    public boolean isEmptyTripProhibited(int fromOrdinal, int toOrdinal) {
+        int idx = fromOrdinal * numOfStations + toOrdinal;
+        return (prohibitedEmptyTrips[idx >>> 6] & (1L << idx)) != 0;
+    }
 
-        var distance = computeBeeLineDistance(from, to);
+    private int computeBeeLineDuration(int fromOrdinal, int toOrdinal) {
+        var distance = computeBeeLineDistance(fromOrdinal, toOrdinal);
         var speed = computeSpeed(distance);
         return Long.valueOf(Math.round(distance / speed * 3600)).intValue();
     }
 
-    private double computeBeeLineDistance(RotaziunStation from, RotaziunStation to) {
-
-        double lon1 = Math.toRadians(from.getXcoord());
-        double lat1 = Math.toRadians(from.getYcoord());
-        double lon2 = Math.toRadians(to.getXcoord());
-        double lat2 = Math.toRadians(to.getYcoord());
+    private double computeBeeLineDistance(int fromOrdinal, int toOrdinal) {
 
         double earthRadius = 6371; // Radius of the Earth in kilometers
 
-        double dlon = lon2 - lon1;
-        double dlat = lat2 - lat1;
+        double dlon = lonRad[toOrdinal] - lonRad[fromOrdinal];
+        double dlat = latRad[toOrdinal] - latRad[fromOrdinal];
 
         double a = Math.sin(dlat / 2) * Math.sin(dlat / 2)
-            + Math.cos(lat1) * Math.cos(lat2)
+            + cosLat[fromOrdinal] * cosLat[toOrdinal]
             * Math.sin(dlon / 2) * Math.sin(dlon / 2);
 
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
@@ -118,4 +295,4 @@ public class RotaziunDurationMap {
         }
     }
 
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package ch.sbb.simba.backend.mikado.solver;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -9,14 +11,31 @@ import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
 import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
 import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunSolutionEvent;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunStageMemory;
 import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import ch.sbb.simba.backend.mikado.solver.utils.ResidentMemory;
+import com.google.ortools.linearsolver.MPSolver;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 public class RotaziunSolverTest {
 
@@ -178,14 +197,12 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testOneBlockResultsInTwoBlocks() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testOneBlockResultsInTwoBlocks(boolean nativeCpSat) {
         RotaziunInputParams params = setBasicIpSolverParams(180);
-        RotaziunSection section1 = getStammSection(station1, station2, 6 * 3600, 10 * 3600, 1L, 1L);
-        RotaziunSection section2 = getStammSection(station2, station1, 11 * 3600, 18 * 3600, 2L, 2L);
-        RotaziunSection section3 = getStammSection(station2, station1, 5 * 3600, 11 * 3600, 3L, 3L);
-        RotaziunSection section4 = getStammSection(station1, station2, 12 * 3600, 23 * 3600, 4L, 4L);
-        var sections = List.of(section1, section2, section3, section4);
+        params.setNativeCpSat(nativeCpSat);
+        var sections = getTwoLineOneBlockInstance();
 
         var resultParams = RotaziunSolver.solve(sections, List.of(), params);
         var blocks = resultParams.getBlocks();
@@ -193,6 +210,7 @@ public class RotaziunSolverTest {
         assertEquals(2, blocks.get(0).getDays().size() + blocks.get(1).getDays().size());
 
         params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
         assertEquals(1, blocks.size());
@@ -201,8 +219,383 @@ public class RotaziunSolverTest {
     }
 
     @Test
-    void testLimitedSidingCapacityResultsInThreeBlockDays() {
+    void testOneBlockWithSubtourCutsResultsInOneBlock() {
+        var sections = getTwoLineOneBlockInstance();
+
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setSubtourCuts(true);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        var blocks = resultParams.getBlocks();
+        assertEquals(1, blocks.size());
+        assertEquals(2, blocks.get(0).getDays().size());
+        assertTrue(resultParams.getNumOfSubtourRounds() > 1);
+        assertTrue(resultParams.getNumOfSubtourCuts() > 0);
+
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3})
+    void testLinearSumAssignmentResultsInSameSolutionAsMip(int instance) {
+        var sections = instance < 3 ? getConcurrencyInstance(instance) : getRandomInstance(60, 3L);
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setLinearSumAssignment(false);
+        var mipResultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        params = setBasicIpSolverParams(180);
+        params.setLinearSumAssignment(true);
+        var assignmentResultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        assertTrue(mipResultParams.isSolved());
+        assertTrue(assignmentResultParams.isSolved());
+        assertEquals(mipResultParams.getObjectiveValue(), assignmentResultParams.getObjectiveValue());
+        assertEquals(mipResultParams.getNumOfBlockDays(), assignmentResultParams.getNumOfBlockDays());
+        assertEquals(sections.size(), assignmentResultParams.getSectionChainMap().size());
+
+    }
+
+    // all chains from section 4 are prohibited, it has no successor
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testSectionWithoutPossibleChainResultsInNoSolution(boolean linearSumAssignment) {
+        var sections = getTwoLineOneBlockInstance();
+        Set<Pair<Long,Long>> prohibitedSectionChains = new HashSet<>();
+        sections.forEach(section -> prohibitedSectionChains.add(new Pair<>(4L, section.getId())));
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setLinearSumAssignment(linearSumAssignment);
+        params.setProhibitedSectionChains(prohibitedSectionChains);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertFalse(resultParams.isSolved());
+        assertEquals(MPSolver.ResultStatus.INFEASIBLE, resultParams.getResultStatus());
+        assertTrue(resultParams.getBlocks().isEmpty());
+
+    }
+
+    // with oneBlock each line is one block, they are not joined as all empty trips between the lines are prohibited (see BlockPatching)
+    @Test
+    void testSeparatedLinesResultInNoOneBlockSolution() {
+        RotaziunSection section1 = getStammSection(station1, station2, 6 * 3600, 10 * 3600, 1L, 1L);
+        RotaziunSection section2 = getStammSection(station2, station1, 12 * 3600, 17 * 3600, 2L, 2L);
+        RotaziunSection section3 = getStammSection(station3, station3, 7 * 3600, 9 * 3600, 3L, 3L);
+        RotaziunSection section4 = getStammSection(station3, station3, 14 * 3600, 19 * 3600, 4L, 4L);
+        var sections = List.of(section1, section2, section3, section4);
+
+        Map<Long, Set<Long>> prohibitedEmptyTrips = new HashMap<>();
+        prohibitedEmptyTrips.put(1001L, Set.of(1003L));
+        prohibitedEmptyTrips.put(1002L, Set.of(1003L));
+        prohibitedEmptyTrips.put(1003L, Set.of(1001L, 1002L));
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(prohibitedEmptyTrips);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertTrue(resultParams.isSolved());
+        assertEquals(2, resultParams.getBlocks().size());
+
+        params = setOneBlockIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(prohibitedEmptyTrips);
+        resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertFalse(resultParams.isSolved());
+        assertTrue(resultParams.getBlocks().isEmpty());
+
+    }
+
+    // without linear sum assignment, the model of every line is solved as sub-model of its own
+    @Test
+    void testSeparatedLinesAsSubModelsResultInSameSolutionAsLinearSumAssignment() {
+        var sections = getSeparatedLinesInstance();
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(getSeparatedLinesProhibitedEmptyTrips());
+        params.setLinearSumAssignment(false);
+        var subModelResultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(getSeparatedLinesProhibitedEmptyTrips());
+        params.setLinearSumAssignment(true);
+        var assignmentResultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        assertTrue(subModelResultParams.isSolved());
+        assertEquals(MPSolver.ResultStatus.OPTIMAL, subModelResultParams.getResultStatus());
+        assertEquals(assignmentResultParams.getObjectiveValue(), subModelResultParams.getObjectiveValue());
+        assertEquals(assignmentResultParams.getNumOfBlockDays(), subModelResultParams.getNumOfBlockDays());
+        assertEquals(sections.size(), subModelResultParams.getSectionChainMap().size());
+
+    }
+
+    @Test
+    void testSeparatedLinesResultInSameSolutionWithParallelPreprocessing() {
+        var sections = getSeparatedLinesInstance();
+        AtomicInteger numOfParallelTasks = new AtomicInteger();
+        Executor countingExecutor = task -> {
+            numOfParallelTasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        };
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(getSeparatedLinesProhibitedEmptyTrips());
+        params.setParallelPreprocessing(false);
+        params.setPreprocessingExecutor(countingExecutor);
+        var sequentialResultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertEquals(0, numOfParallelTasks.get());
+
+        params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(getSeparatedLinesProhibitedEmptyTrips());
+        params.setParallelPreprocessing(true);
+        params.setPreprocessingExecutor(countingExecutor);
+        var parallelResultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertTrue(numOfParallelTasks.get() > 0);
+
+        assertTrue(sequentialResultParams.isSolved());
+        assertTrue(parallelResultParams.isSolved());
+        assertEquals(sequentialResultParams.getObjectiveValue(), parallelResultParams.getObjectiveValue());
+        assertEquals(getChainIds(sequentialResultParams), getChainIds(parallelResultParams));
+        // no chain between the lines: one component per line
+        sequentialResultParams.getSectionChainMap().forEach((from, to) -> assertEquals(from.getId() <= 20, to.getId() <= 20));
+
+    }
+
+    // a section on its own at a station without allowed empty trips has no possible chain except to itself, which is not allowed
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testSingletonComponentResultsInNoSolution(boolean parallelPreprocessing) {
+        RotaziunStation station5 = RotaziunStation.builder().id(1005L).name("Station 5").xcoord(2000f).ycoord(500f).build();
+        List<RotaziunSection> sections = new ArrayList<>(getSeparatedLinesInstance());
+        sections.add(getStammSection(station5, station5, 7 * 3600, 9 * 3600, 41L, 41L));
+        Map<Long, Set<Long>> prohibitedEmptyTrips = getSeparatedLinesProhibitedEmptyTrips();
+        prohibitedEmptyTrips.replaceAll((station, prohibitedStations) -> union(prohibitedStations, Set.of(1005L)));
+        prohibitedEmptyTrips.put(1005L, Set.of(1001L, 1002L, 1003L, 1004L));
+
+        RotaziunInputParams params = setBasicIpSolverParams(180);
+        params.setProhibitedEmptyTripsMap(prohibitedEmptyTrips);
+        params.setParallelPreprocessing(parallelPreprocessing);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertFalse(resultParams.isSolved());
+        assertEquals(MPSolver.ResultStatus.INFEASIBLE, resultParams.getResultStatus());
+        assertTrue(resultParams.getBlocks().isEmpty());
+
+    }
+
+    @Test
+    void testTimeBudgetResultsInOneBlock() {
+        var sections = getTwoLineOneBlockInstance();
+
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setTimeBudget(30);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        var blocks = resultParams.getBlocks();
+        assertEquals(1, blocks.size());
+        assertEquals(2, blocks.get(0).getDays().size());
+
+        params.setTimeBudget(0);
+        assertThrows(IllegalArgumentException.class, () -> RotaziunSolver.solve(sections, List.of(), params));
+
+    }
+
+    // end-to-end check of the budget (the stage deadlines are tested in IpSolverParamsTest): no assertion on the elapsed time
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testTimeBudgetUsedUpByStageOneResultsInNoSolution(boolean rollingHorizon) {
+        List<RotaziunSection> sections = getRollingHorizonInstance();
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setRollingHorizon(rollingHorizon);
+        params.setTimeBudget(1);
+        List<Integer> solvedStages = new ArrayList<>();
+        params.setSolutionListener(event -> {
+            solvedStages.add(event.getStage());
+            sleep(1500); // stage 1 uses up the time budget however fast it is, stage 2 is skipped
+        });
+
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertEquals(List.of(1), solvedStages);
+        assertFalse(resultParams.isSolved());
+        assertEquals(MPSolver.ResultStatus.NOT_SOLVED, resultParams.getResultStatus());
+        assertTrue(resultParams.getBlocks().isEmpty());
+
+    }
+
+    @Test
+    void testStageMemoryHasOneEntryPerStage() {
+        var sections = getRollingHorizonInstance();
+
+        var resultParams = RotaziunSolver.solve(sections, List.of(), setOneBlockIpSolverParams(180));
+        assertTrue(resultParams.isSolved());
+        assertEquals(List.of(1, 2), resultParams.getStageMemory().stream().map(RotaziunStageMemory::getStage).toList());
+        for (RotaziunStageMemory stageMemory : resultParams.getStageMemory()) {
+            assertEquals(0, stageMemory.getPrecisionLevel());
+            if (stageMemory.getResidentMemory() != ResidentMemory.NOT_AVAILABLE) {
+                assertTrue(stageMemory.getPeakResidentMemory() >= stageMemory.getResidentMemory());
+            }
+        }
+
+    }
+
+    @Test
+    void testSolutionListenerReceivesFinalSolution() {
+        var sections = getTwoLineOneBlockInstance();
+
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        List<RotaziunSolutionEvent> events = new ArrayList<>();
+        params.setSolutionListener(events::add);
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        assertFalse(events.isEmpty());
+        RotaziunSolutionEvent lastEvent = events.get(events.size() - 1);
+        assertEquals(sections.size(), lastEvent.getSectionChainMap().size());
+        assertEquals(resultParams.getObjectiveValue(), (int) lastEvent.getObjectiveValue());
+        assertTrue(lastEvent.getGap() >= 0);
+        assertTrue(lastEvent.getElapsedTime() > 0);
+
+    }
+
+    @Test
+    void testSolveAsyncResultsInOneBlock() {
+        var sections = getTwoLineOneBlockInstance();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            var resultParams = RotaziunSolver.solveAsync(sections, List.of(), setOneBlockIpSolverParams(180), executor).join();
+            assertEquals(1, resultParams.getBlocks().size());
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    /*
+     * the solve runs on the test thread (the executor only queues it) and is cancelled by the first solution of stage 1
+     *  -> native CP-SAT: the listener is called from the running search, which is stopped; wrapper: called after the stage is solved
+     *  -> no further stage is started and the future is cancelled
+     */
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testCancelFromSolutionListenerStopsSolve(boolean nativeCpSat) {
+        var sections = getRollingHorizonInstance();
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
+
+        List<Runnable> queuedTasks = new ArrayList<>();
+        AtomicReference<CompletableFuture<RotaziunResultParams>> result = new AtomicReference<>();
+        List<Integer> reportedStages = new ArrayList<>();
+        params.setSolutionListener(event -> {
+            reportedStages.add(event.getStage());
+            result.get().cancel(true);
+        });
+
+        result.set(RotaziunSolver.solveAsync(sections, List.of(), params, queuedTasks::add));
+        assertEquals(1, queuedTasks.size());
+        queuedTasks.get(0).run();
+
+        assertTrue(result.get().isCancelled());
+        assertThrows(CancellationException.class, result.get()::join);
+        assertEquals(List.of(1), reportedStages.stream().distinct().toList());
+    }
+
+    @Test
+    void testConcurrentSolvesEqualSequentialSolves() {
+        int numOfInstances = 8;
+        List<List<RotaziunSection>> instances = new ArrayList<>();
+        for (int i = 0; i < numOfInstances; i++) {
+            instances.add(getConcurrencyInstance(i));
+        }
+
+        List<RotaziunResultParams> sequentialResults = new ArrayList<>();
+        for (int i = 0; i < numOfInstances; i++) {
+            sequentialResults.add(RotaziunSolver.solve(instances.get(i), List.of(), getConcurrencyParams(i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<RotaziunResultParams>> concurrentResults = new ArrayList<>();
+            for (int i = 0; i < numOfInstances; i++) {
+                concurrentResults.add(RotaziunSolver.solveAsync(instances.get(i), List.of(), getConcurrencyParams(i), executor));
+            }
+            for (int i = 0; i < numOfInstances; i++) {
+                RotaziunResultParams concurrentResult = concurrentResults.get(i).join();
+                assertTrue(concurrentResult.isSolved());
+                assertEquals(sequentialResults.get(i).getObjectiveValue(), concurrentResult.getObjectiveValue());
+                assertEquals(sequentialResults.get(i).getNumOfBlockDays(), concurrentResult.getNumOfBlockDays());
+                assertEquals(sequentialResults.get(i).getBlocks().size(), concurrentResult.getBlocks().size());
+                assertEquals(instances.get(i).size(), concurrentResult.getSectionChainMap().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    // one input for all solves: the prohibited siding sites and the defaults must not be written into it
+    @Test
+    void testConcurrentSolvesWithSharedInputEqualSequentialSolves() {
+        int numOfInstances = 8;
+        RotaziunInputParams input = RotaziunInputParams.builder()
+            .minTurnTime(180)
+            .prohibitedSidingSites(new HashSet<>(Set.of(1003L)))
+            .sidingCapacityMap(new HashMap<>(Map.of(1001L, 1000)))
+            .build();
+        List<List<RotaziunSection>> instances = new ArrayList<>();
+        for (int i = 0; i < numOfInstances; i++) {
+            instances.add(getConcurrencyInstance(i));
+        }
+
+        List<RotaziunResultParams> sequentialResults = new ArrayList<>();
+        for (int i = 0; i < numOfInstances; i++) {
+            sequentialResults.add(RotaziunSolver.solve(instances.get(i), List.of(), input));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<RotaziunResultParams>> concurrentResults = new ArrayList<>();
+            for (int i = 0; i < numOfInstances; i++) {
+                concurrentResults.add(RotaziunSolver.solveAsync(instances.get(i), List.of(), input, executor));
+            }
+            for (int i = 0; i < numOfInstances; i++) {
+                RotaziunResultParams concurrentResult = concurrentResults.get(i).join();
+                assertTrue(concurrentResult.isSolved());
+                assertEquals(sequentialResults.get(i).getObjectiveValue(), concurrentResult.getObjectiveValue());
+                assertEquals(sequentialResults.get(i).getBlocks().size(), concurrentResult.getBlocks().size());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(Map.of(1001L, 1000), input.getSidingCapacityMap());
+        assertEquals(Set.of(1003L), input.getProhibitedSidingSites());
+        assertNull(input.getPrecisionLevel());
+        assertNull(input.getRequiredSectionChains());
+
+    }
+
+    @Test
+    void testRollingHorizonResultsInOneBlock() {
+        List<RotaziunSection> sections = getRollingHorizonInstance();
+
+        var resultParams = RotaziunSolver.solve(sections, List.of(), setOneBlockIpSolverParams(180));
+        assertEquals(0, resultParams.getNumOfRollingHorizonWindows());
+
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setRollingHorizon(true);
+        params.setRollingHorizonWindow(4 * 3600);
+        params.setRollingHorizonOverlap(3600);
+        var rollingHorizonResultParams = RotaziunSolver.solve(sections, List.of(), params);
+        assertTrue(rollingHorizonResultParams.isSolved());
+        assertTrue(rollingHorizonResultParams.getNumOfRollingHorizonWindows() > 1);
+        assertEquals(1, rollingHorizonResultParams.getBlocks().size());
+        assertEquals(sections.size(), rollingHorizonResultParams.getSectionChainMap().size());
+        // the time windows are a heuristic for stage 2: on this instance they find the block days of solving stage 2 as a whole or one more
+        assertTrue(rollingHorizonResultParams.getNumOfBlockDays() >= resultParams.getNumOfBlockDays());
+        assertTrue(rollingHorizonResultParams.getNumOfBlockDays() <= resultParams.getNumOfBlockDays() + 1);
+
+        params.setRollingHorizonOverlap(3 * 3600);
+        assertThrows(IllegalArgumentException.class, () -> RotaziunSolver.solve(sections, List.of(), params));
+
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testLimitedSidingCapacityResultsInThreeBlockDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -224,9 +617,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testSidingEvaluationTimeNotAffectsSolution() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testSidingEvaluationTimeNotAffectsSolution(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -247,9 +642,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testLimitedSidingCapacityResultsInNoSolution() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testLimitedSidingCapacityResultsInNoSolution(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -270,9 +667,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testMinimizeDecouplingResultsInMoreDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testMinimizeDecouplingResultsInMoreDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -290,6 +689,7 @@ public class RotaziunSolverTest {
         assertEquals(4, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setCostForCouplingDecoupling(200 * 3600);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -297,9 +697,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testProhibitedCouplingDecouplingSiteResultsInMoreDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testProhibitedCouplingDecouplingSiteResultsInMoreDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -317,6 +719,7 @@ public class RotaziunSolverTest {
         assertEquals(4, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setProhibitedCouplingDecouplingStationIds(Set.of(1002L));
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -324,9 +727,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testProhibitedCouplingDecouplingSitesResultsInNoSolution() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testProhibitedCouplingDecouplingSitesResultsInNoSolution(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
         RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
@@ -344,6 +749,7 @@ public class RotaziunSolverTest {
         assertEquals(4, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setProhibitedCouplingDecouplingStationIds(Set.of(1001L, 1002L));
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -351,9 +757,47 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testHighDecouplingTimeResultsInMoreDays() {
+    // the model is loaded into the MPSolver without native CP-SAT; with native CP-SAT, the names are not used
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testBulkModelBuildWithoutNamesResultsInSameSolution(boolean nativeCpSat) {
+        RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
+        RotaziunSection section2 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 2L);
+        RotaziunSection section3 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 3L, 3L);
+        RotaziunSection section4 = getStammSection(station2, station1, 16 * 3600, 17 * 3600, 4L, 4L);
+        RotaziunSection section5 = getEnforcementSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 5L);
+        RotaziunSection section6 = getEnforcementSection(station2, station1, 16 * 3600, 17 * 3600, 2L, 6L);
+        RotaziunSection section7 = getStammSection(station1, station2, 12 * 3600, 13 * 3600, 5L, 7L);
+        RotaziunSection section8 = getStammSection(station2, station1, 20 * 3600, 21 * 3600, 6L, 8L);
+        var sections = List.of(section1, section2, section3, section4, section5, section6, section7, section8);
+
+        RotaziunInputParams params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
+        params.setSidingCapacityMap(new HashMap<>(Map.of(1001L, 2)));
+        var resultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
+        params.setSidingCapacityMap(new HashMap<>(Map.of(1001L, 2)));
+        params.setBulkModelBuild(true);
+        params.setModelNames(false);
+        var bulkResultParams = RotaziunSolver.solve(sections, List.of(), params);
+
+        assertTrue(resultParams.isSolved());
+        assertTrue(bulkResultParams.isSolved());
+        assertEquals(resultParams.getObjectiveValue(), bulkResultParams.getObjectiveValue());
+        assertEquals(resultParams.getNumOfBlockDays(), bulkResultParams.getNumOfBlockDays());
+        assertEquals(resultParams.getNumOfDecoupling(), bulkResultParams.getNumOfDecoupling());
+        assertEquals(resultParams.getNumOfSidings(), bulkResultParams.getNumOfSidings());
+        assertEquals(1, bulkResultParams.getBlocks().size());
+
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testHighDecouplingTimeResultsInMoreDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getEnforcementSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 2L);
         RotaziunSection section3 = getStammSection(station2, station1, 9 * 3600, 10 * 3600, 2L, 3L);
@@ -365,6 +809,7 @@ public class RotaziunSolverTest {
         assertEquals(2, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setMinTimeForDecoupling(3601);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -373,9 +818,11 @@ public class RotaziunSolverTest {
     }
 
     // decoupling time exactly matches limit
-    @Test
-    void testHighDecouplingTimeResultsInSameDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testHighDecouplingTimeResultsInSameDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getEnforcementSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 2L);
         RotaziunSection section3 = getStammSection(station2, station1, 9 * 3600, 10 * 3600, 2L, 3L);
@@ -387,6 +834,7 @@ public class RotaziunSolverTest {
         assertEquals(2, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setMinTimeForDecoupling(3600);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -394,9 +842,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testHighCouplingTimeResultsInSameDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testHighCouplingTimeResultsInSameDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 1L);
         RotaziunSection section2 = getEnforcementSection(station1, station2, 7 * 3600, 8 * 3600, 1L, 2L);
         RotaziunSection section3 = getStammSection(station2, station1, 9 * 3600, 10 * 3600, 2L, 3L);
@@ -408,6 +858,7 @@ public class RotaziunSolverTest {
         assertEquals(2, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setMinTimeForCoupling(3600);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -415,9 +866,11 @@ public class RotaziunSolverTest {
 
     }
 
-    @Test
-    void testProhibitedDecouplingSiteForPartialEnhancementResultsInSameDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testProhibitedDecouplingSiteForPartialEnhancementResultsInSameDays(boolean nativeCpSat) {
         RotaziunInputParams params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setProhibitedCouplingDecouplingStationIds(Set.of(1002L));
 
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 9 * 3600, 1L, 1L);
@@ -447,9 +900,11 @@ public class RotaziunSolverTest {
         });
     }
 
-    @Test
-    void testLongDecouplingTimeForPartialEnhancementResultsInMoreDays() {
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testLongDecouplingTimeForPartialEnhancementResultsInMoreDays(boolean nativeCpSat) {
         RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         RotaziunSection section1 = getStammSection(station1, station2, 7 * 3600, 9 * 3600, 1L, 1L);
         RotaziunSection section2 = getEnforcementSection(station1, station3, 7 * 3600, 8 * 3600, 1L, 2L);
         RotaziunSection section3 = getStammSection(station2, station1, 10 * 3600, 11 * 3600, 2L, 3L);
@@ -461,6 +916,7 @@ public class RotaziunSolverTest {
         assertEquals(2, blocks.get(0).getDays().size());
 
         params = setDecouplingIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
         params.setMinTimeForDecoupling(2 * 3600);
         resultParams = RotaziunSolver.solve(sections, List.of(), params);
         blocks = resultParams.getBlocks();
@@ -468,6 +924,24 @@ public class RotaziunSolverTest {
 
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void testMaintenanceWindowResultsInOneBlock(boolean nativeCpSat) {
+        RotaziunInputParams params = setOneBlockIpSolverParams(180);
+        params.setNativeCpSat(nativeCpSat);
+        params.setPrecisionLevel(1); // the maintenance stage runs at precision level 2 and considers all chains to and from the window
+        var sections = getTwoLineOneBlockInstance();
+        var maintenanceSections = List.of(getMaintenanceSection(station1, 19 * 3600, 22 * 3600, 101L));
+
+        var resultParams = RotaziunSolver.solve(sections, maintenanceSections, params);
+        var blocks = resultParams.getBlocks();
+        assertTrue(resultParams.isSolved());
+        assertEquals(1, blocks.size());
+        assertEquals(2, blocks.get(0).getDays().size());
+        assertEquals(sections.size() + maintenanceSections.size(), resultParams.getSectionChainMap().size());
+
+    }
+
     private RotaziunSection getStammSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long journeyID, long id) {
         return RotaziunSection.builder()
             .departure(startTime)
@@ -483,6 +957,30 @@ public class RotaziunSolverTest {
             .build();
     }
 
+    private RotaziunSection getMaintenanceSection(RotaziunStation station, int startTime, int endTime, long id) {
+        return RotaziunSection.builder()
+            .departure(startTime)
+            .arrival(endTime)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(station)
+            .toStation(station)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.DEPOT)
+            .build();
+    }
+
+    // two lines of two sections each: without oneBlock two blocks, with oneBlock one block over two days
+    private List<RotaziunSection> getTwoLineOneBlockInstance() {
+        return List.of(
+            getStammSection(station1, station2, 6 * 3600, 10 * 3600, 1L, 1L),
+            getStammSection(station2, station1, 11 * 3600, 18 * 3600, 2L, 2L),
+            getStammSection(station2, station1, 5 * 3600, 11 * 3600, 3L, 3L),
+            getStammSection(station1, station2, 12 * 3600, 23 * 3600, 4L, 4L));
+    }
+
     private RotaziunSection getEnforcementSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long journeyID, long id) {
         return RotaziunSection.builder()
             .departure(startTime)
@@ -498,6 +996,97 @@ public class RotaziunSolverTest {
             .build();
     }
 
+    // instances of different size, so that state shared between solves would show
+    private List<RotaziunSection> getConcurrencyInstance(int instance) {
+        List<RotaziunStation> stations = List.of(station1, station2, station3);
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int k = 0; k < 3 + instance; k++) {
+            int departure = (5 + (k * (instance + 3)) % 14) * 3600 + k * 60;
+            sections.add(getStammSection(stations.get(k % 3), stations.get((k + 1) % 3), departure, departure + (1 + k % 3) * 3600, k + 1L, k + 1L));
+        }
+        return sections;
+    }
+
+    // two lines back and forth from 5:00 to 22:30, enough sections for the two-stage approach and spread over several time windows
+    private List<RotaziunSection> getRollingHorizonInstance() {
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int k = 0; k < 36; k++) {
+            int departure = 5 * 3600 + k * 1800;
+            RotaziunStation otherStation = k % 4 < 2 ? station2 : station3;
+            if (k % 2 == 0) {
+                sections.add(getStammSection(station1, otherStation, departure, departure + 3000, k + 1L, k + 1L));
+            } else {
+                sections.add(getStammSection(otherStation, station1, departure, departure + 3000, k + 1L, k + 1L));
+            }
+        }
+        return sections;
+    }
+
+    // line between station 1 and 2 (sections 1 to 20) and line between station 3 and 4 (sections 21 to 40), no empty trips between the lines
+    private List<RotaziunSection> getSeparatedLinesInstance() {
+        RotaziunStation station4 = RotaziunStation.builder().id(1004L).name("Station 4").xcoord(1000f).ycoord(1000f).build();
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int k = 0; k < 40; k++) {
+            RotaziunStation home = k < 20 ? station1 : station3;
+            RotaziunStation other = k < 20 ? station2 : station4;
+            int departure = 5 * 3600 + (k % 20) * 3000 + (k < 20 ? 0 : 900);
+            sections.add(k % 2 == 0 ? getStammSection(home, other, departure, departure + 2400, k + 1L, k + 1L)
+                : getStammSection(other, home, departure, departure + 2400, k + 1L, k + 1L));
+        }
+        return sections;
+    }
+
+    private Map<Long, Set<Long>> getSeparatedLinesProhibitedEmptyTrips() {
+        Map<Long, Set<Long>> prohibitedEmptyTrips = new HashMap<>();
+        prohibitedEmptyTrips.put(1001L, Set.of(1003L, 1004L));
+        prohibitedEmptyTrips.put(1002L, Set.of(1003L, 1004L));
+        prohibitedEmptyTrips.put(1003L, Set.of(1001L, 1002L));
+        prohibitedEmptyTrips.put(1004L, Set.of(1001L, 1002L));
+        return prohibitedEmptyTrips;
+    }
+
+    private static Set<Long> union(Set<Long> first, Set<Long> second) {
+        Set<Long> union = new HashSet<>(first);
+        union.addAll(second);
+        return union;
+    }
+
+    private static Map<Long, Long> getChainIds(RotaziunResultParams resultParams) {
+        Map<Long, Long> chainIds = new HashMap<>();
+        resultParams.getSectionChainMap().forEach((from, to) -> chainIds.put(from.getId(), to.getId()));
+        return chainIds;
+    }
+
+    // random lines between five stations over the day, two thirds Stamm and one third enforcement sections
+    private List<RotaziunSection> getRandomInstance(int numOfSections, long seed) {
+        Random random = new Random(seed);
+        List<RotaziunStation> stations = new ArrayList<>(List.of(station1, station2, station3));
+        stations.add(RotaziunStation.builder().id(1004L).name("Station 4").xcoord(1000f).ycoord(1000f).build());
+        stations.add(RotaziunStation.builder().id(1005L).name("Station 5").xcoord(2000f).ycoord(500f).build());
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int k = 0; k < numOfSections; k++) {
+            int from = random.nextInt(stations.size());
+            int to = (from + 1 + random.nextInt(stations.size() - 1)) % stations.size();
+            int departure = 5 * 3600 + random.nextInt(17 * 3600);
+            int arrival = departure + 1800 + random.nextInt(5400);
+            sections.add(k % 3 == 2 ? getEnforcementSection(stations.get(from), stations.get(to), departure, arrival, k + 1L, k + 1L)
+                : getStammSection(stations.get(from), stations.get(to), departure, arrival, k + 1L, k + 1L));
+        }
+        return sections;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RotaziunInputParams getConcurrencyParams(int instance) {
+        return instance % 2 == 0 ? setOneBlockIpSolverParams(180) : setBasicIpSolverParams(180);
+    }
+
     private RotaziunInputParams setDecouplingIpSolverParams(int minTurnTime) {
 
         return RotaziunInputParams.builder()
@@ -0,0 +1,174 @@
+package ch.sbb.simba.backend.mikado.solver.ip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import ch.sbb.simba.backend.mikado.solver.parameters.InputDefaultValues;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
+import ch.sbb.simba.backend.mikado.solver.utils.Pair;
+import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPSolver;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class BlockPatchingTest {
+
+    private static final int SECTIONS_PER_LINE = 4;
+
+    RotaziunStation station1;
+    RotaziunStation station2;
+    RotaziunStation station3;
+    RotaziunStation station4;
+    RotaziunVehicle vehicle1;
+    List<RotaziunSection> sections;
+
+    // the result status is a native enum, without any solve before
+    @BeforeAll
+    static void loadNativeLibraries() {
+        Loader.loadNativeLibraries();
+    }
+
+    @BeforeEach
+    void init() {
+        this.station1 = RotaziunStation.builder().id(1001L).name("Station 1").xcoord(0f).ycoord(0f).build();
+        this.station2 = RotaziunStation.builder().id(1002L).name("Station 2").xcoord(0f).ycoord(1000f).build();
+        this.station3 = RotaziunStation.builder().id(1003L).name("Station 3").xcoord(1000f).ycoord(0f).build();
+        this.station4 = RotaziunStation.builder().id(1004L).name("Station 4").xcoord(1000f).ycoord(1000f).build();
+        this.vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+        this.sections = getTwoLineSections();
+    }
+
+    @Test
+    void testBlocksOfComponentsAreJoinedIntoOneBlock() {
+        IpSolverParams params = getOneBlockParams(new HashSet<>(), new HashMap<>());
+
+        RotaziunResultParams result = joinLineBlocks(params);
+        assertTrue(result.isSolved());
+        assertEquals(MPSolver.ResultStatus.FEASIBLE, result.getResultStatus());
+        assertEquals(sections.size(), getBlockLength(result.getSectionChainMap()));
+        // exactly two chains between the lines
+        assertEquals(2, result.getSectionChainMap().entrySet().stream().filter(chain -> isFirstLine(chain.getKey()) != isFirstLine(chain.getValue())).count());
+    }
+
+    // every chain of the first line is required except the one from its last section, which is the only one to be replaced there
+    @Test
+    void testRequiredChainsAreKept() {
+        Set<Pair<Long,Long>> requiredChains = new HashSet<>();
+        for (int k = 0; k < SECTIONS_PER_LINE - 1; k++) {
+            requiredChains.add(new Pair<>(k + 1L, k + 2L));
+        }
+        IpSolverParams params = getOneBlockParams(requiredChains, new HashMap<>());
+
+        RotaziunResultParams result = joinLineBlocks(params);
+        assertTrue(result.isSolved());
+        assertEquals(sections.size(), getBlockLength(result.getSectionChainMap()));
+        for (int k = 0; k < SECTIONS_PER_LINE - 1; k++) {
+            assertEquals(sections.get(k + 1), result.getSectionChainMap().get(sections.get(k)));
+        }
+        assertFalse(isFirstLine(result.getSectionChainMap().get(sections.get(SECTIONS_PER_LINE - 1))));
+    }
+
+    @Test
+    void testProhibitedEmptyTripsBetweenLinesResultInNoSolution() {
+        Map<Long, Set<Long>> prohibitedEmptyTrips = new HashMap<>();
+        prohibitedEmptyTrips.put(1001L, Set.of(1003L, 1004L));
+        prohibitedEmptyTrips.put(1002L, Set.of(1003L, 1004L));
+
+        RotaziunResultParams result = joinLineBlocks(getOneBlockParams(new HashSet<>(), prohibitedEmptyTrips));
+        assertFalse(result.isSolved());
+        assertEquals(MPSolver.ResultStatus.INFEASIBLE, result.getResultStatus());
+    }
+
+    // the chains within each line, every line chosen as one block in order of departure
+    private RotaziunResultParams joinLineBlocks(IpSolverParams params) {
+        ChainList possibleChains = new ChainList();
+        for (int i = 0; i < sections.size(); i++) {
+            for (int j = 0; j < sections.size(); j++) {
+                if (i != j && isFirstLine(sections.get(i)) == isFirstLine(sections.get(j))) {
+                    possibleChains.add(i, j);
+                }
+            }
+        }
+        ChainAttributes attributes = ChainAttributes.of(possibleChains, sections, params);
+        IpModel model = new IpModel(false);
+        Variables v = new Variables(model, possibleChains, attributes, params);
+
+        double[] solution = new double[model.getNumOfVariables()];
+        for (int i = 0; i < sections.size(); i++) {
+            int lineStart = i - i % SECTIONS_PER_LINE;
+            solution[v.x[attributes.getPosition(i, lineStart + (i + 1) % SECTIONS_PER_LINE)]] = 1;
+        }
+        return BlockPatching.joinBlocks(sections, possibleChains, attributes, v, solution, params);
+    }
+
+    private IpSolverParams getOneBlockParams(Set<Pair<Long,Long>> requiredChains, Map<Long, Set<Long>> prohibitedEmptyTrips) {
+        RotaziunInputParams input = InputDefaultValues.withDefaults(RotaziunInputParams.builder()
+            .minTurnTime(180)
+            .onlyOneBlock(true)
+            .requiredSectionChains(requiredChains)
+            .prohibitedEmptyTripsMap(prohibitedEmptyTrips)
+            .sidingCapacityMap(new HashMap<>())
+            .build());
+        return new IpSolverParams(input, sections, List.of(), new RotaziunDurationMap(sections)).setStageOneParams();
+    }
+
+    private static int getBlockLength(Map<RotaziunSection,RotaziunSection> sectionChainMap) {
+        RotaziunSection first = sectionChainMap.keySet().iterator().next();
+        int length = 1;
+        for (RotaziunSection section = sectionChainMap.get(first); section != first; section = sectionChainMap.get(section)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static boolean isFirstLine(RotaziunSection section) {
+        return section.getId() <= SECTIONS_PER_LINE;
+    }
+
+    // line between station 1 and 2 (sections 1 to 4) and line between station 3 and 4 (sections 5 to 8)
+    private List<RotaziunSection> getTwoLineSections() {
+        List<RotaziunSection> lineSections = new ArrayList<>();
+        for (int k = 0; k < 2 * SECTIONS_PER_LINE; k++) {
+            RotaziunStation home = k < SECTIONS_PER_LINE ? station1 : station3;
+            RotaziunStation other = k < SECTIONS_PER_LINE ? station2 : station4;
+            int departure = 6 * 3600 + (k % SECTIONS_PER_LINE) * 3 * 3600 + (k < SECTIONS_PER_LINE ? 0 : 1800);
+            lineSections.add(k % 2 == 0 ? getSection(home, other, departure, departure + 7200, k + 1L)
+                : getSection(other, home, departure, departure + 7200, k + 1L));
+        }
+        return lineSections;
+    }
+
+    private RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long id) {
+        return RotaziunSection.builder()
+            .departure(startTime)
+            .arrival(endTime)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}
@@ -0,0 +1,136 @@
+package ch.sbb.simba.backend.mikado.solver.ip;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.SectionChainUtil;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainAttributes;
+import ch.sbb.simba.backend.mikado.solver.ip.chaining.model.ChainList;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModel;
+import ch.sbb.simba.backend.mikado.solver.ip.model.IpModelCpSat;
+import ch.sbb.simba.backend.mikado.solver.ip.parameters.IpSolverParams;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import ch.sbb.simba.backend.mikado.solver.parameters.InputDefaultValues;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunResultParams;
+import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
+import com.google.ortools.sat.PartialVariableAssignment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class HintsTest {
+
+    RotaziunStation station1;
+    RotaziunStation station2;
+    RotaziunStation station3;
+    RotaziunVehicle vehicle1;
+
+    @BeforeEach
+    void init() {
+        this.station1 = RotaziunStation.builder().id(1001L).name("Station 1").xcoord(0f).ycoord(0f).build();
+        this.station2 = RotaziunStation.builder().id(1002L).name("Station 2").xcoord(0f).ycoord(1000f).build();
+        this.station3 = RotaziunStation.builder().id(1003L).name("Station 3").xcoord(1000f).ycoord(0f).build();
+        this.vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+    }
+
+    @Test
+    void testStageTwoModelHasHintForEveryChain() {
+        List<RotaziunSection> sections = getSections();
+        IpSolverParams params = getTwoStageParams(sections, true);
+        RotaziunResultParams stageOneResult = IpSolver.solve(sections, params.setStageOneParams());
+        assertTrue(stageOneResult.isSolved());
+
+        params.setStageTwoParams(stageOneResult.getSectionChainMap()).withSolutionHint(stageOneResult.getSolutionHint());
+        ChainList possibleChains = SectionChainUtil.determinePossibleSectionChains(sections, params);
+        IpModel model = new IpModel(false);
+        Variables v = new Variables(model, possibleChains, ChainAttributes.of(possibleChains, sections, params), params);
+        Hints.makeHints(model, possibleChains, v, sections, params);
+
+        Map<Integer,Long> hints = getHints(model);
+        int numOfChosenChains = 0;
+        for (int idx = 0; idx < possibleChains.size(); idx++) {
+            assertTrue(hints.containsKey(v.x[idx]));
+            RotaziunSection from = sections.get(possibleChains.getFrom(idx));
+            long expected = stageOneResult.getSectionChainMap().get(from) == sections.get(possibleChains.getTo(idx)) ? 1 : 0;
+            assertEquals(expected, hints.get(v.x[idx]));
+            numOfChosenChains += (int) expected;
+        }
+        assertEquals(sections.size(), numOfChosenChains);
+    }
+
+    @Test
+    void testDisabledSolutionHintsResultInNoHints() {
+        List<RotaziunSection> sections = getSections();
+        IpSolverParams params = getTwoStageParams(sections, false);
+        RotaziunResultParams stageOneResult = IpSolver.solve(sections, params.setStageOneParams());
+        assertTrue(stageOneResult.isSolved());
+
+        params.setStageTwoParams(stageOneResult.getSectionChainMap()).withSolutionHint(stageOneResult.getSolutionHint());
+        ChainList possibleChains = SectionChainUtil.determinePossibleSectionChains(sections, params);
+        IpModel model = new IpModel(false);
+        Variables v = new Variables(model, possibleChains, ChainAttributes.of(possibleChains, sections, params), params);
+        Hints.makeHints(model, possibleChains, v, sections, params);
+
+        assertFalse(IpModelCpSat.toCpModel(model).model().hasSolutionHint());
+    }
+
+    // oneBlock at precision level 0 with enough sections: stage 1 without oneBlock, stage 2 with oneBlock
+    private IpSolverParams getTwoStageParams(List<RotaziunSection> sections, boolean solutionHints) {
+        RotaziunInputParams input = InputDefaultValues.withDefaults(RotaziunInputParams.builder()
+            .precisionLevel(0)
+            .minTurnTime(180)
+            .onlyOneBlock(true)
+            .solutionHints(solutionHints)
+            .sidingCapacityMap(new HashMap<>())
+            .build());
+        RotaziunDurationMap durationMap = new RotaziunDurationMap(sections, false, false, false, null, null);
+        IpSolverParams params = new IpSolverParams(input, sections, List.of(), durationMap);
+        assertTrue(params.isTwoStages());
+        return params;
+    }
+
+    private Map<Integer,Long> getHints(IpModel model) {
+        PartialVariableAssignment hint = IpModelCpSat.toCpModel(model).model().getSolutionHint();
+        Map<Integer,Long> hints = new HashMap<>();
+        for (int h = 0; h < hint.getVarsCount(); h++) {
+            hints.put(hint.getVars(h), hint.getValues(h));
+        }
+        return hints;
+    }
+
+    // two lines back and forth from 5:00 to 22:30, enough sections for the two-stage approach
+    private List<RotaziunSection> getSections() {
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int k = 0; k < 36; k++) {
+            int departure = 5 * 3600 + k * 1800;
+            RotaziunStation otherStation = k % 4 < 2 ? station2 : station3;
+            sections.add(k % 2 == 0 ? getSection(station1, otherStation, departure, departure + 3000, k + 1L)
+                : getSection(otherStation, station1, departure, departure + 3000, k + 1L));
+        }
+        return sections;
+    }
+
+    private RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long id) {
+        return RotaziunSection.builder()
+            .departure(startTime)
+            .arrival(endTime)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}
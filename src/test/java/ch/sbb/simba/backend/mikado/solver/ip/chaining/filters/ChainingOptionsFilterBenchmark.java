@@ -0,0 +1,111 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
+
+import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.DAY_IN_SECONDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+/*
+ * Microbenchmark of the percentile filter of the chaining options (not part of the test suite, run via main)
+ *  -> baseline: boxed list of valued chain times, sorted once per from-section, then the map is streamed again
+ *  -> primitive: int[] buffers allocated once, threshold by quickselect in place, surviving positions compacted in place
+ * For every instance size, one from-section is filtered against the valued chain times of all sections.
+ */
+public final class ChainingOptionsFilterBenchmark {
+
+    private static final int[] NUM_OF_SECTIONS = {500, 2_000, 10_000};
+    private static final int[] PERCENTILES = {5, 12, 50};
+    private static final int MAX_FROM_SECTIONS_PER_ROUND = 1_000;
+    private static final int WARM_UP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static long blackhole;
+
+    private ChainingOptionsFilterBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        System.out.printf("%10s %10s %18s %18s %8s%n", "sections", "percentile", "baseline [us/sec]", "primitive [us/sec]", "speedup");
+
+        for (int numOfSections : NUM_OF_SECTIONS) {
+            int numOfFromSections = Math.min(numOfSections, MAX_FROM_SECTIONS_PER_ROUND);
+            int[][] valuedChainTimes = new int[numOfFromSections][];
+            List<Map<Integer, Integer>> valuedChainTimeMaps = new ArrayList<>();
+            for (int from = 0; from < numOfFromSections; from++) {
+                valuedChainTimes[from] = randomValuedChainTimes(random, numOfSections);
+                valuedChainTimeMaps.add(toMap(valuedChainTimes[from]));
+            }
+
+            int[] positions = new int[numOfSections];
+            int[] selection = new int[numOfSections];
+            for (int percentile : PERCENTILES) {
+                double baseline = measure(() -> {
+                    for (Map<Integer, Integer> valuedChainTimeMap : valuedChainTimeMaps) {
+                        blackhole += baselineFilterByPercentile(valuedChainTimeMap, percentile).size();
+                    }
+                }) / numOfFromSections;
+                double primitive = measure(() -> {
+                    for (int[] values : valuedChainTimes) {
+                        for (int idx = 0; idx < values.length; idx++) {
+                            positions[idx] = idx;
+                        }
+                        blackhole += ChainingOptionsFilter.retainWithinPercentile(positions, values, values.length, percentile, selection);
+                    }
+                }) / numOfFromSections;
+                System.out.printf("%10d %10d %18.2f %18.2f %7.1fx%n", numOfSections, percentile, baseline, primitive, baseline / primitive);
+            }
+        }
+        System.out.println("(checksum " + blackhole + ")");
+    }
+
+    // valued chain times: idle time plus occasional stamm change addition, with many equal values
+    private static int[] randomValuedChainTimes(Random random, int numOfValues) {
+        int[] values = new int[numOfValues];
+        for (int idx = 0; idx < numOfValues; idx++) {
+            values[idx] = random.nextInt(DAY_IN_SECONDS / 60) * 60 + (random.nextInt(4) == 0 ? 5400 : 0);
+        }
+        return values;
+    }
+
+    private static Map<Integer, Integer> toMap(int[] values) {
+        Map<Integer, Integer> map = new LinkedHashMap<>();
+        for (int idx = 0; idx < values.length; idx++) {
+            map.put(idx, values[idx]);
+        }
+        return map;
+    }
+
+    // average duration of one round in microseconds
+    private static double measure(Runnable round) {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            round.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            round.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_ROUNDS;
+    }
+
+    // previous implementation of the percentile filter (boxed values, sorted)
+    private static List<Integer> baselineFilterByPercentile(Map<Integer, Integer> valuedChainTimeMap, int percentile) {
+        int timeThreshold = baselineGetXthPercentileValue(valuedChainTimeMap.values().stream().toList(), percentile);
+        return valuedChainTimeMap.entrySet().stream().filter(e -> e.getValue() <= timeThreshold).map(Entry::getKey).toList();
+    }
+
+    private static int baselineGetXthPercentileValue(List<Integer> values, int percentile) {
+        int index = ChainingOptionsFilter.getPercentileRank(values.size(), percentile);
+        if (percentile == 100){
+            return Collections.max(values);
+        }
+        List<Integer> sortedValuedTimes = values.stream().sorted().toList();
+        return sortedValuedTimes.get(index);
+    }
+
+}
@@ -0,0 +1,83 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.filters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+public class ChainingOptionsFilterTest {
+
+    private static final int[] PERCENTILES = {0, 1, 5, 12, 25, 49, 50, 51, 75, 99, 100};
+
+    // few distinct values -> many ties at the threshold
+    @Test
+    void testSelectionResultsInSameCandidatesAsSort() {
+        Random random = new Random(7);
+        int[] selection = new int[64];
+        for (int numOfValues = 1; numOfValues <= 64; numOfValues++) {
+            for (int valueRange : new int[] {1, 3, 1000}) {
+                int[] values = random.ints(numOfValues, 0, valueRange).map(value -> value * 60).toArray();
+                int[] unchangedValues = values.clone();
+                for (int percentile : PERCENTILES) {
+                    int[] positions = IntStream.range(0, numOfValues).map(idx -> 100 + idx).toArray();
+                    int numOfRetained = ChainingOptionsFilter.retainWithinPercentile(positions, values, numOfValues, percentile, selection);
+
+                    assertArrayEquals(getWithinPercentileBySort(values, percentile), Arrays.copyOf(positions, numOfRetained));
+                    assertArrayEquals(unchangedValues, values);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testKthSmallestIsValueOfSortedPosition() {
+        Random random = new Random(11);
+        for (int numOfValues = 1; numOfValues <= 40; numOfValues++) {
+            int[] values = random.ints(numOfValues, 0, 5).toArray();
+            int[] sortedValues = values.clone();
+            Arrays.sort(sortedValues);
+            for (int k = 0; k < numOfValues; k++) {
+                assertEquals(sortedValues[k], ChainingOptionsFilter.selectKthSmallest(values.clone(), numOfValues, k));
+            }
+        }
+        // only the first numOfValues values are considered
+        assertEquals(5, ChainingOptionsFilter.selectKthSmallest(new int[] {9, 5, 7, 1, 1}, 3, 0));
+    }
+
+    @Test
+    void testPercentileRankAtBoundaries() {
+        assertEquals(0, ChainingOptionsFilter.getPercentileRank(10, 0));
+        assertEquals(0, ChainingOptionsFilter.getPercentileRank(10, 10));
+        assertEquals(1, ChainingOptionsFilter.getPercentileRank(10, 11));
+        assertEquals(4, ChainingOptionsFilter.getPercentileRank(10, 50));
+        assertEquals(9, ChainingOptionsFilter.getPercentileRank(10, 100));
+        assertEquals(0, ChainingOptionsFilter.getPercentileRank(1, 50));
+        assertThrows(IllegalArgumentException.class, () -> ChainingOptionsFilter.getPercentileRank(10, 101));
+        assertThrows(IllegalArgumentException.class, () -> ChainingOptionsFilter.getPercentileRank(10, -1));
+    }
+
+    @Test
+    void testBoundedMaxHeapKeepsSmallestValuesAfterReset() {
+        BoundedMaxHeap heap = new BoundedMaxHeap(8);
+        IntStream.of(9, 3, 7, 3, 1).forEach(heap::add);
+        assertEquals(9, heap.peekMax());
+
+        heap.reset(3);
+        IntStream.of(9, 3, 7, 3, 1, 8).forEach(heap::add);
+        assertEquals(3, heap.peekMax());
+        assertThrows(IllegalArgumentException.class, () -> heap.reset(9));
+    }
+
+    // previous implementation: threshold from the sorted values, then every position within it in original order
+    private static int[] getWithinPercentileBySort(int[] values, int percentile) {
+        int[] sortedValues = values.clone();
+        Arrays.sort(sortedValues);
+        int threshold = sortedValues[ChainingOptionsFilter.getPercentileRank(values.length, percentile)];
+        return IntStream.range(0, values.length).filter(idx -> values[idx] <= threshold).map(idx -> 100 + idx).toArray();
+    }
+
+}
@@ -0,0 +1,48 @@
+package ch.sbb.simba.backend.mikado.solver.ip.chaining.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+public class ChainComponentsTest {
+
+    /*
+     * cycle 0 -> 1 -> 2 -> 0, cycle 3 <-> 4 and section 5 without any outgoing chain
+     *  -> chains 2 -> 3 and 4 -> 5 connect the components in one direction only, they are never chosen
+     */
+    @Test
+    void testComponentsOfPossibleChains() {
+        ChainList chains = new ChainList();
+        chains.add(0, 1);
+        chains.add(1, 2);
+        chains.add(2, 0);
+        chains.add(2, 3);
+        chains.add(3, 4);
+        chains.add(4, 3);
+        chains.add(4, 5);
+
+        ChainComponents components = ChainComponents.of(chains, 6);
+        assertEquals(3, components.getNumOfComponents());
+        assertEquals(components.getComponent(0), components.getComponent(1));
+        assertEquals(components.getComponent(0), components.getComponent(2));
+        assertEquals(components.getComponent(3), components.getComponent(4));
+        assertArrayEquals(new int[] {0, 1, 2}, components.getSectionsOfComponent(components.getComponent(0)));
+        assertArrayEquals(new int[] {3, 4}, components.getSectionsOfComponent(components.getComponent(3)));
+        assertArrayEquals(new int[] {5}, components.getSectionsOfComponent(components.getComponent(5)));
+        assertEquals(1, components.getPositionInComponent(4));
+        assertEquals(0, components.getPositionInComponent(5));
+
+        ChainList chainsWithinComponents = components.filterChainsWithinComponents(chains);
+        assertEquals(5, chainsWithinComponents.size());
+        for (int idx = 0; idx < chainsWithinComponents.size(); idx++) {
+            assertEquals(components.getComponent(chainsWithinComponents.getFrom(idx)), components.getComponent(chainsWithinComponents.getTo(idx)));
+        }
+        // the singleton section 5 keeps no chain, it has no successor
+        for (int idx = 0; idx < chainsWithinComponents.size(); idx++) {
+            assertFalse(chainsWithinComponents.getFrom(idx) == 5 || chainsWithinComponents.getTo(idx) == 5);
+        }
+    }
+
+}
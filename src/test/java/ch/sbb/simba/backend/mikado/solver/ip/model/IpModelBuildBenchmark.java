@@ -0,0 +1,170 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import static ch.sbb.simba.backend.mikado.solver.ip.IpSolver.INFINITY;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPObjective;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/*
+ * Benchmark of the model build (not part of the test suite, run via main)
+ *  -> baseline: variables, constraints and coefficients are created directly on the MPSolver, with names (previous IpSolver)
+ *  -> IpModel: filled on the Java side, then loaded incrementally or in bulk, with or without names
+ * The model has the shape of a oneBlock stage: x per chain, u per section, basic rows per section and one subtour row per chain.
+ * The time includes filling the model and handing it to the solver, not solving it.
+ */
+public final class IpModelBuildBenchmark {
+
+    private static final int[] NUM_OF_SECTIONS = {500, 2_000, 5_000};
+    private static final int CHAINS_PER_SECTION = 40;
+    private static final int WARM_UP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private IpModelBuildBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Loader.loadNativeLibraries();
+        Random random = new Random(42);
+        System.out.printf("%9s %9s %14s %14s %14s %14s %14s%n", "sections", "chains", "baseline [ms]", "incr+names", "incr", "bulk+names", "bulk");
+
+        for (int numOfSections : NUM_OF_SECTIONS) {
+            int[][] chains = randomChains(random, numOfSections);
+
+            double baseline = measure(() -> buildBaseline(chains, numOfSections));
+            double incrementalNames = measure(() -> buildIpModel(chains, numOfSections, true, false));
+            double incremental = measure(() -> buildIpModel(chains, numOfSections, false, false));
+            double bulkNames = measure(() -> buildIpModel(chains, numOfSections, true, true));
+            double bulk = measure(() -> buildIpModel(chains, numOfSections, false, true));
+            System.out.printf("%9d %9d %14.1f %14.1f %14.1f %14.1f %14.1f%n", numOfSections, chains[0].length, baseline, incrementalNames, incremental, bulkNames, bulk);
+
+            MPSolver incrementalSolver = buildIpModel(chains, numOfSections, true, false);
+            MPSolver bulkSolver = buildIpModel(chains, numOfSections, true, true);
+            System.out.println("  same model (incremental vs bulk): " + incrementalSolver.exportModelToProto().equals(bulkSolver.exportModelToProto()));
+            incrementalSolver.delete();
+            bulkSolver.delete();
+        }
+    }
+
+    // chains[0][c] -> chains[1][c], distinct successors per section, no self loops
+    private static int[][] randomChains(Random random, int numOfSections) {
+        int numOfChains = numOfSections * CHAINS_PER_SECTION;
+        int[][] chains = new int[2][numOfChains];
+        for (int c = 0; c < numOfChains; c++) {
+            int from = c / CHAINS_PER_SECTION;
+            int offset = 1 + c % CHAINS_PER_SECTION * ((numOfSections - 1) / CHAINS_PER_SECTION) + random.nextInt((numOfSections - 1) / CHAINS_PER_SECTION);
+            chains[0][c] = from;
+            chains[1][c] = (from + offset) % numOfSections;
+        }
+        return chains;
+    }
+
+    private static MPSolver buildBaseline(int[][] chains, int numOfSections) {
+        MPSolver solver = MPSolver.createSolver("CBC");
+        int numOfChains = chains[0].length;
+
+        MPVariable[] x = new MPVariable[numOfChains];
+        for (int c = 0; c < numOfChains; c++) {
+            x[c] = solver.makeIntVar(0, 1, "x" + chains[0][c] + "_" + chains[1][c]);
+        }
+        MPVariable[] u = new MPVariable[numOfSections];
+        for (int i = 0; i < numOfSections; i++) {
+            u[i] = solver.makeIntVar(1, numOfSections, "u" + i);
+        }
+
+        MPConstraint[] after = new MPConstraint[numOfSections];
+        MPConstraint[] before = new MPConstraint[numOfSections];
+        for (int i = 0; i < numOfSections; i++) {
+            after[i] = solver.makeConstraint(1, 1, "basicAfter_" + i);
+            before[i] = solver.makeConstraint(1, 1, "basicBefore_" + i);
+        }
+        for (int c = 0; c < numOfChains; c++) {
+            after[chains[0][c]].setCoefficient(x[c], 1);
+            before[chains[1][c]].setCoefficient(x[c], 1);
+        }
+
+        for (int c = 0; c < numOfChains; c++) {
+            int i = chains[0][c];
+            int j = chains[1][c];
+            if (i > 0 && j > 0) {
+                MPConstraint oneBlock = solver.makeConstraint(-INFINITY, numOfSections - 2, "1Block_" + i + "_" + j);
+                oneBlock.setCoefficient(x[c], numOfSections - 1);
+                oneBlock.setCoefficient(u[i], 1);
+                oneBlock.setCoefficient(u[j], -1);
+            }
+        }
+
+        MPObjective objective = solver.objective();
+        objective.setMinimization();
+        for (int c = 0; c < numOfChains; c++) {
+            objective.setCoefficient(x[c], 1 + (c % 97));
+        }
+        return solver;
+    }
+
+    private static MPSolver buildIpModel(int[][] chains, int numOfSections, boolean withNames, boolean bulk) {
+        IpModel model = new IpModel(withNames);
+        int numOfChains = chains[0].length;
+
+        int[] x = new int[numOfChains];
+        for (int c = 0; c < numOfChains; c++) {
+            x[c] = model.makeIntVar(0, 1, "x", chains[0][c], chains[1][c]);
+        }
+        int[] u = new int[numOfSections];
+        for (int i = 0; i < numOfSections; i++) {
+            u[i] = model.makeIntVar(1, numOfSections, "u", i);
+        }
+
+        ConstraintBlock basic = model.newConstraintBlock();
+        int[] after = new int[numOfSections];
+        int[] before = new int[numOfSections];
+        for (int i = 0; i < numOfSections; i++) {
+            after[i] = basic.makeConstraint(1, 1, "basicAfter_", i);
+            before[i] = basic.makeConstraint(1, 1, "basicBefore_", i);
+        }
+        for (int c = 0; c < numOfChains; c++) {
+            basic.setCoefficient(after[chains[0][c]], x[c], 1);
+            basic.setCoefficient(before[chains[1][c]], x[c], 1);
+        }
+
+        ConstraintBlock oneBlock = model.newConstraintBlock();
+        for (int c = 0; c < numOfChains; c++) {
+            int i = chains[0][c];
+            int j = chains[1][c];
+            if (i > 0 && j > 0) {
+                int row = oneBlock.makeConstraint(-INFINITY, numOfSections - 2, "1Block_", i, j);
+                oneBlock.setCoefficient(row, x[c], numOfSections - 1);
+                oneBlock.setCoefficient(row, u[i], 1);
+                oneBlock.setCoefficient(row, u[j], -1);
+            }
+        }
+
+        for (int c = 0; c < numOfChains; c++) {
+            model.setObjectiveCoefficient(x[c], 1 + (c % 97));
+        }
+
+        MPSolver solver = MPSolver.createSolver("CBC");
+        IpModelLoader.load(model, solver, bulk);
+        return solver;
+    }
+
+    // average duration of one build in milliseconds
+    private static double measure(Supplier<MPSolver> build) {
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            build.get().delete();
+        }
+        long total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            MPSolver solver = build.get();
+            total += System.nanoTime() - start;
+            solver.delete();
+        }
+        return total / 1_000_000.0 / MEASURED_ROUNDS;
+    }
+
+}
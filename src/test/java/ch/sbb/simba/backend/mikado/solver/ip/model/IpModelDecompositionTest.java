@@ -0,0 +1,111 @@
+package ch.sbb.simba.backend.mikado.solver.ip.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class IpModelDecompositionTest {
+
+    // two parts: x0 + x1 = 1 and x2 + x3 = 1 (enforced by x4), x3 <= 1; the larger part goes to the first sub-model
+    @Test
+    void testIndependentPartsResultInOneSubModelEach() {
+        IpModel model = getTwoPartModel();
+
+        IpModelDecomposition decomposition = IpModelDecomposition.of(model, 4);
+        assertEquals(2, decomposition.getNumOfSubModels());
+        IpModel largerPart = decomposition.getSubModel(0);
+        IpModel smallerPart = decomposition.getSubModel(1);
+        assertEquals(3, largerPart.getNumOfVariables());
+        assertEquals(2, largerPart.getNumOfConstraints());
+        assertEquals(2, smallerPart.getNumOfVariables());
+        assertEquals(1, smallerPart.getNumOfConstraints());
+        assertEquals(3, largerPart.getObjectiveCoefficient(1));
+        assertEquals(1, smallerPart.getObjectiveCoefficient(1));
+        assertEquals(2, largerPart.getConstraintBlocks().get(0).getEnforcementLiteral(0));
+
+        double[] values = decomposition.mergeSolutionValues(List.of(new double[]{1, 1, 0}, new double[]{0, 1}));
+        assertArrayEquals(new double[]{0, 1, 1, 1, 0}, values);
+    }
+
+    @Test
+    void testConnectingRowResultsInModelItself() {
+        IpModel model = getTwoPartModel();
+        ConstraintBlock block = model.newConstraintBlock();
+        int row = block.makeConstraint(0, 1, "connect", 0);
+        block.setCoefficient(row, 0, 1);
+        block.setCoefficient(row, 2, 1);
+
+        IpModelDecomposition decomposition = IpModelDecomposition.of(model, 4);
+        assertEquals(1, decomposition.getNumOfSubModels());
+        assertSame(model, decomposition.getSubModel(0));
+        double[] values = new double[]{1, 0, 0, 1, 0};
+        assertArrayEquals(values, decomposition.mergeSolutionValues(List.of(values)));
+    }
+
+    @Test
+    void testPartsAreGroupedIntoMaxNumOfSubModels() {
+        IpModel model = new IpModel(false);
+        ConstraintBlock block = model.newConstraintBlock();
+        for (int part = 0; part < 5; part++) {
+            int first = model.makeIntVar(0, 1, "x", part, 0);
+            int second = model.makeIntVar(0, 1, "x", part, 1);
+            int row = block.makeConstraint(1, 1, "part", part);
+            block.setCoefficient(row, first, 1);
+            block.setCoefficient(row, second, 1);
+        }
+
+        IpModelDecomposition decomposition = IpModelDecomposition.of(model, 2);
+        assertEquals(2, decomposition.getNumOfSubModels());
+        assertEquals(6, decomposition.getSubModel(0).getNumOfVariables());
+        assertEquals(4, decomposition.getSubModel(1).getNumOfVariables());
+        assertEquals(5, decomposition.getSubModel(0).getNumOfConstraints() + decomposition.getSubModel(1).getNumOfConstraints());
+    }
+
+    // circuits over the positions of their sections: each circuit goes to the sub-model of its literals, with its nodes unchanged
+    @Test
+    void testCircuitsStayWithTheirLiterals() {
+        IpModel model = new IpModel(false);
+        ConstraintBlock firstCircuit = model.newConstraintBlock();
+        ConstraintBlock secondCircuit = model.newConstraintBlock();
+        for (int arc = 0; arc < 2; arc++) {
+            firstCircuit.addCircuitArc(arc, 1 - arc, model.makeIntVar(0, 1, "x", 0, arc));
+        }
+        for (int arc = 0; arc < 3; arc++) {
+            secondCircuit.addCircuitArc(arc, (arc + 1) % 3, model.makeIntVar(0, 1, "x", 1, arc));
+        }
+
+        IpModelDecomposition decomposition = IpModelDecomposition.of(model, 2);
+        assertEquals(2, decomposition.getNumOfSubModels());
+        ConstraintBlock firstInSubModel = decomposition.getSubModel(1).getConstraintBlocks().get(0);
+        ConstraintBlock secondInSubModel = decomposition.getSubModel(0).getConstraintBlocks().get(1);
+        assertEquals(2, firstInSubModel.getNumOfCircuitArcs());
+        assertEquals(0, decomposition.getSubModel(1).getConstraintBlocks().get(1).getNumOfCircuitArcs());
+        assertEquals(3, secondInSubModel.getNumOfCircuitArcs());
+        assertEquals(2, secondInSubModel.getCircuitTail(2));
+        assertEquals(0, secondInSubModel.getCircuitHead(2));
+        assertEquals(2, secondInSubModel.getCircuitLiteral(2));
+    }
+
+    private static IpModel getTwoPartModel() {
+        IpModel model = new IpModel(true);
+        for (int var = 0; var < 5; var++) {
+            model.makeIntVar(0, 1, "x", var);
+            model.setObjectiveCoefficient(var, var);
+        }
+        ConstraintBlock block = model.newConstraintBlock();
+        int first = block.makeConstraint(1, 1, "first", 0);
+        block.setCoefficient(first, 0, 1);
+        block.setCoefficient(first, 1, 1);
+        int second = block.makeConstraint(1, 1, "second", 0);
+        block.setCoefficient(second, 2, 1);
+        block.setCoefficient(second, 3, 1);
+        block.setEnforcementLiteral(second, 4);
+        int third = block.makeConstraint(0, 1, "third", 0);
+        block.setCoefficient(third, 3, 1);
+        return model;
+    }
+
+}
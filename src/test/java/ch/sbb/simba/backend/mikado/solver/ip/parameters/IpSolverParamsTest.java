@@ -0,0 +1,104 @@
+package ch.sbb.simba.backend.mikado.solver.ip.parameters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import ch.sbb.simba.backend.mikado.solver.parameters.InputDefaultValues;
+import ch.sbb.simba.backend.mikado.solver.parameters.RotaziunInputParams;
+import ch.sbb.simba.backend.mikado.solver.utils.RotaziunDurationMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class IpSolverParamsTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    AtomicLong now;
+    IpSolverParams params;
+
+    @BeforeEach
+    void init() {
+        RotaziunStation station1 = RotaziunStation.builder().id(1001L).name("Station 1").xcoord(0f).ycoord(0f).build();
+        RotaziunStation station2 = RotaziunStation.builder().id(1002L).name("Station 2").xcoord(0f).ycoord(1000f).build();
+        RotaziunVehicle vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+        List<RotaziunSection> sections = List.of(
+            getSection(station1, station2, 6 * 3600, 7 * 3600, 1L, vehicle1),
+            getSection(station2, station1, 8 * 3600, 9 * 3600, 2L, vehicle1));
+
+        RotaziunInputParams input = InputDefaultValues.withDefaults(RotaziunInputParams.builder().minTurnTime(180).sidingCapacityMap(new HashMap<>()).build());
+        this.params = new IpSolverParams(input, sections, List.of(), new RotaziunDurationMap(sections));
+        this.now = new AtomicLong(1_000 * SECOND);
+        params.setClock(now::get);
+        params.setStartTime(now.get());
+    }
+
+    @Test
+    void testStageDeadlineIsShareOfRemainingTimeBudget() {
+        params.setDeadline(now.get() + 12 * SECOND);
+
+        // stage 1 of three planned stages
+        params.setStageParams(getStageParams(1, 3));
+        assertEquals(now.get() + 4 * SECOND, params.computeStageDeadline());
+
+        // stage 1 is done after 1 s: its unused time goes to the two remaining stages
+        now.addAndGet(SECOND);
+        params.setStageParams(getStageParams(2, 2));
+        assertEquals(now.get() + 11 * SECOND / 2, params.computeStageDeadline());
+        assertFalse(params.isTimeBudgetUsedUp());
+
+        // the last stage gets all the remaining time
+        now.addAndGet(9 * SECOND);
+        params.setStageParams(getStageParams(3, 1));
+        assertEquals(now.get() + 2 * SECOND, params.computeStageDeadline());
+    }
+
+    @Test
+    void testUsedUpTimeBudgetResultsInStageDeadlineNow() {
+        params.setDeadline(now.get() + 2 * SECOND);
+        params.setStageParams(getStageParams(2, 2));
+
+        now.addAndGet(2 * SECOND);
+        assertTrue(params.isTimeBudgetUsedUp());
+        assertEquals(now.get(), params.computeStageDeadline());
+
+        now.addAndGet(SECOND);
+        assertEquals(now.get(), params.computeStageDeadline());
+    }
+
+    @Test
+    void testNoTimeBudgetResultsInNoDeadline() {
+        params.setStageParams(getStageParams(1, 3));
+        now.addAndGet(1_000_000 * SECOND);
+        assertEquals(IpSolverParams.NO_DEADLINE, params.computeStageDeadline());
+        assertFalse(params.isTimeBudgetUsedUp());
+    }
+
+    private static StageParams getStageParams(int stage, int numOfRemainingStages) {
+        return StageParams.builder().stage(stage).numOfRemainingStages(numOfRemainingStages).build();
+    }
+
+    private static RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long id,
+        RotaziunVehicle vehicle) {
+        return RotaziunSection.builder()
+            .departure(startTime)
+            .arrival(endTime)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}
@@ -0,0 +1,74 @@
+package ch.sbb.simba.backend.mikado.solver.ip.parameters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.Test;
+
+public class SolveCancellationTest {
+
+    @Test
+    void testCancelledSolveStartsNoSolver() {
+        SolveCancellation cancellation = new SolveCancellation();
+        cancellation.cancel();
+        assertThrows(CancellationException.class, () -> cancellation.startSolver(() -> true));
+    }
+
+    // the first stops land before the native solve has started and are lost, the stop is repeated until one is not lost
+    @Test
+    void testStopIsRepeatedUntilSolverHasEnded() throws InterruptedException {
+        SolveCancellation cancellation = new SolveCancellation();
+        CountDownLatch stops = new CountDownLatch(3);
+        BooleanSupplier stopSolver = () -> {
+            stops.countDown();
+            return true;
+        };
+        cancellation.startSolver(stopSolver);
+
+        cancellation.cancel();
+        assertTrue(stops.await(30, TimeUnit.SECONDS), "the stop was not repeated");
+        cancellation.endSolver(stopSolver);
+        assertThrows(CancellationException.class, cancellation::throwIfCancelled);
+    }
+
+    // a solver that cannot be stopped (CBC) is asked once
+    @Test
+    void testStopOfSolverWithoutInterruptIsNotRepeated() {
+        SolveCancellation cancellation = new SolveCancellation();
+        AtomicInteger stops = new AtomicInteger();
+        BooleanSupplier stopSolver = () -> {
+            stops.incrementAndGet();
+            return false;
+        };
+        cancellation.startSolver(stopSolver);
+
+        cancellation.cancel();
+        assertEquals(1, stops.get());
+        cancellation.endSolver(stopSolver);
+    }
+
+    // sub-models of a stage are solved in parallel, every running solver is stopped
+    @Test
+    void testCancelStopsEveryRunningSolver() {
+        SolveCancellation cancellation = new SolveCancellation();
+        AtomicInteger firstStops = new AtomicInteger();
+        AtomicInteger secondStops = new AtomicInteger();
+        BooleanSupplier stopFirstSolver = () -> firstStops.incrementAndGet() < 0;
+        BooleanSupplier stopSecondSolver = () -> secondStops.incrementAndGet() < 0;
+        cancellation.startSolver(stopFirstSolver);
+        cancellation.startSolver(stopSecondSolver);
+        cancellation.endSolver(stopFirstSolver);
+
+        cancellation.cancel();
+        assertEquals(0, firstStops.get());
+        assertEquals(1, secondStops.get());
+        cancellation.endSolver(stopSecondSolver);
+    }
+
+}
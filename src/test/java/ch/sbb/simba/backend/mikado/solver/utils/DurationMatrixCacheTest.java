@@ -0,0 +1,211 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DurationMatrixCacheTest {
+
+    private static final int NOT_SET = Integer.MIN_VALUE;
+    private static final long MAX_SIZE = 1024L * 1024L;
+
+    @TempDir
+    Path directory;
+
+    RotaziunStation station1;
+    RotaziunStation station2;
+    RotaziunStation station3;
+    RotaziunVehicle vehicle1;
+
+    @BeforeEach
+    void init() {
+        this.station1 = RotaziunStation.builder().id(1001L).name("Station 1").xcoord(7.4f).ycoord(46.9f).build();
+        this.station2 = RotaziunStation.builder().id(1002L).name("Station 2").xcoord(8.5f).ycoord(47.4f).build();
+        this.station3 = RotaziunStation.builder().id(1003L).name("Station 3").xcoord(6.1f).ycoord(46.2f).build();
+        this.vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+    }
+
+    @Test
+    void testStoredMatrixIsLoadedWithSameDurations() throws IOException {
+        List<RotaziunSection> sections = getSections();
+        DurationMatrixCache cache = new DurationMatrixCache(directory, MAX_SIZE);
+
+        RotaziunDurationMap computed = new RotaziunDurationMap(sections, false, false, false, null, cache);
+        assertEquals(1, getCacheFiles().size());
+        RotaziunDurationMap loaded = new RotaziunDurationMap(sections, false, false, false, null, cache);
+        assertEquals(1, getCacheFiles().size());
+
+        for (RotaziunStation from : List.of(station1, station2, station3)) {
+            for (RotaziunStation to : List.of(station1, station2, station3)) {
+                assertEquals(computed.getDuration(from.getId(), to.getId()), loaded.getDuration(from.getId(), to.getId()));
+            }
+        }
+
+        int[] durations = {0, 600, 1200, 700, 0, 900, 1300, 800, 0};
+        byte[] key = getKey(durations, false);
+        cache.store(key, IntBuffer.wrap(durations), 3);
+        IntBuffer loadedDurations = cache.load(key, 3);
+        assertNotNull(loadedDurations);
+        int[] loadedArray = new int[durations.length];
+        loadedDurations.get(loadedArray);
+        assertArrayEquals(durations, loadedArray);
+    }
+
+    @Test
+    void testCorruptedFileIsDeletedAndRebuilt() throws IOException {
+        List<RotaziunSection> sections = getSections();
+        DurationMatrixCache cache = new DurationMatrixCache(directory, MAX_SIZE);
+        RotaziunDurationMap computed = new RotaziunDurationMap(sections, false, false, false, null, cache);
+        Path file = getCacheFiles().get(0);
+
+        // one duration changed -> checksum does not match
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.seek(randomAccessFile.length() - 1);
+            randomAccessFile.write(randomAccessFile.read() ^ 0xFF);
+        }
+        RotaziunDurationMap rebuilt = new RotaziunDurationMap(sections, false, false, false, null, cache);
+        assertEquals(computed.getDuration(station1.getId(), station3.getId()), rebuilt.getDuration(station1.getId(), station3.getId()));
+        assertEquals(1, getCacheFiles().size());
+
+        // truncated file -> deleted on load, rebuilt by the next store
+        byte[] key = getKey(new int[] {0, 600, NOT_SET, NOT_SET}, false);
+        cache.store(key, IntBuffer.wrap(new int[] {0, 600, 600, 0}), 2);
+        Path truncatedFile = getCacheFiles().stream().filter(path -> !path.equals(file)).findFirst().orElseThrow();
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(truncatedFile.toFile(), "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - Integer.BYTES);
+        }
+        assertNull(cache.load(key, 2));
+        assertFalse(Files.exists(truncatedFile));
+        cache.store(key, IntBuffer.wrap(new int[] {0, 600, 600, 0}), 2);
+        assertNotNull(cache.load(key, 2));
+    }
+
+    @Test
+    void testChangedInputResultsInDifferentKey() throws IOException {
+        int[] durations = {NOT_SET, 600, NOT_SET, NOT_SET};
+        byte[] key = getKey(durations, false);
+
+        assertArrayEquals(key, getKey(durations.clone(), false));
+        assertFalse(Arrays.equals(key, getKey(new int[] {NOT_SET, 660, NOT_SET, NOT_SET}, false)));
+        assertFalse(Arrays.equals(key, getKey(new int[] {NOT_SET, 600, 600, NOT_SET}, false)));
+        assertFalse(Arrays.equals(key, getKey(durations, true)));
+        assertFalse(Arrays.equals(key, DurationMatrixCache.computeKey(new long[] {1001L, 1004L}, new float[] {7.4f, 8.5f},
+            new float[] {46.9f, 47.4f}, durations, NOT_SET, false)));
+
+        // a changed section set is stored as a file of its own
+        DurationMatrixCache cache = new DurationMatrixCache(directory, MAX_SIZE);
+        new RotaziunDurationMap(getSections(), false, false, false, null, cache);
+        new RotaziunDurationMap(getSections().subList(0, 2), false, false, false, null, cache);
+        assertEquals(2, getCacheFiles().size());
+    }
+
+    @Test
+    void testLeastRecentlyUsedFileIsEvicted() throws IOException {
+        int[] durations = {0, 600, 700, 0};
+        long fileSize = 4L * Integer.BYTES + 32 + durations.length * Integer.BYTES;
+        DurationMatrixCache cache = new DurationMatrixCache(directory, 2 * fileSize);
+        byte[] keyA = getKey(new int[] {NOT_SET, 600, NOT_SET, NOT_SET}, false);
+        byte[] keyB = getKey(new int[] {NOT_SET, 610, NOT_SET, NOT_SET}, false);
+        byte[] keyC = getKey(new int[] {NOT_SET, 620, NOT_SET, NOT_SET}, false);
+
+        cache.store(keyA, IntBuffer.wrap(durations), 2);
+        cache.store(keyB, IntBuffer.wrap(durations), 2);
+        assertEquals(2, getCacheFiles().size());
+        long now = System.currentTimeMillis();
+        for (Path file : getCacheFiles()) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now - 60_000));
+        }
+        assertNotNull(cache.load(keyA, 2)); // A is used again, B is the least recently used file
+
+        cache.store(keyC, IntBuffer.wrap(durations), 2);
+        assertEquals(2, getCacheFiles().size());
+        assertNotNull(cache.load(keyA, 2));
+        assertNull(cache.load(keyB, 2));
+        assertNotNull(cache.load(keyC, 2));
+        assertTrue(getDirectorySize() <= 2 * fileSize);
+    }
+
+    @Test
+    void testStaleTemporaryFileIsDeleted() throws IOException {
+        Path staleTmpFile = Files.writeString(directory.resolve("stale.durations1.tmp"), "partially written");
+        Files.setLastModifiedTime(staleTmpFile, FileTime.fromMillis(System.currentTimeMillis() - 3_600_000));
+        Path recentTmpFile = Files.writeString(directory.resolve("recent.durations2.tmp"), "write in progress");
+
+        DurationMatrixCache cache = new DurationMatrixCache(directory, MAX_SIZE);
+        cache.store(getKey(new int[] {NOT_SET, 600, NOT_SET, NOT_SET}, false), IntBuffer.wrap(new int[] {0, 600, 600, 0}), 2);
+
+        assertFalse(Files.exists(staleTmpFile));
+        assertTrue(Files.exists(recentTmpFile));
+        assertEquals(1, getCacheFiles().size());
+    }
+
+    private byte[] getKey(int[] observedDurations, boolean network) {
+        int numOfStations = (int) Math.sqrt(observedDurations.length);
+        long[] stationIds = new long[numOfStations];
+        float[] xcoords = new float[numOfStations];
+        float[] ycoords = new float[numOfStations];
+        for (int ordinal = 0; ordinal < numOfStations; ordinal++) {
+            stationIds[ordinal] = 1001L + ordinal;
+            xcoords[ordinal] = 7.4f + ordinal;
+            ycoords[ordinal] = 46.9f;
+        }
+        return DurationMatrixCache.computeKey(stationIds, xcoords, ycoords, observedDurations, NOT_SET, network);
+    }
+
+    private List<Path> getCacheFiles() throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.filter(path -> path.getFileName().toString().endsWith(".durations")).toList();
+        }
+    }
+
+    private long getDirectorySize() throws IOException {
+        long size = 0;
+        for (Path file : getCacheFiles()) {
+            size += Files.size(file);
+        }
+        return size;
+    }
+
+    private List<RotaziunSection> getSections() {
+        return List.of(
+            getSection(station1, station2, 6 * 3600, 7 * 3600, 1L),
+            getSection(station2, station1, 8 * 3600, 9 * 3600 + 300, 2L),
+            getSection(station2, station3, 10 * 3600, 12 * 3600, 3L));
+    }
+
+    private RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int startTime, int endTime, long id) {
+        return RotaziunSection.builder()
+            .departure(startTime)
+            .arrival(endTime)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}
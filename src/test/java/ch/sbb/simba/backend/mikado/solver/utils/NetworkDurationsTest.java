@@ -0,0 +1,100 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NetworkDurationsTest {
+
+    private static final int NOT_SET = Integer.MIN_VALUE;
+
+    RotaziunStation stationA;
+    RotaziunStation stationB;
+    RotaziunStation stationC;
+    RotaziunStation stationD;
+    RotaziunStation stationE;
+    RotaziunVehicle vehicle1;
+
+    @BeforeEach
+    void init() {
+        this.stationA = RotaziunStation.builder().id(1001L).name("A").xcoord(7.4f).ycoord(46.9f).build();
+        this.stationB = RotaziunStation.builder().id(1002L).name("B").xcoord(7.9f).ycoord(47.1f).build();
+        this.stationC = RotaziunStation.builder().id(1003L).name("C").xcoord(8.5f).ycoord(47.4f).build();
+        this.stationD = RotaziunStation.builder().id(1004L).name("D").xcoord(6.1f).ycoord(46.2f).build();
+        this.stationE = RotaziunStation.builder().id(1005L).name("E").xcoord(6.6f).ycoord(46.5f).build();
+        this.vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+    }
+
+    // A -> B -> C without a direct relation A -> C; D -> E is not connected to A, B and C
+    @Test
+    void testShortestPathReverseFallbackAndBeeLine() {
+        List<RotaziunSection> sections = List.of(
+            getSection(stationA, stationB, 600, 1L),
+            getSection(stationB, stationC, 900, 2L),
+            getSection(stationD, stationE, 1200, 3L));
+        RotaziunDurationMap networkDurations = new RotaziunDurationMap(sections, false, true, false, null, null);
+        RotaziunDurationMap beeLineDurations = new RotaziunDurationMap(sections, false, false, false, null, null);
+
+        assertEquals(600 + 900, networkDurations.getDuration(stationA.getId(), stationC.getId()));
+        assertEquals(600 + 900, networkDurations.getDuration(stationC.getId(), stationA.getId())); // no path C -> A, reverse path
+        assertEquals(600, networkDurations.getDuration(stationB.getId(), stationA.getId()));
+        assertEquals(beeLineDurations.getDuration(stationA.getId(), stationD.getId()), networkDurations.getDuration(stationA.getId(), stationD.getId()));
+        assertEquals(beeLineDurations.getDuration(stationE.getId(), stationC.getId()), networkDurations.getDuration(stationE.getId(), stationC.getId()));
+
+        NetworkDurations shortestPaths = new NetworkDurations(new int[] {0, 1, 3}, new int[] {1, 2, 4}, new int[] {600, 900, 1200}, 5);
+        assertArrayEquals(new int[] {0, 600, 1500, NOT_SET, NOT_SET}, shortestPaths.computeDurationsFrom(0, NOT_SET));
+        assertArrayEquals(new int[] {1500, 900, 0, NOT_SET, NOT_SET}, shortestPaths.computeDurationsTo(2, NOT_SET));
+    }
+
+    // the reversed Dijkstra to a station gives the column of the Dijkstra rows from every station
+    @Test
+    void testDurationsToStationEqualDurationsFromEveryStation() {
+        int numOfStations = 60;
+        int numOfRelations = 150;
+        Random random = new Random(11);
+        int[] fromOrdinals = new int[numOfRelations];
+        int[] toOrdinals = new int[numOfRelations];
+        int[] durations = new int[numOfRelations];
+        for (int i = 0; i < numOfRelations; i++) {
+            fromOrdinals[i] = random.nextInt(numOfStations);
+            toOrdinals[i] = random.nextInt(numOfStations);
+            durations[i] = random.nextInt(3600) - 300; // includes overnight sections
+        }
+
+        NetworkDurations shortestPaths = new NetworkDurations(fromOrdinals, toOrdinals, durations, numOfStations);
+        int[][] durationsFrom = new int[numOfStations][];
+        for (int from = 0; from < numOfStations; from++) {
+            durationsFrom[from] = shortestPaths.computeDurationsFrom(from, NOT_SET);
+        }
+        for (int to = 0; to < numOfStations; to++) {
+            int[] durationsTo = shortestPaths.computeDurationsTo(to, NOT_SET);
+            for (int from = 0; from < numOfStations; from++) {
+                assertEquals(durationsFrom[from][to], durationsTo[from], from + " -> " + to);
+            }
+        }
+    }
+
+    private RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int duration, long id) {
+        return RotaziunSection.builder()
+            .departure(6 * 3600)
+            .arrival(6 * 3600 + duration)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}
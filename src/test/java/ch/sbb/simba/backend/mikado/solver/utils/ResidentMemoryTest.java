@@ -0,0 +1,35 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class ResidentMemoryTest {
+
+    // a reset would lower the peak of the process to its current resident memory
+    @Test
+    void testPeakSamplingLeavesPeakOfProcessUnchanged() {
+        long peakBefore = ResidentMemory.getPeakResidentMemory();
+        byte[][] allocation = new byte[64][];
+        ResidentMemory.PeakSampler peakSampler = ResidentMemory.startPeakSampling();
+        try {
+            for (int i = 0; i < allocation.length; i++) {
+                allocation[i] = new byte[1024 * 1024];
+                allocation[i][i] = 1;
+            }
+            long residentMemory = peakSampler.sample();
+            if (residentMemory == ResidentMemory.NOT_AVAILABLE) {
+                assertEquals(ResidentMemory.NOT_AVAILABLE, peakSampler.getPeakResidentMemory());
+                return;
+            }
+            assertTrue(peakSampler.getPeakResidentMemory() >= residentMemory);
+            assertTrue(peakSampler.getPeakResidentMemory() <= ResidentMemory.getPeakResidentMemory());
+        } finally {
+            peakSampler.stop();
+        }
+        assertTrue(ResidentMemory.getPeakResidentMemory() >= peakBefore);
+        assertEquals(1, allocation[1][1]);
+    }
+
+}
@@ -0,0 +1,113 @@
+package ch.sbb.simba.backend.mikado.solver.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSection;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunSectionType;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunStation;
+import ch.sbb.simba.backend.mikado.solver.models.RotaziunVehicle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class RotaziunDurationMapTest {
+
+    private static final int NUM_OF_STATIONS = 40; // more than one chunk of the parallel fill
+
+    private final RotaziunVehicle vehicle1 = RotaziunVehicle.builder().name("Vehicle1").length(1.0F).id(1L).build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testEagerSequentialEagerParallelAndLazyGiveIdenticalDurations(boolean network) {
+        List<RotaziunStation> stations = getStations();
+        List<RotaziunSection> sections = getSections(stations);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            RotaziunDurationMap eagerSequential = new RotaziunDurationMap(sections, false, network, false, null, null);
+            RotaziunDurationMap eagerParallel = new RotaziunDurationMap(sections, false, network, true, executor, null);
+            RotaziunDurationMap lazy = new RotaziunDurationMap(sections, true, network, false, null, null);
+
+            for (RotaziunStation from : stations) {
+                for (RotaziunStation to : stations) {
+                    int expected = eagerSequential.getDuration(from.getId(), to.getId());
+                    assertEquals(expected, eagerParallel.getDuration(from.getId(), to.getId()), from.getName() + " -> " + to.getName());
+                    assertEquals(expected, lazy.getDuration(from.getId(), to.getId()), from.getName() + " -> " + to.getName());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void testReverseAndUnobservedRelations(boolean lazy) {
+        List<RotaziunStation> stations = getStations();
+        RotaziunDurationMap durationMap = new RotaziunDurationMap(getSections(stations), lazy, false, false, null, null);
+
+        // observed relation 0 -> 1 (600 s), the reverse relation is only observed in this direction
+        assertEquals(600, durationMap.getDuration(stations.get(0).getId(), stations.get(1).getId()));
+        assertEquals(600, durationMap.getDuration(stations.get(1).getId(), stations.get(0).getId()));
+
+        // no observed relation between 0 and 20 in either direction -> symmetric bee line estimation
+        int beeLine = durationMap.getDuration(stations.get(0).getId(), stations.get(20).getId());
+        assertEquals(beeLine, durationMap.getDuration(stations.get(20).getId(), stations.get(0).getId()));
+        assertTrue(beeLine > 0);
+    }
+
+    // 46'342 stations -> more matrix entries than an int[] can hold
+    @Test
+    void testTooManyStationsAreRejected() {
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int i = 0; i < 23_171; i++) {
+            RotaziunStation from = RotaziunStation.builder().id(2L * i).name("From " + i).xcoord(7.0f).ycoord(46.0f).build();
+            RotaziunStation to = RotaziunStation.builder().id(2L * i + 1).name("To " + i).xcoord(7.1f).ycoord(46.0f).build();
+            sections.add(getSection(from, to, 600, i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RotaziunDurationMap(sections, true, false, false, null, null));
+    }
+
+    private List<RotaziunStation> getStations() {
+        List<RotaziunStation> stations = new ArrayList<>();
+        for (int i = 0; i < NUM_OF_STATIONS; i++) {
+            stations.add(RotaziunStation.builder().id(1000L + i).name("Station " + i).xcoord(6.0f + (i % 8) * 0.3f).ycoord(46.0f + (i / 8) * 0.2f).build());
+        }
+        return stations;
+    }
+
+    // one line 0 -> 1 -> ... -> 19 in forward direction only, a second line 20 <-> 21 <-> ... <-> 39 in both directions
+    private List<RotaziunSection> getSections(List<RotaziunStation> stations) {
+        List<RotaziunSection> sections = new ArrayList<>();
+        for (int i = 0; i < NUM_OF_STATIONS / 2 - 1; i++) {
+            sections.add(getSection(stations.get(i), stations.get(i + 1), 600 + 60 * (i % 5), sections.size()));
+        }
+        for (int i = NUM_OF_STATIONS / 2; i < NUM_OF_STATIONS - 1; i++) {
+            sections.add(getSection(stations.get(i), stations.get(i + 1), 900, sections.size()));
+            sections.add(getSection(stations.get(i + 1), stations.get(i), 960, sections.size()));
+        }
+        return sections;
+    }
+
+    private RotaziunSection getSection(RotaziunStation fromStation, RotaziunStation toStation, int duration, long id) {
+        return RotaziunSection.builder()
+            .departure(6 * 3600)
+            .arrival(6 * 3600 + duration)
+            .isStamm(true)
+            .debicodes(List.of(1))
+            .fromStation(fromStation)
+            .toStation(toStation)
+            .vehicle(vehicle1)
+            .journeyId(id)
+            .id(id)
+            .sectionType(RotaziunSectionType.COMMERCIAL)
+            .build();
+    }
+
+}